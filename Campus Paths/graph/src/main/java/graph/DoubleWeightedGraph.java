@@ -0,0 +1,414 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <b>DoubleWeightedGraph</b> represents a mutable, unsorted collection of nodes connected by
+ * edges whose values are double costs. It holds the same nodes and edges a Graph&lt;N, Double&gt;
+ * would, but stores them without any Edge objects or boxed Doubles: nodes are interned to dense
+ * int ids, and the outgoing edges of each node are kept in growable primitive arrays holding
+ * the id each edge ends at, its cost, and its penalty, a second measure that is 0 unless given
+ * (see {@link FrozenGraph#penalty(int)}).
+ * @Param <N> the value assigned to the node of a graph
+ */
+public class DoubleWeightedGraph<N> {
+
+    //Interns every node value to its id
+    private final NodeDictionary<N> nodes;
+
+    //The ids of the nodes the outgoing edges of each node end at, indexed by node id. Only the first
+    //degrees[u] elements of targets[u] are edges
+    private int[][] targets;
+
+    //The costs of the outgoing edges of each node, in the same order as targets
+    private double[][] weights;
+
+    //The penalties of the outgoing edges of each node, in the same order as targets
+    private double[][] penalties;
+
+    //The number of outgoing edges of each node, indexed by node id
+    private int[] degrees;
+
+    //The number of edges in this
+    private int edgeCount;
+
+    //The snapshot returned by the last call to freeze, or null if this has changed since
+    private FrozenGraph<N> frozen;
+
+    //Toggles the checkRep method (false meaning the checkRep method is disabled)
+    private final static boolean ON_OFF = false;
+
+    //Abstraction function:
+    //A DoubleWeightedGraph g is a collection of nodes nodes.valueOf(0) ... nodes.valueOf(n - 1), where node u
+    //has an outgoing edge to nodes.valueOf(targets[u][i]) with a cost of weights[u][i] and a penalty of
+    //penalties[u][i] for every i from 0 to degrees[u] - 1
+
+    //Representation Invariant
+    //nodes, targets, weights, penalties, degrees != null &&
+    //targets.length == weights.length == penalties.length == degrees.length >= nodes.size() &&
+    //for every id u, targets[u], weights[u] and penalties[u] are non-null arrays of equal length no less than
+    //degrees[u] && every target is a valid id && no node has two edges with the same target, cost and penalty
+    //&& edgeCount is the sum of degrees
+
+    /**
+     * Constructs a new, empty DoubleWeightedGraph
+     * @spec.effects constructs a new graph object
+     */
+    public DoubleWeightedGraph() {
+        this.nodes = new NodeDictionary<>();
+        this.targets = new int[16][];
+        this.weights = new double[16][];
+        this.penalties = new double[16][];
+        this.degrees = new int[16];
+        checkRep();
+    }
+
+    /**
+     * Creates a DoubleWeightedGraph holding the same nodes and edges as a Graph, converting each
+     * edge's value to its cost
+     * @param graph is the graph to copy
+     * @param <N> the value assigned to the node of a graph
+     * @return a new DoubleWeightedGraph equal to graph
+     * @throws IllegalArgumentException if graph is null
+     */
+    public static <N> DoubleWeightedGraph<N> copyOf(Graph<N, ? extends Number> graph) {
+        if(graph == null) {
+            throw new IllegalArgumentException("Graph cannot be null");
+        }
+        DoubleWeightedGraph<N> copy = new DoubleWeightedGraph<>();
+        for(N node: graph.getNodeView()) {
+            copy.insertNode(node);
+        }
+        for(N node: graph.getNodeView()) {
+            for(Edge<? extends Number, N, N> edge: graph.getEdgeView(node)) {
+                copy.insertEdge(edge.getValue().doubleValue(), edge.getBegin(), edge.getEnd());
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Throws an exception if the representation invariant is violated.
+     */
+    private void checkRep() {
+        if(ON_OFF) {
+            assert(this.nodes != null && this.targets != null && this.weights != null && this.penalties != null);
+            assert(this.degrees != null && this.targets.length == this.weights.length);
+            assert(this.weights.length == this.penalties.length && this.weights.length == this.degrees.length);
+            assert(this.degrees.length >= this.nodes.size());
+            int total = 0;
+            for(int u = 0; u < this.nodes.size(); u++) {
+                assert(this.targets[u].length == this.weights[u].length);
+                assert(this.weights[u].length == this.penalties[u].length);
+                assert(this.degrees[u] <= this.targets[u].length);
+                for(int i = 0; i < this.degrees[u]; i++) {
+                    //Checks the end of the edge is within the graph
+                    assert(this.targets[u][i] >= 0 && this.targets[u][i] < this.nodes.size());
+                }
+                total += this.degrees[u];
+            }
+            assert(total == this.edgeCount);
+        }
+    }
+
+    /**
+     * Gets the number of nodes in this
+     * @return the number of nodes in this
+     */
+    public int sizeNodes() {
+        return this.nodes.size();
+    }
+
+    /**
+     * Gets the number of edges in this
+     * @return the number of edges in this
+     */
+    public int sizeEdges() {
+        return this.edgeCount;
+    }
+
+    /**
+     * Inserts a new node with the associated value
+     * If node already exists, node is not added
+     * @param value is the name of the associated term that will be inserted
+     * @spec.effects inserts a node of value 'value'
+     * @spec.modifies this
+     * @throws IllegalArgumentException if the value is null
+     */
+    public void insertNode(N value) {
+        if(value == null) {
+            throw new IllegalArgumentException("Node of null values are not allowed!");
+        }
+        int size = this.nodes.size();
+        int id = this.nodes.intern(value);
+        if(id == size) {
+            this.frozen = null;
+        }
+        if(id == this.degrees.length) {
+            int capacity = id * 2;
+            this.targets = Arrays.copyOf(this.targets, capacity);
+            this.weights = Arrays.copyOf(this.weights, capacity);
+            this.penalties = Arrays.copyOf(this.penalties, capacity);
+            this.degrees = Arrays.copyOf(this.degrees, capacity);
+        }
+        if(this.targets[id] == null) {
+            this.targets[id] = new int[2];
+            this.weights[id] = new double[2];
+            this.penalties[id] = new double[2];
+        }
+        checkRep();
+    }
+
+    /**
+     * Inserts an edge of the given cost and a penalty of 0. If an edge with the same ends, cost
+     * and penalty already exists, edge is not added. Checking for that takes time proportional to
+     * the number of edges leaving A
+     * @param weight is the cost of the edge
+     * @param A is the value of the node that the edge will start at
+     * @param B is the value of the node that the edge will end at
+     * @spec.effects inserts an edge of cost 'weight' beginning at 'A' and ending at 'B'
+     * @spec.modifies this
+     * @throws IllegalArgumentException if either node (A or B) is null or not in this, or weight is
+     *                                  negative or not finite
+     */
+    public void insertEdge(double weight, N A, N B) {
+        insertEdge(weight, 0, A, B);
+    }
+
+    /**
+     * Inserts an edge of the given cost and penalty. If an edge with the same ends, cost and
+     * penalty already exists, edge is not added. Checking for that takes time proportional to the
+     * number of edges leaving A
+     * @param weight is the cost of the edge
+     * @param penalty is the penalty of the edge
+     * @param A is the value of the node that the edge will start at
+     * @param B is the value of the node that the edge will end at
+     * @spec.effects inserts an edge of cost 'weight' and penalty 'penalty' beginning at 'A' and ending at 'B'
+     * @spec.modifies this
+     * @throws IllegalArgumentException if either node (A or B) is null or not in this, or weight or
+     *                                  penalty is negative or not finite
+     */
+    public void insertEdge(double weight, double penalty, N A, N B) {
+        //Every search assumes finite costs and penalties that are not negative, so NaN and infinity are
+        //refused along with negative values, as the parser refuses them
+        if(A == null || B == null || !isFiniteCost(weight) || !isFiniteCost(penalty)) {
+            throw new IllegalArgumentException("Weight and penalty must be finite and not negative and both nodes must not be null");
+        }
+        int u = this.nodes.idOf(A);
+        int v = this.nodes.idOf(B);
+        if(u < 0 || v < 0) {
+            throw new IllegalArgumentException("Both nodes must exist in the graph");
+        }
+        int degree = this.degrees[u];
+        for(int i = 0; i < degree; i++) {
+            if(this.targets[u][i] == v && Double.compare(this.weights[u][i], weight) == 0
+                    && Double.compare(this.penalties[u][i], penalty) == 0) {
+                return;
+            }
+        }
+        if(degree == this.targets[u].length) {
+            this.targets[u] = Arrays.copyOf(this.targets[u], degree * 2);
+            this.weights[u] = Arrays.copyOf(this.weights[u], degree * 2);
+            this.penalties[u] = Arrays.copyOf(this.penalties[u], degree * 2);
+        }
+        this.targets[u][degree] = v;
+        this.weights[u][degree] = weight;
+        this.penalties[u][degree] = penalty;
+        this.degrees[u]++;
+        this.edgeCount++;
+        this.frozen = null;
+        checkRep();
+    }
+
+    /**
+     * Checks whether an edge may be given the cost or penalty
+     * @param cost is the cost or penalty of an edge
+     * @return true if and only if cost is finite and not negative
+     */
+    static boolean isFiniteCost(double cost) {
+        return cost >= 0 && cost != Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Removes every edge beginning at A and ending at B, whatever its cost. The remaining edges
+     * leaving A keep their order
+     * @param A is the value of the node that the edges start at
+     * @param B is the value of the node that the edges end at
+     * @return the number of edges removed
+     * @spec.effects removes every edge beginning at 'A' and ending at 'B'
+     * @spec.modifies this
+     * @throws IllegalArgumentException if either node (A or B) is null or not in this
+     */
+    public int removeEdge(N A, N B) {
+        if(A == null || B == null) {
+            throw new IllegalArgumentException("Both nodes must not be null");
+        }
+        int u = this.nodes.idOf(A);
+        int v = this.nodes.idOf(B);
+        if(u < 0 || v < 0) {
+            throw new IllegalArgumentException("Both nodes must exist in the graph");
+        }
+        int kept = 0;
+        for(int i = 0; i < this.degrees[u]; i++) {
+            if(this.targets[u][i] != v) {
+                this.targets[u][kept] = this.targets[u][i];
+                this.weights[u][kept] = this.weights[u][i];
+                this.penalties[u][kept] = this.penalties[u][i];
+                kept++;
+            }
+        }
+        int removed = this.degrees[u] - kept;
+        this.degrees[u] = kept;
+        this.edgeCount -= removed;
+        if(removed > 0) {
+            this.frozen = null;
+        }
+        checkRep();
+        return removed;
+    }
+
+    /**
+     * Checks whether a node is in this
+     * @param node is the node value to look for
+     * @return true if and only if node is in this
+     * @throws IllegalArgumentException if node is null
+     */
+    public boolean containsNode(N node) {
+        return this.nodes.contains(node);
+    }
+
+    /**
+     * Gets a read-only view of the nodes of this, in order of id. The view is not a copy, so it
+     * reflects any nodes inserted into this after it is returned
+     * @return an unmodifiable view of the nodes of this, whose element i is the node with id i
+     */
+    public List<N> getNodeView() {
+        return this.nodes.values();
+    }
+
+    /**
+     * Gets the id given to a node. Ids are dense, from 0 to sizeNodes() - 1, in insertion order
+     * @param node is the node value to look up
+     * @return the id of node, or -1 if node is not in this
+     * @throws IllegalArgumentException if node is null
+     */
+    public int idOf(N node) {
+        return this.nodes.idOf(node);
+    }
+
+    /**
+     * Gets the node value with the given id
+     * @param id is the id of the node
+     * @return the node value with the given id
+     * @throws IndexOutOfBoundsException if id is not a valid id of this
+     */
+    public N nodeAt(int id) {
+        return this.nodes.valueOf(id);
+    }
+
+    /**
+     * Gets the number of outgoing edges of a node
+     * @param id is the id of the node
+     * @return the number of edges leaving the node
+     */
+    public int degree(int id) {
+        return this.degrees[id];
+    }
+
+    /**
+     * Gets the node an outgoing edge of a node ends at
+     * @param id is the id of the node
+     * @param index is the index of the edge among the node's edges, from 0 to degree(id) - 1
+     * @return the id of the node that the edge ends at
+     */
+    public int target(int id, int index) {
+        return this.targets[id][index];
+    }
+
+    /**
+     * Gets the cost of an outgoing edge of a node
+     * @param id is the id of the node
+     * @param index is the index of the edge among the node's edges, from 0 to degree(id) - 1
+     * @return the cost of the edge
+     */
+    public double weight(int id, int index) {
+        return this.weights[id][index];
+    }
+
+    /**
+     * Gets the penalty of an outgoing edge of a node
+     * @param id is the id of the node
+     * @param index is the index of the edge among the node's edges, from 0 to degree(id) - 1
+     * @return the penalty of the edge
+     */
+    public double penalty(int id, int index) {
+        return this.penalties[id][index];
+    }
+
+    /**
+     * Passes every outgoing edge of a node to the given action, without creating any objects
+     * @param node is the node to get the edges from
+     * @param action is called once with the end and cost of each edge leaving node
+     * @throws IllegalArgumentException if node or action is null, or node is not in this
+     */
+    public void forEachEdge(N node, EdgeAction<? super N> action) {
+        if(action == null) {
+            throw new IllegalArgumentException("Action cannot be null");
+        }
+        int u = this.nodes.idOf(node);
+        if(u < 0) {
+            throw new IllegalArgumentException("Node must exist in the graph");
+        }
+        for(int i = 0; i < this.degrees[u]; i++) {
+            action.accept(this.nodes.valueOf(this.targets[u][i]), this.weights[u][i]);
+        }
+    }
+
+    /**
+     * Takes a read-only snapshot of this, with the same node ids and every edge stored in flat
+     * primitive arrays. Later changes to this are not reflected in the snapshot. The snapshot only
+     * stores penalties if some edge has a penalty other than 0. Until this changes, every call
+     * returns the same snapshot rather than copying the edges again
+     * @return a FrozenGraph holding the same nodes and edges as this
+     */
+    public FrozenGraph<N> freeze() {
+        if(this.frozen != null) {
+            return this.frozen;
+        }
+        int size = this.nodes.size();
+        int[] offsets = new int[size + 1];
+        for(int u = 0; u < size; u++) {
+            offsets[u + 1] = offsets[u] + this.degrees[u];
+        }
+        int[] frozenTargets = new int[this.edgeCount];
+        double[] frozenWeights = new double[this.edgeCount];
+        double[] frozenPenalties = new double[this.edgeCount];
+        boolean penalized = false;
+        for(int u = 0; u < size; u++) {
+            System.arraycopy(this.targets[u], 0, frozenTargets, offsets[u], this.degrees[u]);
+            System.arraycopy(this.weights[u], 0, frozenWeights, offsets[u], this.degrees[u]);
+            System.arraycopy(this.penalties[u], 0, frozenPenalties, offsets[u], this.degrees[u]);
+            for(int i = 0; i < this.degrees[u] && !penalized; i++) {
+                penalized = this.penalties[u][i] != 0;
+            }
+        }
+        this.frozen = FrozenGraph.fromLayout(this.nodes.values(), offsets, frozenTargets, frozenWeights,
+                penalized ? frozenPenalties : null);
+        return this.frozen;
+    }
+
+    /**
+     * Receives the end and cost of one edge.
+     * @param <N> the value assigned to the node of a graph
+     */
+    @FunctionalInterface
+    public interface EdgeAction<N> {
+
+        /**
+         * @param end is the node the edge ends at
+         * @param weight is the cost of the edge
+         */
+        void accept(N end, double weight);
+    }
+}
@@ -0,0 +1,505 @@
+package graph;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * <b>FrozenGraph</b> represents an immutable, read-only snapshot of a Graph whose edges carry
+ * a double cost. Nodes are given dense int ids from 0 to sizeNodes() - 1, and the outgoing edges
+ * of every node are stored contiguously in compressed sparse row (CSR) form, so edges can be
+ * walked without touching any Edge objects or boxed values.
+ * <p>
+ * The offsets, targets, and weights are held in int and double buffers, which either wrap
+ * ordinary arrays on the Java heap or live off the heap (see {@link #offHeap()}), where the
+ * garbage collector never has to scan, copy, or compact them. Both read the same way.
+ * <p>
+ * Every edge may also carry a penalty, a second non-cost measure such as the stairs or climb
+ * along it, which searches can weigh against the cost (see {@link #penalty(int)}). A graph
+ * built without penalties stores none, and every edge of it has a penalty of 0.
+ * @Param <N> the value assigned to the node of a graph
+ */
+public final class FrozenGraph<N> {
+
+    //Interns every node value to its id
+    private final NodeDictionary<N> nodes;
+
+    //The outgoing edges of node u are the edges offsets[u] (inclusive) to offsets[u + 1] (exclusive)
+    private final IntBuffer offsets;
+
+    //The id of the node each edge ends at, indexed by edge
+    private final IntBuffer targets;
+
+    //The cost of each edge, indexed by edge
+    private final DoubleBuffer weights;
+
+    //The penalty of each edge, indexed by edge, or null if every edge has a penalty of 0
+    private final DoubleBuffer penalties;
+
+    //Abstraction function:
+    //A FrozenGraph f is a collection of nodes nodes.valueOf(0) ... nodes.valueOf(n - 1), where node u has an
+    //outgoing edge to nodes.valueOf(targets[e]) with a cost of weights[e] for every e such that
+    //offsets[u] <= e < offsets[u + 1], and a penalty of penalties[e] (0 if penalties is null)
+
+    //where buffer[i] means buffer.get(i) and buffer.length means buffer.limit()
+
+    //Representation Invariant
+    //nodes, offsets, targets, weights != null && offsets.length == nodes.size() + 1 &&
+    //offsets[0] == 0 && offsets is non-decreasing && offsets[nodes.size()] == targets.length == weights.length &&
+    //every target is a valid id && (penalties == null || penalties.length == weights.length) &&
+    //no more values are interned into nodes && the buffers have position 0 and are never written to
+
+    /**
+     * Constructs a new FrozenGraph from already laid out arrays
+     * @param nodes interns every node value to its id, and must not be interned into afterwards
+     * @param offsets is the first edge of each node, followed by the total number of edges
+     * @param targets is the id of the node each edge ends at
+     * @param weights is the cost of each edge
+     * @spec.effects constructs a new FrozenGraph that takes ownership of the given arrays
+     */
+    FrozenGraph(NodeDictionary<N> nodes, int[] offsets, int[] targets, double[] weights) {
+        this(nodes, offsets, targets, weights, null);
+    }
+
+    /**
+     * Constructs a new FrozenGraph from already laid out arrays whose edges carry penalties
+     * @param nodes interns every node value to its id, and must not be interned into afterwards
+     * @param offsets is the first edge of each node, followed by the total number of edges
+     * @param targets is the id of the node each edge ends at
+     * @param weights is the cost of each edge
+     * @param penalties is the penalty of each edge, or null if every edge has a penalty of 0
+     * @spec.effects constructs a new FrozenGraph that takes ownership of the given arrays
+     */
+    FrozenGraph(NodeDictionary<N> nodes, int[] offsets, int[] targets, double[] weights, double[] penalties) {
+        this(nodes, IntBuffer.wrap(offsets), IntBuffer.wrap(targets), DoubleBuffer.wrap(weights),
+                penalties == null ? null : DoubleBuffer.wrap(penalties));
+    }
+
+    /**
+     * Constructs a new FrozenGraph from already laid out buffers
+     * @param nodes interns every node value to its id, and must not be interned into afterwards
+     * @param offsets is the first edge of each node, followed by the total number of edges
+     * @param targets is the id of the node each edge ends at
+     * @param weights is the cost of each edge
+     * @spec.effects constructs a new FrozenGraph that takes ownership of the given buffers
+     */
+    FrozenGraph(NodeDictionary<N> nodes, IntBuffer offsets, IntBuffer targets, DoubleBuffer weights) {
+        this(nodes, offsets, targets, weights, null);
+    }
+
+    /**
+     * Constructs a new FrozenGraph from already laid out buffers whose edges carry penalties
+     * @param nodes interns every node value to its id, and must not be interned into afterwards
+     * @param offsets is the first edge of each node, followed by the total number of edges
+     * @param targets is the id of the node each edge ends at
+     * @param weights is the cost of each edge
+     * @param penalties is the penalty of each edge, or null if every edge has a penalty of 0
+     * @spec.effects constructs a new FrozenGraph that takes ownership of the given buffers
+     */
+    FrozenGraph(NodeDictionary<N> nodes, IntBuffer offsets, IntBuffer targets, DoubleBuffer weights,
+                DoubleBuffer penalties) {
+        this.nodes = nodes;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.penalties = penalties;
+        checkRep();
+    }
+
+    /**
+     * Creates a FrozenGraph directly from its CSR layout, for loading a snapshot that was saved
+     * earlier. The arrays are used as they are rather than copied, so callers must not modify
+     * them afterwards
+     * @param nodes is the node value of each id, with no duplicates
+     * @param offsets is the first edge of each node, followed by the total number of edges
+     * @param targets is the id of the node each edge ends at
+     * @param weights is the cost of each edge
+     * @param <N> the value assigned to the node of a graph
+     * @return a FrozenGraph with the given nodes and edges
+     * @throws IllegalArgumentException if any argument is null, nodes has null or duplicate values,
+     *                                  or the arrays do not describe a valid layout
+     */
+    public static <N> FrozenGraph<N> fromLayout(List<N> nodes, int[] offsets, int[] targets, double[] weights) {
+        return fromLayout(nodes, offsets, targets, weights, null);
+    }
+
+    /**
+     * Creates a FrozenGraph directly from its CSR layout, with a penalty on every edge. The
+     * arrays are used as they are rather than copied, so callers must not modify them afterwards
+     * @param nodes is the node value of each id, with no duplicates
+     * @param offsets is the first edge of each node, followed by the total number of edges
+     * @param targets is the id of the node each edge ends at
+     * @param weights is the cost of each edge
+     * @param penalties is the penalty of each edge, or null if every edge has a penalty of 0
+     * @param <N> the value assigned to the node of a graph
+     * @return a FrozenGraph with the given nodes and edges
+     * @throws IllegalArgumentException if any argument but penalties is null, nodes has null or
+     *                                  duplicate values, or the arrays do not describe a valid layout
+     */
+    public static <N> FrozenGraph<N> fromLayout(List<N> nodes, int[] offsets, int[] targets, double[] weights,
+                                                double[] penalties) {
+        if(offsets == null || targets == null || weights == null) {
+            throw new IllegalArgumentException("Layout arrays cannot be null");
+        }
+        return fromLayout(nodes, IntBuffer.wrap(offsets), IntBuffer.wrap(targets), DoubleBuffer.wrap(weights),
+                penalties == null ? null : DoubleBuffer.wrap(penalties));
+    }
+
+    /**
+     * Creates a FrozenGraph directly from its CSR layout held in buffers, such as views of a
+     * memory-mapped file or of direct buffers. The buffers hold the layout from index 0 to their
+     * limits, whatever their positions, and are used as they are rather than copied, so callers
+     * must not modify them afterwards
+     * @param nodes is the node value of each id, with no duplicates
+     * @param offsets is the first edge of each node, followed by the total number of edges
+     * @param targets is the id of the node each edge ends at
+     * @param weights is the cost of each edge
+     * @param <N> the value assigned to the node of a graph
+     * @return a FrozenGraph with the given nodes and edges
+     * @throws IllegalArgumentException if any argument is null, nodes has null or duplicate values,
+     *                                  or the buffers do not describe a valid layout
+     */
+    public static <N> FrozenGraph<N> fromLayout(List<N> nodes, IntBuffer offsets, IntBuffer targets,
+                                                DoubleBuffer weights) {
+        return fromLayout(nodes, offsets, targets, weights, null);
+    }
+
+    /**
+     * Creates a FrozenGraph directly from its CSR layout held in buffers, with a penalty on every
+     * edge. The buffers hold the layout from index 0 to their limits, whatever their positions,
+     * and are used as they are rather than copied, so callers must not modify them afterwards
+     * @param nodes is the node value of each id, with no duplicates
+     * @param offsets is the first edge of each node, followed by the total number of edges
+     * @param targets is the id of the node each edge ends at
+     * @param weights is the cost of each edge
+     * @param penalties is the penalty of each edge, or null if every edge has a penalty of 0
+     * @param <N> the value assigned to the node of a graph
+     * @return a FrozenGraph with the given nodes and edges
+     * @throws IllegalArgumentException if any argument but penalties is null, nodes has null or
+     *                                  duplicate values, or the buffers do not describe a valid layout
+     */
+    public static <N> FrozenGraph<N> fromLayout(List<N> nodes, IntBuffer offsets, IntBuffer targets,
+                                                DoubleBuffer weights, DoubleBuffer penalties) {
+        if(nodes == null || offsets == null || targets == null || weights == null) {
+            throw new IllegalArgumentException("Layout arrays cannot be null");
+        }
+        offsets = offsets.duplicate().rewind();
+        targets = targets.duplicate().rewind();
+        weights = weights.duplicate().rewind();
+        if(penalties != null) {
+            penalties = penalties.duplicate().rewind();
+        }
+        int size = nodes.size();
+        if(offsets.limit() != size + 1 || offsets.get(0) != 0 || offsets.get(size) != targets.limit()
+                || targets.limit() != weights.limit()) {
+            throw new IllegalArgumentException("Offsets do not match the number of nodes and edges");
+        }
+        if(penalties != null && penalties.limit() != weights.limit()) {
+            throw new IllegalArgumentException("Penalties do not match the number of edges");
+        }
+        for(int u = 0; u < size; u++) {
+            if(offsets.get(u) > offsets.get(u + 1)) {
+                throw new IllegalArgumentException("Offsets must not decrease");
+            }
+        }
+        for(int e = 0; e < targets.limit(); e++) {
+            int target = targets.get(e);
+            if(target < 0 || target >= size) {
+                throw new IllegalArgumentException("Edge target out of range");
+            }
+        }
+        NodeDictionary<N> dictionary = new NodeDictionary<>(size);
+        for(N node: nodes) {
+            if(node == null || dictionary.intern(node) != dictionary.size() - 1) {
+                throw new IllegalArgumentException("Nodes must be non-null and distinct");
+            }
+        }
+        return new FrozenGraph<>(dictionary, offsets, targets, weights, penalties);
+    }
+
+    /**
+     * Builds the CSR layout for the given adjacency
+     * @param adjacency maps every node to the edges leaving it
+     * @param weightOf converts an edge value into its cost
+     * @param <N> the value assigned to the node of a graph
+     * @param <E> the value assigned to the edge of a graph
+     * @return a FrozenGraph holding the same nodes and edges as adjacency
+     */
+    static <N, E> FrozenGraph<N> build(Map<N, ? extends Collection<Edge<E, N, N>>> adjacency,
+                                       ToDoubleFunction<? super E> weightOf) {
+        int size = adjacency.size();
+        NodeDictionary<N> nodes = new NodeDictionary<>(size);
+        int[] offsets = new int[size + 1];
+        for(Map.Entry<N, ? extends Collection<Edge<E, N, N>>> entry: adjacency.entrySet()) {
+            int id = nodes.intern(entry.getKey());
+            offsets[id + 1] = offsets[id] + entry.getValue().size();
+        }
+        int[] targets = new int[offsets[size]];
+        double[] weights = new double[offsets[size]];
+        for(int u = 0; u < size; u++) {
+            int e = offsets[u];
+            for(Edge<E, N, N> edge: adjacency.get(nodes.valueOf(u))) {
+                targets[e] = nodes.idOf(edge.getEnd());
+                weights[e] = weightOf.applyAsDouble(edge.getValue());
+                e++;
+            }
+        }
+        return new FrozenGraph<>(nodes, offsets, targets, weights);
+    }
+
+    /**
+     * Checks whether every edge of this has a matching edge of the same cost going the other way
+     * @return true if and only if for every edge from u to v there is an edge from v to u of equal cost
+     */
+    public boolean isSymmetric() {
+        for(int u = 0; u < this.nodes.size(); u++) {
+            for(int e = firstEdge(u); e < endEdge(u); e++) {
+                int v = target(e);
+                boolean found = false;
+                for(int back = firstEdge(v); back < endEdge(v) && !found; back++) {
+                    found = target(back) == u && Double.compare(weight(back), weight(e)) == 0;
+                }
+                if(!found) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Builds the reverse of this, holding the same nodes with the same ids but with every edge
+     * pointing the other way. Edge e of the result from v to u has the same cost and penalty as
+     * the edge of this from u to v. The result is stored off the heap if and only if this is
+     * @return a new FrozenGraph with every edge of this reversed
+     */
+    public FrozenGraph<N> reverse() {
+        int size = this.nodes.size();
+        int edges = sizeEdges();
+        int[] rOffsets = new int[size + 1];
+        for(int e = 0; e < edges; e++) {
+            rOffsets[target(e) + 1]++;
+        }
+        for(int v = 0; v < size; v++) {
+            rOffsets[v + 1] += rOffsets[v];
+        }
+        int[] next = new int[size];
+        System.arraycopy(rOffsets, 0, next, 0, size);
+        int[] rTargets = new int[edges];
+        double[] rWeights = new double[edges];
+        double[] rPenalties = hasPenalties() ? new double[edges] : null;
+        for(int u = 0; u < size; u++) {
+            for(int e = firstEdge(u); e < endEdge(u); e++) {
+                int slot = next[target(e)]++;
+                rTargets[slot] = u;
+                rWeights[slot] = weight(e);
+                if(rPenalties != null) {
+                    rPenalties[slot] = penalty(e);
+                }
+            }
+        }
+        FrozenGraph<N> reversed = new FrozenGraph<>(this.nodes, rOffsets, rTargets, rWeights, rPenalties);
+        return isOffHeap() ? reversed.offHeap() : reversed;
+    }
+
+    /**
+     * Copies the edges of this into direct buffers outside the Java heap, so that a large graph
+     * adds nothing for the garbage collector to trace or move. Reading an off-heap graph costs
+     * about the same as reading one on the heap. Node values stay on the heap, and are shared
+     * with this
+     * @return a FrozenGraph equal to this whose offsets, targets, weights, and penalties are held
+     * off the heap, or this if it already is
+     */
+    public FrozenGraph<N> offHeap() {
+        if(isOffHeap()) {
+            return this;
+        }
+        IntBuffer directOffsets = allocateInts(this.offsets.limit()).put(this.offsets.duplicate().rewind());
+        IntBuffer directTargets = allocateInts(this.targets.limit()).put(this.targets.duplicate().rewind());
+        DoubleBuffer directWeights = allocateDoubles(this.weights.limit()).put(this.weights.duplicate().rewind());
+        DoubleBuffer directPenalties = null;
+        if(this.penalties != null) {
+            directPenalties = allocateDoubles(this.penalties.limit()).put(this.penalties.duplicate().rewind()).rewind();
+        }
+        return new FrozenGraph<>(this.nodes, directOffsets.rewind(), directTargets.rewind(), directWeights.rewind(),
+                directPenalties);
+    }
+
+    /**
+     * Checks whether the edges of this are held outside the Java heap
+     * @return true if and only if the offsets, targets, weights, and penalties of this are direct
+     * or memory-mapped buffers
+     */
+    public boolean isOffHeap() {
+        return this.offsets.isDirect() && this.targets.isDirect() && this.weights.isDirect()
+                && (this.penalties == null || this.penalties.isDirect());
+    }
+
+    /**
+     * Allocates a direct buffer of ints in the platform's byte order
+     * @param length is the number of ints the buffer holds
+     * @return a new direct buffer of length ints
+     */
+    private static IntBuffer allocateInts(int length) {
+        return ByteBuffer.allocateDirect(Integer.BYTES * length).order(ByteOrder.nativeOrder()).asIntBuffer();
+    }
+
+    /**
+     * Allocates a direct buffer of doubles in the platform's byte order
+     * @param length is the number of doubles the buffer holds
+     * @return a new direct buffer of length doubles
+     */
+    private static DoubleBuffer allocateDoubles(int length) {
+        return ByteBuffer.allocateDirect(Double.BYTES * length).order(ByteOrder.nativeOrder()).asDoubleBuffer();
+    }
+
+    /**
+     * Throws an exception if the representation invariant is violated.
+     */
+    private void checkRep() {
+        assert(this.nodes != null);
+        assert(this.offsets != null && this.targets != null && this.weights != null);
+        assert(this.offsets.limit() == this.nodes.size() + 1);
+        assert(this.offsets.get(this.nodes.size()) == this.targets.limit());
+        assert(this.targets.limit() == this.weights.limit());
+        assert(this.penalties == null || this.penalties.limit() == this.weights.limit());
+    }
+
+    /**
+     * Gets the number of nodes in this
+     * @return the number of nodes in this
+     */
+    public int sizeNodes() {
+        return this.nodes.size();
+    }
+
+    /**
+     * Gets the number of edges in this
+     * @return the number of edges in this
+     */
+    public int sizeEdges() {
+        return this.targets.limit();
+    }
+
+    /**
+     * Gets every node of this
+     * @return an unmodifiable view of the node values of this, whose element i is the node with id i
+     */
+    public List<N> nodes() {
+        return this.nodes.values();
+    }
+
+    /**
+     * Gets the id given to a node
+     * @param node is the node value to look up
+     * @return the id of node, or -1 if node is not in this
+     * @throws IllegalArgumentException if node is null
+     */
+    public int idOf(N node) {
+        return this.nodes.idOf(node);
+    }
+
+    /**
+     * Gets the node value with the given id
+     * @param id is the id of the node
+     * @return the node value with the given id
+     * @throws IndexOutOfBoundsException if id is not a valid id of this
+     */
+    public N nodeAt(int id) {
+        return this.nodes.valueOf(id);
+    }
+
+    /**
+     * Checks whether a node is in this
+     * @param node is the node value to look for
+     * @return true if and only if node is in this
+     * @throws IllegalArgumentException if node is null
+     */
+    public boolean containsNode(N node) {
+        return idOf(node) >= 0;
+    }
+
+    /**
+     * Gets the first outgoing edge of a node
+     * @param id is the id of the node
+     * @return the index of the first edge leaving the node
+     */
+    public int firstEdge(int id) {
+        return this.offsets.get(id);
+    }
+
+    /**
+     * Gets the end of the outgoing edges of a node
+     * @param id is the id of the node
+     * @return one past the index of the last edge leaving the node
+     */
+    public int endEdge(int id) {
+        return this.offsets.get(id + 1);
+    }
+
+    /**
+     * Gets the node an edge ends at
+     * @param edge is the index of the edge
+     * @return the id of the node that the edge ends at
+     */
+    public int target(int edge) {
+        return this.targets.get(edge);
+    }
+
+    /**
+     * Gets the node an edge begins at. Edges only store their end, so this searches the
+     * offsets of every node and takes time logarithmic in the number of nodes
+     * @param edge is the index of the edge
+     * @return the id of the node that the edge begins at
+     * @throws IndexOutOfBoundsException if edge is not a valid edge of this
+     */
+    public int sourceOf(int edge) {
+        if(edge < 0 || edge >= sizeEdges()) {
+            throw new IndexOutOfBoundsException("No edge " + edge);
+        }
+        //Find the last node whose first edge is at or before edge
+        int low = 0;
+        int high = this.nodes.size() - 1;
+        while(low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if(this.offsets.get(mid) <= edge) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Gets the cost of an edge
+     * @param edge is the index of the edge
+     * @return the cost of the edge
+     */
+    public double weight(int edge) {
+        return this.weights.get(edge);
+    }
+
+    /**
+     * Checks whether the edges of this carry penalties
+     * @return true if and only if this was built with a penalty for every edge, some of which
+     * may still be 0
+     */
+    public boolean hasPenalties() {
+        return this.penalties != null;
+    }
+
+    /**
+     * Gets the penalty of an edge, a second measure searches can weigh against its cost
+     * @param edge is the index of the edge
+     * @return the penalty of the edge, or 0 if this has no penalties
+     */
+    public double penalty(int edge) {
+        return this.penalties == null ? 0 : this.penalties.get(edge);
+    }
+}
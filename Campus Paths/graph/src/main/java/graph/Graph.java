@@ -1,9 +1,12 @@
 package main.java.graph;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
 
 /**
  * <b>graph</b> represents an immutable, unsorted collection of nodes connected by edges
@@ -124,10 +127,66 @@ public class Graph <N, E> {
         return edgeSet;
     }
 
+    /**
+     * Gets a read-only view of the nodes of this. The view is not a copy, so it reflects any
+     * nodes inserted into this after it is returned
+     * @return an unmodifiable view of the nodes of this
+     */
+    public Set<N> getNodeView() {
+        return Collections.unmodifiableSet(this.graph.keySet());
+    }
+
+    /**
+     * Gets a read-only view of the outgoing edges of a node. The view is not a copy, so it
+     * reflects any edges inserted into this after it is returned
+     * @param node is the node to get the edges from
+     * @return an unmodifiable view of the edges leaving node
+     * @throws IllegalArgumentException if node is null or not in this
+     */
+    public Set<Edge<E,N,N>> getEdgeView(N node) {
+        if(!this.containsNode(node)) {
+            throw new IllegalArgumentException("Node must exist in the graph");
+        }
+        return Collections.unmodifiableSet(this.graph.get(node));
+    }
+
+    /**
+     * Passes every outgoing edge of a node to the given action, without copying the edge set
+     * @param node is the node to get the edges from
+     * @param action is called once with each edge leaving node
+     * @throws IllegalArgumentException if node or action is null, or node is not in this
+     */
+    public void forEachEdge(N node, Consumer<? super Edge<E,N,N>> action) {
+        if(action == null) {
+            throw new IllegalArgumentException("Action cannot be null");
+        }
+        if(!this.containsNode(node)) {
+            throw new IllegalArgumentException("Node must exist in the graph");
+        }
+        for(Edge<E,N,N> edge: this.graph.get(node)) {
+            action.accept(edge);
+        }
+    }
+
     public boolean containsNode(N node) {
-        if(node.equals(null)) {
+        if(node == null) {
             throw new IllegalArgumentException("Node value cannot be null");
         }
         return this.graph.containsKey(node);
     }
+
+    /**
+     * Takes a read-only snapshot of this, with every node given a dense int id and every edge
+     * stored in flat primitive arrays. Later changes to this are not reflected in the snapshot.
+     * @param weightOf converts the value of an edge into its cost
+     * @return a FrozenGraph holding the same nodes and edges as this
+     * @throws IllegalArgumentException if weightOf is null
+     */
+    public FrozenGraph<N> freeze(ToDoubleFunction<? super E> weightOf) {
+        checkRep();
+        if(weightOf == null) {
+            throw new IllegalArgumentException("Weight function cannot be null");
+        }
+        return FrozenGraph.build(this.graph, weightOf);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,60 @@
+package graph;
+
+/**
+ * <b>GraphVersion</b> represents one immutable version of a LiveGraph: a FrozenGraph snapshot of
+ * its edges together with the version number it was published under. Version numbers start at 0
+ * and grow by one with every published change, so two versions of the same LiveGraph hold the
+ * same edges if and only if their numbers are equal.
+ * @Param <N> the value assigned to the node of a graph
+ */
+public final class GraphVersion<N> {
+
+    //The edges of this version
+    private final FrozenGraph<N> graph;
+
+    //The number of changes published before this version
+    private final long number;
+
+    //Whether every edge of graph has an edge of equal cost going the other way
+    private final boolean symmetric;
+
+    //Representation Invariant
+    //graph != null && number >= 0 && symmetric == graph.isSymmetric()
+
+    /**
+     * Constructs a new GraphVersion
+     * @param graph is the snapshot of the edges of this version
+     * @param number is the version number
+     * @spec.effects constructs a new GraphVersion, checking whether graph is symmetric once
+     */
+    GraphVersion(FrozenGraph<N> graph, long number) {
+        this.graph = graph;
+        this.number = number;
+        this.symmetric = graph.isSymmetric();
+    }
+
+    /**
+     * Gets the edges of this version
+     * @return a read-only snapshot of the graph as of this version
+     */
+    public FrozenGraph<N> getGraph() {
+        return this.graph;
+    }
+
+    /**
+     * Gets the number of this version
+     * @return the number of changes published before this version
+     */
+    public long getNumber() {
+        return this.number;
+    }
+
+    /**
+     * Checks whether every edge of this version has a matching edge of the same cost going the
+     * other way, so that reversing a least cost path gives a least cost path back
+     * @return true if and only if getGraph().isSymmetric()
+     */
+    public boolean isSymmetric() {
+        return this.symmetric;
+    }
+}
@@ -0,0 +1,429 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * <b>LiveGraph</b> represents a mutable collection of nodes connected by edges with double
+ * costs that can be changed while other threads read it. Readers never see a change half
+ * made: they take the current GraphVersion, an immutable snapshot, and keep reading that one
+ * version for as long as they like. Every batch of changes is made under a lock and then
+ * published as a new version, copying the edges into a fresh FrozenGraph, so publishing takes
+ * time proportional to the size of the graph while reading takes no locks at all.
+ * <p>
+ * Nodes are never removed, only disabled, so a node keeps the same id in every version. A
+ * disabled node keeps its edges, but they are left out of every version until it is enabled.
+ * @Param <N> the value assigned to the node of a graph
+ */
+public final class LiveGraph<N> {
+
+    //Every node and edge, including the edges of disabled nodes. Guarded by this
+    private final DoubleWeightedGraph<N> edges;
+
+    //Marks the disabled nodes, indexed by id. Guarded by this
+    private boolean[] disabled;
+
+    //Interns the nodes of the current version, shared by every version with the same nodes. Guarded by this
+    private NodeDictionary<N> versionNodes;
+
+    //Whether the versions keep their edges off the heap
+    private final boolean offHeap;
+
+    //The most recently published version
+    private volatile GraphVersion<N> current;
+
+    //Abstraction function:
+    //A LiveGraph l is the graph current.getGraph(), whose next version will hold every edge of edges that
+    //neither begins nor ends at a node u with disabled[u]
+
+    //Representation Invariant
+    //edges, disabled, versionNodes, current != null && disabled.length >= edges.sizeNodes() &&
+    //versionNodes holds the nodes of current.getGraph() && after every call returns, current holds exactly
+    //the edges of edges between enabled nodes, with the same node ids as edges
+
+    /**
+     * Constructs a new LiveGraph whose version 0 is the given graph. The versions keep their edges
+     * off the heap if and only if graph does
+     * @param graph is the first version of this
+     * @throws IllegalArgumentException if graph is null or has an edge whose cost or penalty is
+     *                                  negative or not finite
+     * @spec.effects constructs a new LiveGraph holding the nodes and edges of graph
+     */
+    public LiveGraph(FrozenGraph<N> graph) {
+        if(graph == null) {
+            throw new IllegalArgumentException("Graph cannot be null");
+        }
+        this.edges = new DoubleWeightedGraph<>();
+        for(N node: graph.nodes()) {
+            this.edges.insertNode(node);
+        }
+        for(int u = 0; u < graph.sizeNodes(); u++) {
+            for(int e = graph.firstEdge(u); e < graph.endEdge(u); e++) {
+                this.edges.insertEdge(graph.weight(e), graph.penalty(e), graph.nodeAt(u), graph.nodeAt(graph.target(e)));
+            }
+        }
+        this.disabled = new boolean[Math.max(graph.sizeNodes(), 1)];
+        this.versionNodes = internAll();
+        this.offHeap = graph.isOffHeap();
+        this.current = new GraphVersion<>(graph, 0);
+    }
+
+    /**
+     * Gets the most recently published version of this, which stays unchanged however this
+     * changes afterwards
+     * @return the current version of this
+     */
+    public GraphVersion<N> current() {
+        return this.current;
+    }
+
+    /**
+     * Makes a batch of changes and publishes them together as one new version, so no reader
+     * sees some of them without the rest. Only one batch is made at a time. If changes throws an
+     * exception, the changes it finished before throwing are still published, and the exception
+     * is passed on
+     * @param changes makes the changes through the Editor it is given, which must not be used
+     *                after changes returns
+     * @return the new version
+     * @throws IllegalArgumentException if changes is null
+     * @spec.modifies this
+     * @spec.effects publishes a new version holding every change changes made
+     */
+    public synchronized GraphVersion<N> update(Consumer<? super Editor> changes) {
+        if(changes == null) {
+            throw new IllegalArgumentException("Changes cannot be null");
+        }
+        Editor editor = new Editor();
+        try {
+            changes.accept(editor);
+        } finally {
+            editor.open = false;
+            publish();
+        }
+        return this.current;
+    }
+
+    /**
+     * Inserts an edge of the given cost and publishes it as a new version
+     * @param weight is the cost of the edge
+     * @param A is the value of the node that the edge will start at
+     * @param B is the value of the node that the edge will end at
+     * @return the new version
+     * @throws IllegalArgumentException if either node (A or B) is null or not in this, or weight is
+     *                                  negative or not finite
+     * @spec.modifies this
+     */
+    public GraphVersion<N> insertEdge(double weight, N A, N B) {
+        return update(editor -> editor.insertEdge(weight, A, B));
+    }
+
+    /**
+     * Inserts an edge of the given cost and penalty and publishes it as a new version
+     * @param weight is the cost of the edge
+     * @param penalty is the penalty of the edge
+     * @param A is the value of the node that the edge will start at
+     * @param B is the value of the node that the edge will end at
+     * @return the new version
+     * @throws IllegalArgumentException if either node (A or B) is null or not in this, or weight or
+     *                                  penalty is negative or not finite
+     * @spec.modifies this
+     */
+    public GraphVersion<N> insertEdge(double weight, double penalty, N A, N B) {
+        return update(editor -> editor.insertEdge(weight, penalty, A, B));
+    }
+
+    /**
+     * Removes every edge from A to B and publishes the change as a new version
+     * @param A is the value of the node that the edges start at
+     * @param B is the value of the node that the edges end at
+     * @return the new version
+     * @throws IllegalArgumentException if either node (A or B) is null or not in this
+     * @spec.modifies this
+     */
+    public GraphVersion<N> removeEdge(N A, N B) {
+        return update(editor -> editor.removeEdge(A, B));
+    }
+
+    /**
+     * Replaces every edge from A to B with a single edge of the given cost, keeping the penalty
+     * of the first of them, and publishes the change as a new version
+     * @param A is the value of the node that the edge starts at
+     * @param B is the value of the node that the edge ends at
+     * @param weight is the new cost of the edge
+     * @return the new version
+     * @throws IllegalArgumentException if either node (A or B) is null or not in this, there is
+     *                                  no edge from A to B, or weight is
+     *                                  negative or not finite
+     * @spec.modifies this
+     */
+    public GraphVersion<N> setEdgeWeight(N A, N B, double weight) {
+        return update(editor -> editor.setEdgeWeight(A, B, weight));
+    }
+
+    /**
+     * Disables a node, leaving every edge into or out of it out of the published versions until
+     * it is enabled again, and publishes the change as a new version
+     * @param node is the node to disable
+     * @return the new version
+     * @throws IllegalArgumentException if node is null or not in this
+     * @spec.modifies this
+     */
+    public GraphVersion<N> disableNode(N node) {
+        return update(editor -> editor.disableNode(node));
+    }
+
+    /**
+     * Enables a disabled node, restoring its edges to the published versions, and publishes
+     * the change as a new version
+     * @param node is the node to enable
+     * @return the new version
+     * @throws IllegalArgumentException if node is null or not in this
+     * @spec.modifies this
+     */
+    public GraphVersion<N> enableNode(N node) {
+        return update(editor -> editor.enableNode(node));
+    }
+
+    /**
+     * Checks whether a node is disabled
+     * @param node is the node to look up
+     * @return true if and only if node is in this and disabled
+     * @throws IllegalArgumentException if node is null
+     */
+    public synchronized boolean isDisabled(N node) {
+        int id = this.edges.idOf(node);
+        return id >= 0 && this.disabled[id];
+    }
+
+    /**
+     * Copies the edges between enabled nodes into a new FrozenGraph and makes it the current
+     * version
+     */
+    private void publish() {
+        int size = this.edges.sizeNodes();
+        if(this.versionNodes.size() != size) {
+            this.versionNodes = internAll();
+        }
+        int[] offsets = new int[size + 1];
+        for(int u = 0; u < size; u++) {
+            int degree = 0;
+            if(!this.disabled[u]) {
+                for(int i = 0; i < this.edges.degree(u); i++) {
+                    if(!this.disabled[this.edges.target(u, i)]) {
+                        degree++;
+                    }
+                }
+            }
+            offsets[u + 1] = offsets[u] + degree;
+        }
+        int[] targets = new int[offsets[size]];
+        double[] weights = new double[offsets[size]];
+        double[] penalties = new double[offsets[size]];
+        boolean penalized = false;
+        for(int u = 0; u < size; u++) {
+            int e = offsets[u];
+            for(int i = 0; e < offsets[u + 1]; i++) {
+                int v = this.edges.target(u, i);
+                if(!this.disabled[v]) {
+                    targets[e] = v;
+                    weights[e] = this.edges.weight(u, i);
+                    penalties[e] = this.edges.penalty(u, i);
+                    penalized |= penalties[e] != 0;
+                    e++;
+                }
+            }
+        }
+        FrozenGraph<N> graph = new FrozenGraph<>(this.versionNodes, offsets, targets, weights,
+                penalized ? penalties : null);
+        this.current = new GraphVersion<>(this.offHeap ? graph.offHeap() : graph, this.current.getNumber() + 1);
+    }
+
+    /**
+     * Interns every node of edges, in order of id
+     * @return a new NodeDictionary giving every node of edges the same id it has in edges
+     */
+    private NodeDictionary<N> internAll() {
+        NodeDictionary<N> dictionary = new NodeDictionary<>(this.edges.sizeNodes());
+        for(N node: this.edges.getNodeView()) {
+            dictionary.intern(node);
+        }
+        return dictionary;
+    }
+
+    /**
+     * Looks up the id of a node
+     * @param node is the node to look up
+     * @return the id of node
+     * @throws IllegalArgumentException if node is null or not in this
+     */
+    private int checkNode(N node) {
+        int id = this.edges.idOf(node);
+        if(id < 0) {
+            throw new IllegalArgumentException("Node must exist in the graph");
+        }
+        return id;
+    }
+
+    /**
+     * Makes the changes of one call to update. Each change is checked before it is made, so a
+     * change that throws an exception changes nothing.
+     */
+    public final class Editor {
+
+        //Whether the call to update this was given to is still running
+        private boolean open = true;
+
+        /**
+         * Constructs a new Editor for one call to update
+         */
+        private Editor() {
+        }
+
+        /**
+         * Throws an exception if the call to update this was given to has returned
+         */
+        private void checkOpen() {
+            if(!this.open) {
+                throw new IllegalStateException("Editor used after its update finished");
+            }
+        }
+
+        /**
+         * Throws an exception if an edge may not be given the cost or penalty. Every search of the
+         * published versions assumes both are finite and not negative, and a path is closed by
+         * removing its edges or disabling a node rather than by a negative or infinite cost
+         * @param weight is the cost of the edge
+         * @param penalty is the penalty of the edge
+         * @throws IllegalArgumentException if weight or penalty is negative or not finite
+         */
+        private void checkWeight(double weight, double penalty) {
+            if(!DoubleWeightedGraph.isFiniteCost(weight) || !DoubleWeightedGraph.isFiniteCost(penalty)) {
+                throw new IllegalArgumentException("Weight and penalty must be finite and not negative");
+            }
+        }
+
+        /**
+         * Inserts a new, enabled node with the associated value. If node already exists, node is
+         * not added
+         * @param value is the value of the node
+         * @throws IllegalArgumentException if the value is null
+         * @spec.modifies LiveGraph.this
+         */
+        public void insertNode(N value) {
+            checkOpen();
+            LiveGraph.this.edges.insertNode(value);
+            int size = LiveGraph.this.edges.sizeNodes();
+            if(size > LiveGraph.this.disabled.length) {
+                LiveGraph.this.disabled = Arrays.copyOf(LiveGraph.this.disabled, size * 2);
+            }
+        }
+
+        /**
+         * Inserts an edge of the given cost. If an edge with the same ends and cost already
+         * exists, edge is not added
+         * @param weight is the cost of the edge
+         * @param A is the value of the node that the edge will start at
+         * @param B is the value of the node that the edge will end at
+         * @throws IllegalArgumentException if either node (A or B) is null or not in the graph, or weight
+         *                                  is negative or not finite
+         * @spec.modifies LiveGraph.this
+         */
+        public void insertEdge(double weight, N A, N B) {
+            checkOpen();
+            checkWeight(weight, 0);
+            LiveGraph.this.edges.insertEdge(weight, A, B);
+        }
+
+        /**
+         * Inserts an edge of the given cost and penalty. If an edge with the same ends, cost and
+         * penalty already exists, edge is not added
+         * @param weight is the cost of the edge
+         * @param penalty is the penalty of the edge
+         * @param A is the value of the node that the edge will start at
+         * @param B is the value of the node that the edge will end at
+         * @throws IllegalArgumentException if either node (A or B) is null or not in the graph, or
+         *                                  weight or penalty is negative or not finite
+         * @spec.modifies LiveGraph.this
+         */
+        public void insertEdge(double weight, double penalty, N A, N B) {
+            checkOpen();
+            checkWeight(weight, penalty);
+            LiveGraph.this.edges.insertEdge(weight, penalty, A, B);
+        }
+
+        /**
+         * Removes every edge from A to B, whatever its cost
+         * @param A is the value of the node that the edges start at
+         * @param B is the value of the node that the edges end at
+         * @return the number of edges removed
+         * @throws IllegalArgumentException if either node (A or B) is null or not in the graph
+         * @spec.modifies LiveGraph.this
+         */
+        public int removeEdge(N A, N B) {
+            checkOpen();
+            return LiveGraph.this.edges.removeEdge(A, B);
+        }
+
+        /**
+         * Replaces every edge from A to B with a single edge of the given cost, keeping the
+         * penalty of the first of them
+         * @param A is the value of the node that the edge starts at
+         * @param B is the value of the node that the edge ends at
+         * @param weight is the new cost of the edge
+         * @throws IllegalArgumentException if either node (A or B) is null or not in the graph,
+         *                                  there is no edge from A to B, or weight is
+         *                                  negative or not finite
+         * @spec.modifies LiveGraph.this
+         */
+        public void setEdgeWeight(N A, N B, double weight) {
+            checkOpen();
+            checkWeight(weight, 0);
+            double penalty = penaltyOf(A, B);
+            if(LiveGraph.this.edges.removeEdge(A, B) == 0) {
+                throw new IllegalArgumentException("There is no edge between the nodes");
+            }
+            LiveGraph.this.edges.insertEdge(weight, penalty, A, B);
+        }
+
+        /**
+         * Looks up the penalty of the first edge from A to B
+         * @param A is the value of the node that the edge starts at
+         * @param B is the value of the node that the edge ends at
+         * @return the penalty of the first edge from A to B, or 0 if there is none
+         * @throws IllegalArgumentException if either node (A or B) is null or not in the graph
+         */
+        private double penaltyOf(N A, N B) {
+            DoubleWeightedGraph<N> edges = LiveGraph.this.edges;
+            int u = checkNode(A);
+            int v = checkNode(B);
+            for(int i = 0; i < edges.degree(u); i++) {
+                if(edges.target(u, i) == v) {
+                    return edges.penalty(u, i);
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * Disables a node, leaving every edge into or out of it out of the published versions
+         * @param node is the node to disable
+         * @throws IllegalArgumentException if node is null or not in the graph
+         * @spec.modifies LiveGraph.this
+         */
+        public void disableNode(N node) {
+            checkOpen();
+            LiveGraph.this.disabled[checkNode(node)] = true;
+        }
+
+        /**
+         * Enables a node, restoring its edges to the published versions
+         * @param node is the node to enable
+         * @throws IllegalArgumentException if node is null or not in the graph
+         * @spec.modifies LiveGraph.this
+         */
+        public void enableNode(N node) {
+            checkOpen();
+            LiveGraph.this.disabled[checkNode(node)] = false;
+        }
+    }
+}
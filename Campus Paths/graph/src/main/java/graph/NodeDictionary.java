@@ -0,0 +1,226 @@
+package graph;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <b>NodeDictionary</b> interns node values, giving each distinct value a dense int id from
+ * 0 to size() - 1 in the order they were first interned. Lookups probe an open addressing table
+ * of ids, so the dictionary holds no entry or boxed Integer objects, and each value's hash code is
+ * computed only once, when it is interned.
+ * <p>
+ * A NodeDictionary is not safe to intern into from several threads at once, but once no more
+ * values are interned any number of threads may look values up.
+ * @Param <N> the value assigned to the node of a graph
+ */
+public final class NodeDictionary<N> {
+
+    //The value of each id, indexed by id
+    private Object[] values;
+
+    //The spread hash code of each value, indexed by id
+    private int[] hashes;
+
+    //The number of values interned
+    private int size;
+
+    //An open addressing hash table holding id + 1 for every value, or 0 in an empty slot. Its length
+    //is a power of two
+    private int[] slots;
+
+    //Abstraction function:
+    //A NodeDictionary d maps values[id] to id for every id from 0 to size - 1
+
+    //Representation Invariant
+    //values, hashes, slots != null && size <= values.length == hashes.length &&
+    //values[0] ... values[size - 1] are non-null and distinct && hashes[id] == spread(values[id].hashCode()) &&
+    //slots.length is a power of two greater than 2 * size && every id appears exactly once in slots, at or after
+    //(in probe order) the slot hashes[id] indexes
+
+    /**
+     * Constructs a new, empty NodeDictionary
+     * @spec.effects constructs a new, empty NodeDictionary
+     */
+    public NodeDictionary() {
+        this(16);
+    }
+
+    /**
+     * Constructs a new, empty NodeDictionary with room for the given number of values before it
+     * has to grow
+     * @param expectedSize is the number of values expected to be interned
+     * @throws IllegalArgumentException if expectedSize is negative
+     * @spec.effects constructs a new, empty NodeDictionary
+     */
+    public NodeDictionary(int expectedSize) {
+        if(expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size cannot be negative");
+        }
+        this.values = new Object[Math.max(expectedSize, 1)];
+        this.hashes = new int[this.values.length];
+        this.slots = new int[tableLength(expectedSize)];
+        checkRep();
+    }
+
+    /**
+     * Throws an exception if the representation invariant is violated.
+     */
+    private void checkRep() {
+        assert(this.values != null && this.hashes != null && this.slots != null);
+        assert(this.size <= this.values.length && this.values.length == this.hashes.length);
+        assert(Integer.bitCount(this.slots.length) == 1 && this.slots.length > 2 * this.size);
+    }
+
+    /**
+     * Gets the id of a value, giving it the next id if it has not been interned yet
+     * @param value is the node value to intern
+     * @return the id of value
+     * @throws IllegalArgumentException if value is null
+     * @spec.modifies this
+     * @spec.effects adds value with id size() if it is not already in this
+     */
+    public int intern(N value) {
+        if(value == null) {
+            throw new IllegalArgumentException("Node value cannot be null");
+        }
+        int hash = spread(value.hashCode());
+        int slot = find(value, hash);
+        if(this.slots[slot] != 0) {
+            return this.slots[slot] - 1;
+        }
+        if(this.size == this.values.length) {
+            this.values = Arrays.copyOf(this.values, this.size * 2);
+            this.hashes = Arrays.copyOf(this.hashes, this.size * 2);
+        }
+        int id = this.size++;
+        this.values[id] = value;
+        this.hashes[id] = hash;
+        this.slots[slot] = id + 1;
+        if(this.slots.length <= 2 * this.size) {
+            rehash();
+        }
+        checkRep();
+        return id;
+    }
+
+    /**
+     * Gets the id of a value
+     * @param value is the node value to look up
+     * @return the id of value, or -1 if value is not in this
+     * @throws IllegalArgumentException if value is null
+     */
+    public int idOf(N value) {
+        if(value == null) {
+            throw new IllegalArgumentException("Node value cannot be null");
+        }
+        return this.slots[find(value, spread(value.hashCode()))] - 1;
+    }
+
+    /**
+     * Checks whether a value is in this
+     * @param value is the node value to look for
+     * @return true if and only if value is in this
+     * @throws IllegalArgumentException if value is null
+     */
+    public boolean contains(N value) {
+        return idOf(value) >= 0;
+    }
+
+    /**
+     * Gets the value with the given id
+     * @param id is the id of the value
+     * @return the value with the given id
+     * @throws IndexOutOfBoundsException if id is not a valid id of this
+     */
+    @SuppressWarnings("unchecked")
+    public N valueOf(int id) {
+        if(id < 0 || id >= this.size) {
+            throw new IndexOutOfBoundsException("No node with id " + id);
+        }
+        return (N) this.values[id];
+    }
+
+    /**
+     * Gets the number of values in this
+     * @return the number of values in this
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Gets every value in this, in order of id
+     * @return an unmodifiable view of the values of this, whose element i is the value with id i
+     */
+    public List<N> values() {
+        return new AbstractList<N>() {
+            @Override
+            public N get(int index) {
+                return valueOf(index);
+            }
+
+            @Override
+            public int size() {
+                return NodeDictionary.this.size;
+            }
+        };
+    }
+
+    /**
+     * Finds the slot holding value, or the empty slot where it would be added
+     * @param value is the node value to look for
+     * @param hash is the spread hash code of value
+     * @return the index in slots of value, or of the empty slot ending its probe sequence
+     */
+    private int find(Object value, int hash) {
+        int mask = this.slots.length - 1;
+        int slot = hash & mask;
+        while(this.slots[slot] != 0) {
+            int id = this.slots[slot] - 1;
+            if(this.hashes[id] == hash && this.values[id].equals(value)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Doubles the length of slots and puts every id back in it
+     */
+    private void rehash() {
+        this.slots = new int[this.slots.length * 2];
+        int mask = this.slots.length - 1;
+        for(int id = 0; id < this.size; id++) {
+            int slot = this.hashes[id] & mask;
+            while(this.slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            this.slots[slot] = id + 1;
+        }
+    }
+
+    /**
+     * Gets the smallest power of two table length that keeps the table under half full
+     * @param expectedSize is the number of values the table will hold
+     * @return the table length to use
+     */
+    private static int tableLength(int expectedSize) {
+        int length = 4;
+        while(length <= 2 * expectedSize) {
+            length *= 2;
+        }
+        return length;
+    }
+
+    /**
+     * Mixes the bits of a hash code so that the low bits used to pick a slot depend on all of them
+     * @param hashCode is the hash code to mix
+     * @return the mixed hash code
+     */
+    private static int spread(int hashCode) {
+        int h = hashCode * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,277 @@
+package graph;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * This class contains a set of test cases that can be used to test the implementation of the
+ * LiveGraph class: that a published version never changes, that changes show up only in the
+ * versions published after them, and that the Editor refuses the changes it should.
+ */
+public final class LiveGraphTest {
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(10); // 10 seconds max per method tested
+
+    // A -> B -> C, with a penalized edge A -> C
+    private LiveGraph<String> live;
+
+    // The edges of the first version of live
+    private static final List<String> START = Arrays.asList("A->B:1.0:0.0", "A->C:5.0:3.0", "B->C:2.0:0.0");
+
+    @Before
+    public void setUp() {
+        DoubleWeightedGraph<String> graph = new DoubleWeightedGraph<>();
+        graph.insertNode("A");
+        graph.insertNode("B");
+        graph.insertNode("C");
+        graph.insertEdge(1, "A", "B");
+        graph.insertEdge(2, "B", "C");
+        graph.insertEdge(5, 3, "A", "C");
+        live = new LiveGraph<>(graph.freeze());
+    }
+
+    /**
+     * Lists every edge of a graph as "source->target:weight:penalty", sorted
+     */
+    private static List<String> edges(FrozenGraph<String> graph) {
+        List<String> edges = new ArrayList<>();
+        for (int u = 0; u < graph.sizeNodes(); u++) {
+            for (int e = graph.firstEdge(u); e < graph.endEdge(u); e++) {
+                edges.add(graph.nodeAt(u) + "->" + graph.nodeAt(graph.target(e)) + ":" + graph.weight(e)
+                        + ":" + graph.penalty(e));
+            }
+        }
+        Collections.sort(edges);
+        return edges;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////
+    ////  Version isolation
+    ///////////////////////////////////////////////////////////////////////////////////////
+
+    @Test
+    public void testFirstVersionHoldsGraph() {
+        assertEquals(0, live.current().getNumber());
+        assertEquals(START, edges(live.current().getGraph()));
+    }
+
+    @Test
+    public void testOldVersionUnchangedByEdits() {
+        GraphVersion<String> old = live.current();
+        live.insertEdge(4, "C", "A");
+        live.removeEdge("A", "B");
+        live.setEdgeWeight("B", "C", 7);
+        live.disableNode("C");
+        live.update(editor -> editor.insertNode("D"));
+        assertEquals(0, old.getNumber());
+        assertEquals(3, old.getGraph().sizeNodes());
+        assertEquals(START, edges(old.getGraph()));
+    }
+
+    @Test
+    public void testEachChangePublishesNextVersion() {
+        GraphVersion<String> first = live.insertEdge(4, "C", "A");
+        GraphVersion<String> second = live.removeEdge("A", "B");
+        assertEquals(1, first.getNumber());
+        assertEquals(2, second.getNumber());
+        assertSame(second, live.current());
+        assertEquals(Arrays.asList("A->B:1.0:0.0", "A->C:5.0:3.0", "B->C:2.0:0.0", "C->A:4.0:0.0"),
+                edges(first.getGraph()));
+        assertEquals(Arrays.asList("A->C:5.0:3.0", "B->C:2.0:0.0", "C->A:4.0:0.0"), edges(second.getGraph()));
+    }
+
+    @Test
+    public void testBatchPublishedAsOneVersion() {
+        GraphVersion<String> version = live.update(editor -> {
+            editor.insertNode("D");
+            editor.insertEdge(1, "C", "D");
+            editor.setEdgeWeight("A", "B", 9);
+        });
+        assertEquals(1, version.getNumber());
+        assertEquals(4, version.getGraph().sizeNodes());
+        assertEquals(Arrays.asList("A->B:9.0:0.0", "A->C:5.0:3.0", "B->C:2.0:0.0", "C->D:1.0:0.0"),
+                edges(version.getGraph()));
+    }
+
+    @Test
+    public void testNodeIdsKeptAcrossVersions() {
+        int b = live.current().getGraph().idOf("B");
+        live.update(editor -> editor.insertNode("D"));
+        live.disableNode("A");
+        assertEquals(b, live.current().getGraph().idOf("B"));
+    }
+
+    @Test
+    public void testDisabledNodeEdgesLeftOutUntilEnabled() {
+        GraphVersion<String> disabled = live.disableNode("B");
+        assertTrue(live.isDisabled("B"));
+        assertEquals(3, disabled.getGraph().sizeNodes());
+        assertEquals(Collections.singletonList("A->C:5.0:3.0"), edges(disabled.getGraph()));
+        GraphVersion<String> enabled = live.enableNode("B");
+        assertFalse(live.isDisabled("B"));
+        assertEquals(START, edges(enabled.getGraph()));
+        assertEquals(Collections.singletonList("A->C:5.0:3.0"), edges(disabled.getGraph()));
+    }
+
+    @Test
+    public void testEdgeAddedToDisabledNodeShowsWhenEnabled() {
+        live.disableNode("C");
+        GraphVersion<String> hidden = live.insertEdge(8, "C", "B");
+        assertEquals(Collections.singletonList("A->B:1.0:0.0"), edges(hidden.getGraph()));
+        GraphVersion<String> shown = live.enableNode("C");
+        assertTrue(edges(shown.getGraph()).contains("C->B:8.0:0.0"));
+    }
+
+    @Test
+    public void testReaderOnlySeesWholeBatches() throws InterruptedException {
+        AtomicReference<String> broken = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            for (int i = 0; i < 20000 && broken.get() == null; i++) {
+                //Every batch either adds or removes both edges, so a version never holds just one
+                int edges = live.current().getGraph().sizeEdges();
+                if (edges != 3 && edges != 5) {
+                    broken.set("Version with " + edges + " edges");
+                }
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 500; i++) {
+            live.update(editor -> {
+                editor.insertEdge(1, "C", "A");
+                editor.insertEdge(1, "C", "B");
+            });
+            live.update(editor -> {
+                editor.removeEdge("C", "A");
+                editor.removeEdge("C", "B");
+            });
+        }
+        reader.join();
+        assertNull(broken.get());
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////
+    ////  Editor rules
+    ///////////////////////////////////////////////////////////////////////////////////////
+
+    @Test
+    public void testRepeatedEdgeNotAdded() {
+        assertEquals(START, edges(live.insertEdge(1, "A", "B").getGraph()));
+    }
+
+    @Test
+    public void testSetEdgeWeightKeepsPenalty() {
+        assertTrue(edges(live.setEdgeWeight("A", "C", 6).getGraph()).contains("A->C:6.0:3.0"));
+    }
+
+    @Test
+    public void testSetEdgeWeightMergesParallelEdges() {
+        live.insertEdge(4, "A", "B");
+        List<String> edges = edges(live.setEdgeWeight("A", "B", 2).getGraph());
+        assertEquals(Arrays.asList("A->B:2.0:0.0", "A->C:5.0:3.0", "B->C:2.0:0.0"), edges);
+    }
+
+    @Test
+    public void testZeroWeightAllowed() {
+        assertTrue(edges(live.insertEdge(0, "C", "A").getGraph()).contains("C->A:0.0:0.0"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeWeightRejected() {
+        live.insertEdge(-1, "C", "A");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNaNWeightRejected() {
+        live.insertEdge(Double.NaN, "C", "A");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInfiniteWeightRejected() {
+        live.insertEdge(Double.POSITIVE_INFINITY, "C", "A");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativePenaltyRejected() {
+        live.insertEdge(1, -1, "C", "A");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInfinitePenaltyRejected() {
+        live.insertEdge(1, Double.POSITIVE_INFINITY, "C", "A");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInfiniteNewWeightRejected() {
+        live.setEdgeWeight("A", "B", Double.POSITIVE_INFINITY);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeNewWeightRejected() {
+        live.setEdgeWeight("A", "B", -2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetWeightOfMissingEdgeRejected() {
+        live.setEdgeWeight("C", "A", 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEdgeToMissingNodeRejected() {
+        live.insertEdge(1, "A", "Z");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDisableMissingNodeRejected() {
+        live.disableNode("Z");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullChangesRejected() {
+        live.update(null);
+    }
+
+    @Test
+    public void testRejectedChangeChangesNothing() {
+        try {
+            live.setEdgeWeight("A", "B", Double.NaN);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            //Expected
+        }
+        assertEquals(START, edges(live.current().getGraph()));
+    }
+
+    @Test
+    public void testChangesBeforeFailurePublished() {
+        try {
+            live.update(editor -> {
+                editor.insertEdge(4, "C", "A");
+                editor.insertEdge(Double.POSITIVE_INFINITY, "C", "B");
+            });
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            //Expected
+        }
+        assertEquals(1, live.current().getNumber());
+        assertEquals(Arrays.asList("A->B:1.0:0.0", "A->C:5.0:3.0", "B->C:2.0:0.0", "C->A:4.0:0.0"),
+                edges(live.current().getGraph()));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testEditorUnusableAfterUpdate() {
+        AtomicReference<LiveGraph<String>.Editor> kept = new AtomicReference<>();
+        live.update(kept::set);
+        kept.get().insertEdge(1, "C", "A");
+    }
+}
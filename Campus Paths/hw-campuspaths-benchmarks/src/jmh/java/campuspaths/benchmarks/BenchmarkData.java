@@ -0,0 +1,277 @@
+package campuspaths.benchmarks;
+
+import graph.DoubleWeightedGraph;
+import graph.FrozenGraph;
+import graph.Graph;
+import pathfinder.datastructures.Point;
+import pathfinder.parser.CampusPathsParser;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The paths of a campus map to benchmark against: either the real campus paths file, or a
+ * synthetic jittered grid or random graph of a chosen size. Every dataset is generated from a
+ * fixed seed, so runs are repeatable.
+ */
+final class BenchmarkData {
+
+    /**
+     * The seed every dataset and query set is generated from.
+     */
+    static final long SEED = 331;
+
+    /**
+     * The pixel-x coordinate of the start of each path.
+     */
+    private double[] x1 = new double[1024];
+
+    /**
+     * The pixel-y coordinate of the start of each path.
+     */
+    private double[] y1 = new double[1024];
+
+    /**
+     * The pixel-x coordinate of the end of each path.
+     */
+    private double[] x2 = new double[1024];
+
+    /**
+     * The pixel-y coordinate of the end of each path.
+     */
+    private double[] y2 = new double[1024];
+
+    /**
+     * The distance of each path.
+     */
+    private double[] distance = new double[1024];
+
+    /**
+     * The number of paths.
+     */
+    private int size;
+
+    /**
+     * Creates an empty dataset.
+     */
+    private BenchmarkData() {
+    }
+
+    /**
+     * Loads or generates a dataset.
+     *
+     * @param dataset "campus" for the real campus paths file, "grid" for a jittered square grid
+     *                with a path each way between neighboring points, or "random" for points
+     *                scattered at random, each joined both ways to a few random others.
+     * @param edges   The approximate number of paths of a synthetic dataset.
+     * @return The paths of the dataset.
+     * @throws IllegalArgumentException if dataset is not one of those names.
+     */
+    static BenchmarkData load(String dataset, int edges) {
+        switch (dataset) {
+            case "campus":
+                return campus();
+            case "grid":
+                return grid(edges);
+            case "random":
+                return random(edges);
+            default:
+                throw new IllegalArgumentException("Unknown dataset: " + dataset);
+        }
+    }
+
+    /**
+     * @return The paths of the real campus paths file.
+     */
+    private static BenchmarkData campus() {
+        BenchmarkData data = new BenchmarkData();
+        CampusPathsParser.streamCampusPaths("campus_paths.csv", data::add);
+        return data;
+    }
+
+    /**
+     * @return A jittered square grid with about the given number of paths.
+     */
+    private static BenchmarkData grid(int edges) {
+        Random random = new Random(SEED);
+        //A side by side grid has about 4 * side * side paths
+        int side = Math.max(2, (int) Math.sqrt(edges / 4.0));
+        Point[] points = new Point[side * side];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = new Point((i % side) * 10 + random.nextInt(50_000) / 10_000.0,
+                                  (i / side) * 10 + random.nextInt(50_000) / 10_000.0);
+        }
+        BenchmarkData data = new BenchmarkData();
+        for (int i = 0; i < points.length; i++) {
+            if (i % side + 1 < side) {
+                data.addBothWays(points[i], points[i + 1], 1);
+            }
+            if (i + side < points.length) {
+                data.addBothWays(points[i], points[i + side], 1);
+            }
+        }
+        return data;
+    }
+
+    /**
+     * @return Points scattered at random with about the given number of paths, each point joined
+     * both ways to two random others, with each path up to twice as long as the straight line.
+     */
+    private static BenchmarkData random(int edges) {
+        Random random = new Random(SEED);
+        int count = Math.max(2, edges / 4);
+        double extent = Math.sqrt(count) * 10;
+        Point[] points = new Point[count];
+        for (int i = 0; i < count; i++) {
+            points[i] = new Point(random.nextInt((int) (extent * 10_000)) / 10_000.0,
+                                  random.nextInt((int) (extent * 10_000)) / 10_000.0);
+        }
+        BenchmarkData data = new BenchmarkData();
+        for (int i = 0; i < count; i++) {
+            for (int k = 0; k < 2; k++) {
+                data.addBothWays(points[i], points[random.nextInt(count)], 1 + random.nextDouble());
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Adds a path from a to b and one back, each stretch times as long as the straight line.
+     */
+    private void addBothWays(Point a, Point b, double stretch) {
+        double length = Math.round(Math.hypot(a.getX() - b.getX(), a.getY() - b.getY()) * stretch * 10_000) / 10_000.0;
+        add(a.getX(), a.getY(), b.getX(), b.getY(), length);
+        add(b.getX(), b.getY(), a.getX(), a.getY(), length);
+    }
+
+    /**
+     * Adds a path.
+     */
+    private void add(double startX, double startY, double endX, double endY, double length) {
+        if (size == x1.length) {
+            x1 = Arrays.copyOf(x1, size * 2);
+            y1 = Arrays.copyOf(y1, size * 2);
+            x2 = Arrays.copyOf(x2, size * 2);
+            y2 = Arrays.copyOf(y2, size * 2);
+            distance = Arrays.copyOf(distance, size * 2);
+        }
+        x1[size] = startX;
+        y1[size] = startY;
+        x2[size] = endX;
+        y2[size] = endY;
+        distance[size] = length;
+        size++;
+    }
+
+    /**
+     * @return The number of paths in this dataset.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return This dataset written as a campus paths file.
+     */
+    byte[] toCsv() {
+        StringBuilder csv = new StringBuilder(size * 48);
+        for (int i = 0; i < size; i++) {
+            csv.append(x1[i]).append(',').append(y1[i]).append(',').append(x2[i]).append(',').append(y2[i])
+               .append(',').append(distance[i]).append('\n');
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return A new generic graph of this dataset, built the way CampusMap originally did.
+     */
+    Graph<Point, Double> toGraph() {
+        Graph<Point, Double> graph = new Graph<>();
+        for (int i = 0; i < size; i++) {
+            Point begin = new Point(x1[i], y1[i]);
+            Point end = new Point(x2[i], y2[i]);
+            graph.insertNode(begin);
+            graph.insertNode(end);
+            graph.insertEdge(distance[i], begin, end);
+        }
+        return graph;
+    }
+
+    /**
+     * @return A new DoubleWeightedGraph of this dataset.
+     */
+    DoubleWeightedGraph<Point> toDoubleWeightedGraph() {
+        DoubleWeightedGraph<Point> graph = new DoubleWeightedGraph<>();
+        for (int i = 0; i < size; i++) {
+            Point begin = new Point(x1[i], y1[i]);
+            Point end = new Point(x2[i], y2[i]);
+            graph.insertNode(begin);
+            graph.insertNode(end);
+            graph.insertEdge(distance[i], begin, end);
+        }
+        return graph;
+    }
+
+    /**
+     * @return A new FrozenGraph of this dataset.
+     */
+    FrozenGraph<Point> toFrozenGraph() {
+        return toDoubleWeightedGraph().freeze();
+    }
+
+    /**
+     * Copies a graph, giving its paths penalties chosen at random.
+     *
+     * @param graph     The graph to copy.
+     * @param penalties "none" for no penalties, "stairs" for a penalty of half to one and a half
+     *                  times its distance on one path in eight, or "dense" for a penalty of up
+     *                  to its distance on every path.
+     * @return A new FrozenGraph with the nodes and edges of graph and the chosen penalties.
+     * @throws IllegalArgumentException if penalties is not one of those names.
+     */
+    static FrozenGraph<Point> withPenalties(FrozenGraph<Point> graph, String penalties) {
+        if (!penalties.equals("none") && !penalties.equals("stairs") && !penalties.equals("dense")) {
+            throw new IllegalArgumentException("Unknown penalties: " + penalties);
+        }
+        Random random = new Random(SEED);
+        DoubleWeightedGraph<Point> copy = new DoubleWeightedGraph<>();
+        for (Point node : graph.nodes()) {
+            copy.insertNode(node);
+        }
+        for (int u = 0; u < graph.sizeNodes(); u++) {
+            for (int e = graph.firstEdge(u); e < graph.endEdge(u); e++) {
+                double penalty = 0;
+                if (penalties.equals("stairs") && random.nextInt(8) == 0) {
+                    penalty = graph.weight(e) * (0.5 + random.nextDouble());
+                } else if (penalties.equals("dense")) {
+                    penalty = graph.weight(e) * random.nextDouble();
+                }
+                copy.insertEdge(graph.weight(e), penalty, graph.nodeAt(u), graph.nodeAt(graph.target(e)));
+            }
+        }
+        return copy.freeze();
+    }
+
+    /**
+     * Picks distinct nodes of a graph at random, as the endpoints of benchmark queries.
+     *
+     * @param graph The graph to pick from.
+     * @param count The number of nodes to pick.
+     * @return Up to count distinct nodes of graph.
+     */
+    static List<Point> endpoints(FrozenGraph<Point> graph, int count) {
+        Random random = new Random(SEED);
+        List<Point> endpoints = new ArrayList<>();
+        int tries = 0;
+        while (endpoints.size() < Math.min(count, graph.sizeNodes()) && tries++ < 100 * count) {
+            Point node = graph.nodeAt(random.nextInt(graph.sizeNodes()));
+            if (!endpoints.contains(node)) {
+                endpoints.add(node);
+            }
+        }
+        return endpoints;
+    }
+}
@@ -0,0 +1,83 @@
+package campuspaths.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import pathfinder.CampusMap;
+import pathfinder.parser.CampusGraphImage;
+import pathfinder.search.RouteStrategy;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures constructing a CampusMap from the real campus data, which is the server's startup
+ * cost, for each route strategy, loading the data either from the CSV files or from a prebuilt
+ * binary image.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+public class CampusMapBenchmark {
+
+    /**
+     * The route strategy the map is built for.
+     */
+    @Param({"DIJKSTRA", "CONTRACTION_HIERARCHY", "PRECOMPUTED"})
+    public RouteStrategy strategy;
+
+    /**
+     * Where the campus data is loaded from: "csv" or "image".
+     */
+    @Param({"csv", "image"})
+    public String source;
+
+    /**
+     * The binary image of the campus data, if source is "image".
+     */
+    private File image;
+
+    /**
+     * Writes the binary image if it will be used, and points CampusMap at it.
+     */
+    @Setup
+    public void setup() throws IOException {
+        System.clearProperty(CampusMap.GRAPH_IMAGE_PROPERTY);
+        if (source.equals("image")) {
+            image = File.createTempFile("campus_graph", ".bin");
+            long checksum = CampusGraphImage.checksum("campus_buildings.csv", "campus_paths.csv");
+            CampusGraphImage.fromCsv("campus_buildings.csv", "campus_paths.csv").write(image, checksum);
+            System.setProperty(CampusMap.GRAPH_IMAGE_PROPERTY, image.getPath());
+        }
+    }
+
+    /**
+     * Removes the binary image.
+     */
+    @TearDown
+    public void tearDown() {
+        System.clearProperty(CampusMap.GRAPH_IMAGE_PROPERTY);
+        if (image != null && !image.delete()) {
+            image.deleteOnExit();
+        }
+    }
+
+    /**
+     * Constructs the map.
+     */
+    @Benchmark
+    public CampusMap construct() {
+        return new CampusMap(strategy);
+    }
+}
@@ -0,0 +1,126 @@
+package campuspaths.benchmarks;
+
+import graph.DoubleWeightedGraph;
+import graph.Edge;
+import graph.Graph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import pathfinder.datastructures.Point;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building and walking the path graph as a generic Graph&lt;Point, Double&gt; and as a
+ * DoubleWeightedGraph&lt;Point&gt;.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class GraphBenchmark {
+
+    /**
+     * The dataset to build, see {@link BenchmarkData#load}.
+     */
+    @Param({"campus", "grid", "random"})
+    public String dataset;
+
+    /**
+     * The approximate number of edges of a synthetic dataset.
+     */
+    @Param({"100000", "1000000"})
+    public int edges;
+
+    /**
+     * The paths of the dataset.
+     */
+    private BenchmarkData data;
+
+    /**
+     * The dataset as a generic graph.
+     */
+    private Graph<Point, Double> graph;
+
+    /**
+     * The dataset as a DoubleWeightedGraph.
+     */
+    private DoubleWeightedGraph<Point> doubleGraph;
+
+    /**
+     * Every node of the dataset.
+     */
+    private List<Point> nodes;
+
+    /**
+     * Loads the dataset and builds both graphs of it once, for the traversal benchmarks.
+     */
+    @Setup
+    public void setup() {
+        data = BenchmarkData.load(dataset, edges);
+        graph = data.toGraph();
+        doubleGraph = data.toDoubleWeightedGraph();
+        nodes = new ArrayList<>(graph.getNodeView());
+    }
+
+    /**
+     * Builds a generic graph with insertNode and insertEdge.
+     */
+    @Benchmark
+    public Graph<Point, Double> insertGraph() {
+        return data.toGraph();
+    }
+
+    /**
+     * Builds a DoubleWeightedGraph with insertNode and insertEdge.
+     */
+    @Benchmark
+    public DoubleWeightedGraph<Point> insertDoubleWeightedGraph() {
+        return data.toDoubleWeightedGraph();
+    }
+
+    /**
+     * Copies the edges of every node of the generic graph with getEdgeList.
+     */
+    @Benchmark
+    public void getEdgeList(Blackhole blackhole) {
+        for (Point node : nodes) {
+            blackhole.consume(graph.getEdgeList(node));
+        }
+    }
+
+    /**
+     * Sums the cost of every edge of the generic graph through getEdgeView.
+     */
+    @Benchmark
+    public double traverseGraph() {
+        double sum = 0;
+        for (Point node : nodes) {
+            for (Edge<Double, Point, Point> edge : graph.getEdgeView(node)) {
+                sum += edge.getValue();
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Sums the cost of every edge of the DoubleWeightedGraph.
+     */
+    @Benchmark
+    public double traverseDoubleWeightedGraph() {
+        double sum = 0;
+        for (int u = 0; u < doubleGraph.sizeNodes(); u++) {
+            for (int i = 0; i < doubleGraph.degree(u); i++) {
+                sum += doubleGraph.weight(u, i);
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,92 @@
+package campuspaths.benchmarks;
+
+import graph.FrozenGraph;
+import graph.Graph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pathfinder.datastructures.Point;
+import pathfinder.parser.CampusPathsParser;
+import pathfinder.parser.ParallelPathsLoader;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building the frozen path graph from a synthetic campus paths file, once by inserting
+ * every path into a Graph and freezing it, and once with ParallelPathsLoader on one thread and
+ * on every processor. The largest size needs a heap of several gigabytes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class GraphLoadBenchmark {
+
+    /**
+     * The dataset to load, see {@link BenchmarkData#load}.
+     */
+    @Param({"grid"})
+    public String dataset;
+
+    /**
+     * The approximate number of edges of the file.
+     */
+    @Param({"100000", "1000000", "10000000"})
+    public int edges;
+
+    /**
+     * The contents of the file.
+     */
+    private byte[] csv;
+
+    /**
+     * Generates the file.
+     */
+    @Setup
+    public void setup() {
+        csv = BenchmarkData.load(dataset, edges).toCsv();
+    }
+
+    /**
+     * Streams the file into a Graph one path at a time, then freezes it.
+     */
+    @Benchmark
+    public FrozenGraph<Point> sequential() {
+        Graph<Point, Double> graph = new Graph<>();
+        InputStreamReader in = new InputStreamReader(new ByteArrayInputStream(csv));
+        CampusPathsParser.streamCampusPaths(in, (x1, y1, x2, y2, distance) -> {
+            Point begin = new Point(x1, y1);
+            Point end = new Point(x2, y2);
+            graph.insertNode(begin);
+            graph.insertNode(end);
+            graph.insertEdge(distance, begin, end);
+        });
+        return graph.freeze(Double::doubleValue);
+    }
+
+    /**
+     * Loads the file with ParallelPathsLoader on a single thread.
+     */
+    @Benchmark
+    public FrozenGraph<Point> parallelOneThread() {
+        return ParallelPathsLoader.build(csv, 1);
+    }
+
+    /**
+     * Loads the file with ParallelPathsLoader on every processor.
+     */
+    @Benchmark
+    public FrozenGraph<Point> parallelAllThreads() {
+        return ParallelPathsLoader.build(csv, Runtime.getRuntime().availableProcessors());
+    }
+}
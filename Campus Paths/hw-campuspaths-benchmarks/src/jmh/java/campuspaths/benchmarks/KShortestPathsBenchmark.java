@@ -0,0 +1,88 @@
+package campuspaths.benchmarks;
+
+import graph.FrozenGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import pathfinder.datastructures.Path;
+import pathfinder.datastructures.Point;
+import pathfinder.search.KShortestPaths;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a single query for the k least cost loopless paths between two nodes, cycling through
+ * a fixed set of random start and end nodes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class KShortestPathsBenchmark {
+
+    /**
+     * The number of nodes queries run between.
+     */
+    private static final int ENDPOINTS = 32;
+
+    /**
+     * The dataset to search, see {@link BenchmarkData#load}.
+     */
+    @Param({"campus", "grid", "random"})
+    public String dataset;
+
+    /**
+     * The approximate number of edges of a synthetic dataset.
+     */
+    @Param({"100000"})
+    public int edges;
+
+    /**
+     * The number of paths each query finds.
+     */
+    @Param({"1", "3", "10"})
+    public int k;
+
+    /**
+     * The engine answering queries.
+     */
+    private KShortestPaths<Point> engine;
+
+    /**
+     * The node ids queries run between.
+     */
+    private int[] endpoints;
+
+    /**
+     * The index of the next query, from which its start and end are chosen.
+     */
+    private int next;
+
+    /**
+     * Builds the graph and the engine.
+     */
+    @Setup
+    public void setup() {
+        FrozenGraph<Point> graph = BenchmarkData.load(dataset, edges).toFrozenGraph();
+        engine = new KShortestPaths<>(graph);
+        List<Point> nodes = BenchmarkData.endpoints(graph, ENDPOINTS);
+        endpoints = new int[nodes.size()];
+        for (int i = 0; i < endpoints.length; i++) {
+            endpoints[i] = graph.idOf(nodes.get(i));
+        }
+    }
+
+    /**
+     * Answers the next query.
+     */
+    @Benchmark
+    public List<Path<Point>> shortestPaths() {
+        next = (next + 1) % (endpoints.length * endpoints.length);
+        return engine.shortestPathsById(endpoints[next / endpoints.length], endpoints[next % endpoints.length], k);
+    }
+}
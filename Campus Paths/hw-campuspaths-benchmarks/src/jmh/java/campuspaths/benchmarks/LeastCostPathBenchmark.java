@@ -0,0 +1,130 @@
+package campuspaths.benchmarks;
+
+import graph.DoubleWeightedGraph;
+import graph.FrozenGraph;
+import graph.Graph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import pathfinder.datastructures.Path;
+import pathfinder.datastructures.Point;
+import pathfinder.textInterface.Pathfinder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a single Pathfinder.leastCostPath query over each graph representation, cycling
+ * through a fixed set of random start and end nodes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LeastCostPathBenchmark {
+
+    /**
+     * The number of nodes queries run between.
+     */
+    private static final int ENDPOINTS = 32;
+
+    /**
+     * The dataset to search, see {@link BenchmarkData#load}.
+     */
+    @Param({"campus", "grid", "random"})
+    public String dataset;
+
+    /**
+     * The approximate number of edges of a synthetic dataset.
+     */
+    @Param({"100000"})
+    public int edges;
+
+    /**
+     * The dataset as a generic graph.
+     */
+    private Graph<Point, Double> graph;
+
+    /**
+     * The dataset as a DoubleWeightedGraph.
+     */
+    private DoubleWeightedGraph<Point> doubleGraph;
+
+    /**
+     * The dataset as a FrozenGraph.
+     */
+    private FrozenGraph<Point> frozenGraph;
+
+    /**
+     * The nodes queries run between.
+     */
+    private List<Point> endpoints;
+
+    /**
+     * The index of the next query, from which its start and end are chosen.
+     */
+    private int next;
+
+    /**
+     * Builds every representation of the dataset.
+     */
+    @Setup
+    public void setup() {
+        BenchmarkData data = BenchmarkData.load(dataset, edges);
+        graph = data.toGraph();
+        doubleGraph = data.toDoubleWeightedGraph();
+        frozenGraph = doubleGraph.freeze();
+        endpoints = BenchmarkData.endpoints(frozenGraph, ENDPOINTS);
+    }
+
+    /**
+     * @return The start of the next query.
+     */
+    private Point start() {
+        next = (next + 1) % (endpoints.size() * endpoints.size());
+        return endpoints.get(next / endpoints.size());
+    }
+
+    /**
+     * @return The end of the query whose start was just chosen.
+     */
+    private Point end() {
+        return endpoints.get(next % endpoints.size());
+    }
+
+    /**
+     * Searches the generic graph, as the original Pathfinder did.
+     */
+    @Benchmark
+    public Path<Point> graph() {
+        return Pathfinder.leastCostPath(graph, start(), end());
+    }
+
+    /**
+     * Searches the DoubleWeightedGraph, through the snapshot it keeps while it is unchanged.
+     */
+    @Benchmark
+    public Path<Point> doubleWeightedGraph() {
+        return Pathfinder.leastCostPath(doubleGraph, start(), end());
+    }
+
+    /**
+     * Searches the FrozenGraph with Dijkstra's algorithm.
+     */
+    @Benchmark
+    public Path<Point> frozenGraph() {
+        return Pathfinder.leastCostPath(frozenGraph, start(), end());
+    }
+
+    /**
+     * Searches the FrozenGraph with A*.
+     */
+    @Benchmark
+    public Path<Point> frozenGraphAStar() {
+        return Pathfinder.leastCostPathAStar(frozenGraph, start(), end());
+    }
+}
@@ -0,0 +1,105 @@
+package campuspaths.benchmarks;
+
+import graph.FrozenGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import pathfinder.datastructures.Point;
+import pathfinder.search.ParetoRouter;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a single query for the routes between two nodes that weigh distance against penalty,
+ * either the whole Pareto set or the one route of least distance plus a multiple of its penalty,
+ * cycling through a fixed set of random start and end nodes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ParetoRouterBenchmark {
+
+    /**
+     * The number of nodes queries run between.
+     */
+    private static final int ENDPOINTS = 32;
+
+    /**
+     * How many feet of distance one unit of penalty is worth in a weighted query.
+     */
+    private static final double PENALTY_WEIGHT = 2;
+
+    /**
+     * The dataset to search, see {@link BenchmarkData#load}.
+     */
+    @Param({"campus", "grid"})
+    public String dataset;
+
+    /**
+     * The approximate number of edges of a synthetic dataset.
+     */
+    @Param({"10000"})
+    public int edges;
+
+    /**
+     * The penalties given to the paths, see {@link BenchmarkData#withPenalties}.
+     */
+    @Param({"none", "stairs", "dense"})
+    public String penalties;
+
+    /**
+     * What each query finds: "pareto" for every route of the Pareto set, or "weighted" for the
+     * single route of least weighted cost.
+     */
+    @Param({"pareto", "weighted"})
+    public String query;
+
+    /**
+     * The router answering queries.
+     */
+    private ParetoRouter<Point> router;
+
+    /**
+     * The node ids queries run between.
+     */
+    private int[] endpoints;
+
+    /**
+     * The index of the next query, from which its start and end are chosen.
+     */
+    private int next;
+
+    /**
+     * Builds the graph and the router.
+     */
+    @Setup
+    public void setup() {
+        FrozenGraph<Point> graph = BenchmarkData.withPenalties(BenchmarkData.load(dataset, edges).toFrozenGraph(), penalties);
+        router = new ParetoRouter<>(graph);
+        List<Point> nodes = BenchmarkData.endpoints(graph, ENDPOINTS);
+        endpoints = new int[nodes.size()];
+        for (int i = 0; i < endpoints.length; i++) {
+            endpoints[i] = graph.idOf(nodes.get(i));
+        }
+    }
+
+    /**
+     * Answers the next query.
+     */
+    @Benchmark
+    public Object routes() {
+        next = (next + 1) % (endpoints.length * endpoints.length);
+        int start = endpoints[next / endpoints.length];
+        int end = endpoints[next % endpoints.length];
+        if (query.equals("weighted")) {
+            return router.weightedRouteById(start, end, PENALTY_WEIGHT);
+        }
+        return router.paretoRoutesById(start, end);
+    }
+}
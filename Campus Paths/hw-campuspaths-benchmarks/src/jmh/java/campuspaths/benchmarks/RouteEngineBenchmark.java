@@ -0,0 +1,99 @@
+package campuspaths.benchmarks;
+
+import graph.FrozenGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import pathfinder.datastructures.Path;
+import pathfinder.datastructures.Point;
+import pathfinder.search.RouteEngine;
+import pathfinder.search.RouteStrategy;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a single route query with each route strategy, with the graph's edges on or off the
+ * heap, cycling through a fixed set of random start and end nodes that every strategy treats as
+ * buildings. Run with {@code -prof gc} to compare garbage collection between the two storages.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RouteEngineBenchmark {
+
+    /**
+     * The number of nodes queries run between.
+     */
+    private static final int ENDPOINTS = 32;
+
+    /**
+     * The dataset to search, see {@link BenchmarkData#load}.
+     */
+    @Param({"campus", "grid", "random"})
+    public String dataset;
+
+    /**
+     * The approximate number of edges of a synthetic dataset.
+     */
+    @Param({"100000"})
+    public int edges;
+
+    /**
+     * The route strategy to answer queries with.
+     */
+    @Param({"DIJKSTRA", "A_STAR", "BIDIRECTIONAL", "CONTRACTION_HIERARCHY", "PRECOMPUTED"})
+    public RouteStrategy strategy;
+
+    /**
+     * Where the graph's edges are held: "heap" or "offheap".
+     */
+    @Param({"heap", "offheap"})
+    public String storage;
+
+    /**
+     * The engine answering queries.
+     */
+    private RouteEngine<Point> engine;
+
+    /**
+     * The node ids queries run between.
+     */
+    private int[] endpoints;
+
+    /**
+     * The index of the next query, from which its start and end are chosen.
+     */
+    private int next;
+
+    /**
+     * Builds the graph and the engine, including any preprocessing the strategy does.
+     */
+    @Setup
+    public void setup() {
+        FrozenGraph<Point> graph = BenchmarkData.load(dataset, edges).toFrozenGraph();
+        if (storage.equals("offheap")) {
+            graph = graph.offHeap();
+        }
+        List<Point> buildings = BenchmarkData.endpoints(graph, ENDPOINTS);
+        engine = strategy.createEngine(graph, buildings);
+        endpoints = new int[buildings.size()];
+        for (int i = 0; i < endpoints.length; i++) {
+            endpoints[i] = graph.idOf(buildings.get(i));
+        }
+    }
+
+    /**
+     * Answers the next query.
+     */
+    @Benchmark
+    public Path<Point> shortestPath() {
+        next = (next + 1) % (endpoints.length * endpoints.length);
+        return engine.shortestPathById(endpoints[next / endpoints.length], endpoints[next % endpoints.length]);
+    }
+}
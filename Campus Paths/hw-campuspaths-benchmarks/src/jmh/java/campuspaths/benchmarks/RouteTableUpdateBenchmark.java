@@ -0,0 +1,124 @@
+package campuspaths.benchmarks;
+
+import graph.FrozenGraph;
+import graph.LiveGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import pathfinder.datastructures.Point;
+import pathfinder.search.DijkstraEngine;
+import pathfinder.search.RouteTable;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures bringing a precomputed route table up to date after a single path changes cost, either
+ * by building a new table from scratch or by repairing the trees of the old one. The graph cycles
+ * through a fixed sequence of versions, each closing one random path (by making it four times as
+ * long) or reopening the path closed in the version before.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RouteTableUpdateBenchmark {
+
+    /**
+     * The number of paths closed and reopened in one cycle of versions.
+     */
+    private static final int CHANGES = 64;
+
+    /**
+     * The dataset to search, see {@link BenchmarkData#load}.
+     */
+    @Param({"campus", "grid", "random"})
+    public String dataset;
+
+    /**
+     * The approximate number of edges of a synthetic dataset.
+     */
+    @Param({"100000"})
+    public int edges;
+
+    /**
+     * The number of nodes the table holds routes between.
+     */
+    @Param({"64"})
+    public int buildings;
+
+    /**
+     * How the table is brought up to date: "rebuild" or "repair".
+     */
+    @Param({"rebuild", "repair"})
+    public String update;
+
+    /**
+     * The versions of the graph, in the order they are cycled through.
+     */
+    private FrozenGraph<Point>[] versions;
+
+    /**
+     * The nodes the table holds routes between.
+     */
+    private List<Point> endpoints;
+
+    /**
+     * The table over the current version.
+     */
+    private RouteTable<Point> table;
+
+    /**
+     * The index into versions of the current version.
+     */
+    private int current;
+
+    /**
+     * Builds the versions of the graph and the table over the first of them.
+     */
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        LiveGraph<Point> live = new LiveGraph<>(BenchmarkData.load(dataset, edges).toFrozenGraph());
+        FrozenGraph<Point> first = live.current().getGraph();
+        Random random = new Random(BenchmarkData.SEED);
+        versions = (FrozenGraph<Point>[]) new FrozenGraph<?>[2 * CHANGES + 1];
+        versions[0] = first;
+        for (int i = 0; i < CHANGES; i++) {
+            int u;
+            do {
+                u = random.nextInt(first.sizeNodes());
+            } while (first.firstEdge(u) == first.endEdge(u));
+            int e = first.firstEdge(u) + random.nextInt(first.endEdge(u) - first.firstEdge(u));
+            Point start = first.nodeAt(u);
+            Point end = first.nodeAt(first.target(e));
+            live.setEdgeWeight(start, end, first.weight(e) * 4);
+            versions[2 * i + 1] = live.current().getGraph();
+            live.setEdgeWeight(start, end, first.weight(e));
+            versions[2 * i + 2] = live.current().getGraph();
+        }
+        endpoints = BenchmarkData.endpoints(first, buildings);
+        table = new RouteTable<>(first, endpoints, new DijkstraEngine<>(first));
+        current = 0;
+    }
+
+    /**
+     * Brings the table up to date with the next version.
+     */
+    @Benchmark
+    public RouteTable<Point> nextVersion() {
+        current = (current + 1) % versions.length;
+        FrozenGraph<Point> graph = versions[current];
+        if (update.equals("repair")) {
+            table = table.repair(graph, endpoints, new DijkstraEngine<>(graph));
+        } else {
+            table = new RouteTable<>(graph, endpoints, new DijkstraEngine<>(graph));
+        }
+        return table;
+    }
+}
@@ -15,15 +15,31 @@ import campuspaths.utils.CORSFilter;
 import pathfinder.CampusMap;
 import pathfinder.datastructures.Path;
 import pathfinder.datastructures.Point;
+import pathfinder.search.ParetoRoute;
+import pathfinder.search.ReachableSet;
+import pathfinder.search.RouteStrategy;
 import spark.Request;
 import spark.Response;
 import spark.Route;
 import spark.Spark;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 public class SparkServer {
 
+    //The most routes kept in the map's route cache; /shortest-path traffic is heavily skewed
+    //toward a few building pairs, so a small cache absorbs most of it
+    private static final int ROUTE_CACHE_SIZE = 1024;
+
+    //The number of routes /alternative-routes returns when no count is given
+    private static final int DEFAULT_ALTERNATIVE_ROUTES = 3;
+
+    //The most routes /alternative-routes will find for one request, which bounds its cost
+    private static final int MAX_ALTERNATIVE_ROUTES = 10;
+
     public static void main(String[] args) {
         CORSFilter corsFilter = new CORSFilter();
         corsFilter.apply();
@@ -32,7 +48,7 @@ public class SparkServer {
         // comes from a different server.
         // You should leave these two lines at the very beginning of main().
 
-        CampusMap mainMap = new CampusMap();
+        CampusMap mainMap = new CampusMap(RouteStrategy.DIJKSTRA, ROUTE_CACHE_SIZE);
 
         //Returns a list of all the building names, with both their short and long names
         Spark.get("/list-buildings", new Route() {
@@ -54,14 +70,31 @@ public class SparkServer {
                 }
                 try{
                     Path<Point> shortestPath = mainMap.findShortestPath(start, end);
-                    ArrayList<Double> ret = new ArrayList<>();
-
-                    //Breaks apart the path into only x and y coordinates (x1,y1,x2,y2)
-                    for(Path<Point>.Segment part: shortestPath) {
-                        ret.add(part.getStart().getX());
-                        ret.add(part.getStart().getY());
-                        ret.add(part.getEnd().getX());
-                        ret.add(part.getEnd().getY());
+                    return toCoordinates(shortestPath).toString();
+                } catch(IllegalArgumentException e) {
+                    Spark.halt(400, "Start and end points must exist in the CampusMap");
+                }
+                //Should never reach this
+                return null;
+            }
+        });
+
+        //Returns the shortest paths from the given start building to each of the comma separated
+        //end buildings, found with a single search
+        Spark.get("/shortest-paths", new Route() {
+            @Override
+            public Object handle(Request request, Response response) throws Exception {
+                String start = request.queryParams("Start-Building");
+                String ends = request.queryParams("End-Buildings");
+                if(start == null || ends == null) {
+                    Spark.halt(400, "Start and end points cannot be null");
+                }
+                try{
+                    List<String> endList = Arrays.asList(ends.split(","));
+                    Map<String, Path<Point>> shortestPaths = mainMap.findShortestPaths(start, endList);
+                    Map<String, List<Double>> ret = new LinkedHashMap<>();
+                    for(String end: endList) {
+                        ret.put(end, toCoordinates(shortestPaths.get(end)));
                     }
                     return ret.toString();
                 } catch(IllegalArgumentException e) {
@@ -71,6 +104,126 @@ public class SparkServer {
                 return null;
             }
         });
+
+        //Returns up to Count (3 if not given) routes between the two given start and end buildings,
+        //shortest first, each as the coordinates of its segments
+        Spark.get("/alternative-routes", new Route() {
+            @Override
+            public Object handle(Request request, Response response) throws Exception {
+                String start = request.queryParams("Start-Building");
+                String end = request.queryParams("End-Building");
+                String count = request.queryParams("Count");
+                if(start == null || end == null) {
+                    Spark.halt(400, "Start and end points cannot be null");
+                }
+                try{
+                    int k = count == null ? DEFAULT_ALTERNATIVE_ROUTES : Integer.parseInt(count);
+                    if(k > MAX_ALTERNATIVE_ROUTES) {
+                        Spark.halt(400, "Count cannot be more than " + MAX_ALTERNATIVE_ROUTES);
+                    }
+                    List<List<Double>> ret = new ArrayList<>();
+                    for(Path<Point> route: mainMap.findAlternativeRoutes(start, end, k)) {
+                        ret.add(toCoordinates(route));
+                    }
+                    return ret.toString();
+                } catch(IllegalArgumentException e) {
+                    Spark.halt(400, "Start and end points must exist in the CampusMap and the count cannot be negative");
+                }
+                //Should never reach this
+                return null;
+            }
+        });
+
+        //Returns the routes between the two given start and end buildings that trade distance against
+        //penalty (such as stairs), shortest first, each as its distance and penalty followed by the
+        //coordinates of its segments. Given a Penalty-Weight, returns only the route of least distance
+        //plus that many feet for each unit of penalty, in the same form
+        Spark.get("/accessible-routes", new Route() {
+            @Override
+            public Object handle(Request request, Response response) throws Exception {
+                String start = request.queryParams("Start-Building");
+                String end = request.queryParams("End-Building");
+                String penaltyWeight = request.queryParams("Penalty-Weight");
+                if(start == null || end == null) {
+                    Spark.halt(400, "Start and end points cannot be null");
+                }
+                try{
+                    List<ParetoRoute<Point>> routes;
+                    if(penaltyWeight == null) {
+                        routes = mainMap.findAccessibleRoutes(start, end);
+                    } else {
+                        ParetoRoute<Point> route = mainMap.findWeightedRoute(start, end, Double.parseDouble(penaltyWeight));
+                        routes = route == null ? new ArrayList<>() : List.of(route);
+                    }
+                    List<List<Double>> ret = new ArrayList<>();
+                    for(ParetoRoute<Point> route: routes) {
+                        List<Double> coordinates = new ArrayList<>();
+                        coordinates.add(route.getCost());
+                        coordinates.add(route.getPenalty());
+                        coordinates.addAll(toCoordinates(route.getPath()));
+                        ret.add(coordinates);
+                    }
+                    return ret.toString();
+                } catch(IllegalArgumentException e) {
+                    Spark.halt(400, "Start and end points must exist in the CampusMap and the penalty weight must be a non-negative number");
+                }
+                //Should never reach this
+                return null;
+            }
+        });
+
+        //Returns every point within a walking distance (Max-Distance, in feet) or walking time
+        //(Max-Minutes) of the given start building, as a flat list of x, y, and distance for each
+        //point, nearest first
+        Spark.get("/reachable", new Route() {
+            @Override
+            public Object handle(Request request, Response response) throws Exception {
+                String start = request.queryParams("Start-Building");
+                String maxDistance = request.queryParams("Max-Distance");
+                String maxMinutes = request.queryParams("Max-Minutes");
+                if(start == null || (maxDistance == null) == (maxMinutes == null)) {
+                    Spark.halt(400, "Start point and exactly one of a distance or time limit are required");
+                }
+                try{
+                    ReachableSet<Point> reachable;
+                    if(maxDistance != null) {
+                        reachable = mainMap.findReachable(start, Double.parseDouble(maxDistance));
+                    } else {
+                        reachable = mainMap.findReachableInMinutes(start, Double.parseDouble(maxMinutes));
+                    }
+                    List<Double> ret = new ArrayList<>(3 * reachable.size());
+                    for(int i = 0; i < reachable.size(); i++) {
+                        ret.add(reachable.getNode(i).getX());
+                        ret.add(reachable.getNode(i).getY());
+                        ret.add(reachable.getCost(i));
+                    }
+                    return ret.toString();
+                } catch(IllegalArgumentException e) {
+                    Spark.halt(400, "Start point must exist in the CampusMap and the limit must be a non-negative number");
+                }
+                //Should never reach this
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Breaks apart the path into only x and y coordinates (x1,y1,x2,y2) for each segment
+     * @param path the path to break apart, or null if there is no path
+     * @return the coordinates of every segment of path in order, or an empty list if path is null
+     */
+    private static List<Double> toCoordinates(Path<Point> path) {
+        List<Double> ret = new ArrayList<>();
+        if(path == null) {
+            return ret;
+        }
+        for(Path<Point>.Segment part: path) {
+            ret.add(part.getStart().getX());
+            ret.add(part.getStart().getY());
+            ret.add(part.getEnd().getX());
+            ret.add(part.getEnd().getY());
+        }
+        return ret;
     }
 
 }
@@ -11,77 +11,218 @@
 
 package main.java.pathfinder;
 
-import graph.Edge;
-import graph.Graph;
+import graph.FrozenGraph;
+import graph.GraphVersion;
+import graph.LiveGraph;
 import pathfinder.datastructures.Path;
 import pathfinder.datastructures.Point;
-import pathfinder.parser.CampusBuilding;
-import pathfinder.parser.CampusPath;
-import pathfinder.parser.CampusPathsParser;
-import pathfinder.textInterface.Pathfinder;
+import pathfinder.datastructures.PointIndex;
+import pathfinder.parser.CampusGraphImage;
+import pathfinder.search.BatchRouter;
+import pathfinder.search.DijkstraEngine;
+import pathfinder.search.KShortestPaths;
+import pathfinder.search.ParetoRoute;
+import pathfinder.search.ParetoRouter;
+import pathfinder.search.ReachableSet;
+import pathfinder.search.RouteCache;
+import pathfinder.search.RouteEngine;
+import pathfinder.search.RouteResult;
+import pathfinder.search.RouteStrategy;
+import pathfinder.search.ShortestPathTree;
 
+import java.io.File;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * CampusMap is a collection of all buildings at UW, connected by paths
  */
 public class CampusMap implements ModelAPI {
 
+    /**
+     * The system property holding the path of a prebuilt binary image of the campus data
+     * (see CampusGraphImage), used to skip parsing the CSV files at startup.
+     */
+    public static final String GRAPH_IMAGE_PROPERTY = "campuspaths.graphImage";
+
+    /**
+     * The system property that, when "true", keeps the edges of the campus graph off the Java
+     * heap (see FrozenGraph.offHeap), so that a very large graph does not lengthen garbage
+     * collection pauses.
+     */
+    public static final String OFF_HEAP_PROPERTY = "campuspaths.offHeap";
+
+    /**
+     * The distance, in feet, assumed to be walked in one minute (about three miles an hour),
+     * used to turn a walking time into a distance budget.
+     */
+    public static final double WALKING_FEET_PER_MINUTE = 264;
+
     //Maps the abbreviated name to the long name of a building
     private Map<String,String> shortToLong;
 
     //Maps the abbreviated name to it's coordinates
     private Map<String, Point> shortToCoords;
 
-    //A graph representing the University of Washington's campus
-    private Graph<Point, Double> campusGraph;
+    //Maps the abbreviated name of every building on a campus path to the id of its node in frozenGraph
+    private Map<String, Integer> shortToId;
+
+    //The graph representing the University of Washington's campus, which can be changed while
+    //routes are being found
+    private LiveGraph<Point> liveGraph;
+
+    //Everything route queries are answered with, for the current version of liveGraph. Each query reads
+    //this once, so it sees a single version from start to finish even if the paths change meanwhile
+    private volatile Routing routing;
+
+    //The nodes settled by the route engines of every version before the current one
+    private final LongAdder retiredSettled;
+
+    //The search algorithm route queries are answered with
+    private final RouteStrategy strategy;
+
+    //The most routes routeCache may hold, or 0 if routes are not cached
+    private final int cacheSize;
+
+    //Recently found routes, keyed by the node ids of their buildings, or null if routes are not cached
+    private RouteCache<Point> routeCache;
 
     //Toggles the checkRep method on and off
     private boolean onOFF = false;
 
     //Abstraction function:
     //A campusMap M is a collection of nodes connected by edges. Each node is a destination of an edge, and
-    //each edge's cost is the distance traveled. Buildings are stored as nodes
+    //each edge's cost is the distance traveled, with the penalty given by the campus paths file. Buildings are
+    //stored as nodes
 
     //Rep invariant
     //  shortToLong != null &&
     //  shortToCoords != null &&
-    //  campusGraph != null &&
+    //  shortToId != null &&
+    //  liveGraph != null && routing != null && routing.version is a version of liveGraph &&
     //  shortToLong does not contain null elements &&
     //  shortToCoords does not contain null elements &&
-    //  campusGraph does not contain null nodes or edges
+    //  routing.graph does not contain null nodes &&
+    //  routing.nodeIndex holds exactly the nodes of routing.graph with an edge into or out of them
 
     /**
-     * Constructs a new CampusMap
+     * Constructs a new CampusMap that finds routes with Dijkstra's algorithm
      */
     public CampusMap() {
+        this(RouteStrategy.DIJKSTRA);
+    }
+
+    /**
+     * Constructs a new CampusMap that finds routes with the given search algorithm
+     * @param strategy the search algorithm used by findShortestPath
+     * @throws IllegalArgumentException if strategy is null
+     */
+    public CampusMap(RouteStrategy strategy) {
+        this(strategy, 0);
+    }
+
+    /**
+     * Constructs a new CampusMap that finds routes with the given search algorithm and keeps up
+     * to cacheSize of the most recently requested routes
+     * @param strategy the search algorithm used by findShortestPath
+     * @param cacheSize the most routes to cache, or 0 to not cache routes
+     * @throws IllegalArgumentException if strategy is null or cacheSize is negative
+     */
+    public CampusMap(RouteStrategy strategy, int cacheSize) {
+        if(strategy == null) {
+            throw new IllegalArgumentException("Route strategy cannot be null");
+        }
+        if(cacheSize < 0) {
+            throw new IllegalArgumentException("Cache size cannot be negative");
+        }
+        this.strategy = strategy;
+        this.cacheSize = cacheSize;
+        this.retiredSettled = new LongAdder();
         shortToLong = new HashMap<>();
         shortToCoords = new HashMap<>();
-        campusGraph = new Graph<>();
-        checkRep();
+        shortToId = new HashMap<>();
         makeGraph();
     }
 
     /**
-     * Makes a new graph using the data of the campus_buildings and campus_paths files
+     * Makes a new graph using the data of the campus_buildings and campus_paths files. If the
+     * system property GRAPH_IMAGE_PROPERTY names a binary image built from the current files,
+     * the image is memory-mapped instead of parsing the files. If OFF_HEAP_PROPERTY is "true",
+     * the graph's edges are kept off the heap, read straight out of the image when there is one
      */
     public void makeGraph() {
-        List<CampusBuilding> campusBuildings = new ArrayList<>(CampusPathsParser.parseCampusBuildings("campus_buildings.csv"));
-        List<CampusPath> campusPaths = new ArrayList<>(CampusPathsParser.parseCampusPaths("campus_paths.csv"));
-        for(CampusBuilding target: campusBuildings) {
-            this.shortToLong.put(target.getShortName(), target.getLongName());
-            Point begin = new Point(target.getX(), target.getY());
-            this.shortToCoords.put(target.getShortName(), begin);
+        CampusGraphImage data = null;
+        boolean offHeap = Boolean.getBoolean(OFF_HEAP_PROPERTY);
+        String imageFile = System.getProperty(GRAPH_IMAGE_PROPERTY);
+        if(imageFile != null) {
+            long checksum = CampusGraphImage.checksum("campus_buildings.csv", "campus_paths.csv");
+            data = CampusGraphImage.read(new File(imageFile), checksum, offHeap);
+        }
+        if(data == null) {
+            data = CampusGraphImage.fromCsv("campus_buildings.csv", "campus_paths.csv");
+        }
+        this.shortToLong.putAll(data.getShortToLong());
+        this.shortToCoords.putAll(data.getShortToCoords());
+        FrozenGraph<Point> frozenGraph = offHeap ? data.getGraph().offHeap() : data.getGraph();
+        //Look every building up once, so route queries work with node ids alone. Nodes are never
+        //removed from the live graph, so the ids hold in every version
+        for(Map.Entry<String, Point> building: this.shortToCoords.entrySet()) {
+            int id = frozenGraph.idOf(building.getValue());
+            if(id >= 0) {
+                this.shortToId.put(building.getKey(), id);
+            }
+        }
+        this.liveGraph = new LiveGraph<>(frozenGraph);
+        this.routing = new Routing(this.liveGraph.current(), null);
+        if(this.cacheSize > 0) {
+            this.routeCache = new RouteCache<>(this.cacheSize, frozenGraph.isSymmetric());
         }
         checkRep();
-        for(CampusPath targetPath: campusPaths) {
-            Point begin = new Point(targetPath.getX1(), targetPath.getY1());
-            Point end = new Point(targetPath.getX2(), targetPath.getY2());
-            this.campusGraph.insertNode(begin);
-            this.campusGraph.insertNode(end);
-            this.campusGraph.insertEdge(targetPath.getDistance(), begin, end);
+    }
+
+    /**
+     * Changes the campus paths while routes are being found, without a restart, such as to close
+     * a path or a building entrance for construction or to add a detour. The changes are made as
+     * one batch through the editor passed to changes, then published together as a new version
+     * of the campus graph: route queries already running finish against the version they
+     * started with, and every query after this returns sees the new one. Cached routes from older
+     * versions are no longer returned. Nodes are never removed, only disabled, and campus paths
+     * run both ways, so closing a path means removing the edge in each direction.
+     * <p>
+     * Publishing copies the whole graph and rebuilds the route strategy's preprocessing, so
+     * changes should be batched; updates are made one at a time.
+     *
+     * @param changes Makes the changes, through the LiveGraph editor it is given.
+     * @return The number of the new version of the campus graph.
+     * @throws IllegalArgumentException if changes is {@literal null}, or passes on any exception
+     *                                  thrown by changes, in which case the changes it finished
+     *                                  before throwing are still published.
+     */
+    public synchronized long updatePaths(Consumer<? super LiveGraph<Point>.Editor> changes) {
+        checkRep();
+        try {
+            liveGraph.update(changes);
+        } finally {
+            GraphVersion<Point> version = liveGraph.current();
+            if(version != routing.version) {
+                Routing retired = routing;
+                routing = new Routing(version, retired);
+                retiredSettled.add(retired.routeEngine.settledCount());
+            }
         }
         checkRep();
+        return routing.version.getNumber();
+    }
+
+    /**
+     * Gets the version of the campus graph that route queries are currently answered against
+     * @return the current version of the campus graph, whose number counts the updates made
+     */
+    public GraphVersion<Point> getGraphVersion() {
+        return routing.version;
     }
 
     @Override
@@ -108,14 +249,329 @@ public class CampusMap implements ModelAPI {
     @Override
     public Path<Point> findShortestPath(String startShortName, String endShortName) {
         checkRep();
-        Point start = shortToCoords.get(startShortName);
-        Point end = shortToCoords.get(endShortName);
-        if(startShortName.equals(null) || endShortName.equals(null) || !(campusGraph.containsNode(start))||
-                !(campusGraph.containsNode(end))) {
+        Integer start = shortToId.get(startShortName);
+        Integer end = shortToId.get(endShortName);
+        if(start == null || end == null) {
+            throw new IllegalArgumentException();
+        }
+        checkRep();
+        Routing current = routing;
+        if(routeCache == null) {
+            return current.routeEngine.shortestPathById(start, end);
+        }
+        return routeCache.get(start, end, current.version, current.routeEngine::shortestPathById);
+    }
+
+    /**
+     * Finds up to k routes, by distance, between two buildings: the shortest path first, then
+     * the next shortest alternatives that never pass through the same point twice. Routes are
+     * not cached.
+     *
+     * @param startShortName The short name of the building at the beginning of every route.
+     * @param endShortName   The short name of the building at the end of every route.
+     * @param k              The most routes to find.
+     * @return Up to k routes from the start building to the end building in increasing order of
+     * length, fewer if there are not k, or an empty list if the buildings are not connected.
+     * @throws IllegalArgumentException if either short name is {@literal null} or not a valid
+     *                                  short name of a building on the campus paths, or k is negative.
+     */
+    public List<Path<Point>> findAlternativeRoutes(String startShortName, String endShortName, int k) {
+        checkRep();
+        Integer start = shortToId.get(startShortName);
+        Integer end = shortToId.get(endShortName);
+        if(start == null || end == null) {
+            throw new IllegalArgumentException();
+        }
+        return routing.alternatives.shortestPathsById(start, end, k);
+    }
+
+    /**
+     * Finds the routes between two buildings that trade distance against penalty, the extra cost
+     * the campus paths file gives path segments such as stairs or steep climbs: every route for
+     * which no other route is shorter without having more penalty, or has less penalty without
+     * being longer. Routes with the same distance and penalty are only returned once. Routes are
+     * not cached.
+     *
+     * @param startShortName The short name of the building at the beginning of every route.
+     * @param endShortName   The short name of the building at the end of every route.
+     * @return The routes from the start building to the end building, shortest (and so with the
+     * most penalty) first, or an empty list if the buildings are not connected. Without any
+     * penalties, this is just a shortest path.
+     * @throws IllegalArgumentException if either short name is {@literal null} or not a valid
+     *                                  short name of a building on the campus paths.
+     */
+    public List<ParetoRoute<Point>> findAccessibleRoutes(String startShortName, String endShortName) {
+        checkRep();
+        Integer start = shortToId.get(startShortName);
+        Integer end = shortToId.get(endShortName);
+        if(start == null || end == null) {
+            throw new IllegalArgumentException();
+        }
+        return routing.multiCriteria.paretoRoutesById(start, end);
+    }
+
+    /**
+     * Finds the route between two buildings of least distance plus a multiple of its penalty,
+     * such as a route that would rather walk a few hundred feet further than take a flight of
+     * stairs. Routes are not cached.
+     *
+     * @param startShortName The short name of the building at the beginning of the route.
+     * @param endShortName   The short name of the building at the end of the route.
+     * @param penaltyWeight  How many feet of walking one unit of penalty is worth, where 0 finds
+     *                       a shortest path.
+     * @return The route from the start building to the end building of least distance plus
+     * {@code penaltyWeight} times its penalty, or {@literal null} if none exists.
+     * @throws IllegalArgumentException if either short name is {@literal null} or not a valid
+     *                                  short name of a building on the campus paths, or
+     *                                  penaltyWeight is negative, infinite, or NaN.
+     */
+    public ParetoRoute<Point> findWeightedRoute(String startShortName, String endShortName, double penaltyWeight) {
+        checkRep();
+        Integer start = shortToId.get(startShortName);
+        Integer end = shortToId.get(endShortName);
+        if(start == null || end == null) {
+            throw new IllegalArgumentException();
+        }
+        return routing.multiCriteria.weightedRouteById(start, end, penaltyWeight);
+    }
+
+    /**
+     * Finds the shortest path, by distance, between two arbitrary locations (such as a phone's
+     * position). Each location is snapped to the nearest point on an open campus path, so the
+     * returned path runs between those two points. Points whose paths have all been closed, such
+     * as disabled entrances, are never snapped to.
+     *
+     * @param start The location at the beginning of this path.
+     * @param end   The location at the end of this path.
+     * @return A path between the open campus path points nearest {@code start} and {@code end},
+     * or {@literal null} if none exists.
+     * @throws IllegalArgumentException if {@code start} or {@code end} are {@literal null}, or
+     *                                  have a coordinate that is NaN or infinite.
+     */
+    public Path<Point> findShortestPath(Point start, Point end) {
+        checkRep();
+        if(start == null || end == null) {
+            throw new IllegalArgumentException();
+        }
+        Routing current = routing;
+        Point from = current.nodeIndex.nearest(start.getX(), start.getY());
+        Point to = current.nodeIndex.nearest(end.getX(), end.getY());
+        if(from == null || to == null) {
+            //Every campus path is closed
+            return null;
+        }
+        return current.routeEngine.shortestPath(from, to);
+    }
+
+    /**
+     * Finds the point on an open campus path closest to a location, by straight-line distance.
+     * Points whose paths have all been closed are left out.
+     *
+     * @param location The location to snap to the campus paths.
+     * @return The point of the campus graph with an open path nearest to {@code location}, or
+     * {@literal null} if every path is closed.
+     * @throws IllegalArgumentException if {@code location} is {@literal null} or has a coordinate
+     *                                  that is NaN or infinite.
+     */
+    public Point nearestNode(Point location) {
+        if(location == null) {
+            throw new IllegalArgumentException();
+        }
+        return routing.nodeIndex.nearest(location.getX(), location.getY());
+    }
+
+    /**
+     * Finds every point on an open campus path within a straight-line distance of a location.
+     *
+     * @param location The center of the search.
+     * @param radius   The largest distance from {@code location} to include.
+     * @return A list of the points of the campus graph within {@code radius} of {@code location}.
+     * @throws IllegalArgumentException if {@code location} is {@literal null} or has a coordinate
+     *                                  that is NaN or infinite, or {@code radius} is negative.
+     */
+    public List<Point> nodesWithin(Point location, double radius) {
+        if(location == null) {
+            throw new IllegalArgumentException();
+        }
+        return routing.nodeIndex.withinRadius(location.getX(), location.getY(), radius);
+    }
+
+    /**
+     * Finds the shortest path, by distance, from one building to each of several others. The
+     * whole batch is answered with a single search from the start building, which stops as soon
+     * as every end building has been reached.
+     *
+     * @param startShortName The short name of the building at the beginning of every path.
+     * @param endShortNames  The short names of the buildings at the ends of the paths.
+     * @return A map from each end building's short name to the path to it from the start
+     * building, or to {@literal null} if none exists.
+     * @throws IllegalArgumentException if any of the short names are {@literal null}, or not
+     *                                  valid short names of buildings in this campus map.
+     */
+    public Map<String, Path<Point>> findShortestPaths(String startShortName, Collection<String> endShortNames) {
+        checkRep();
+        if(endShortNames == null) {
+            throw new IllegalArgumentException();
+        }
+        Routing current = routing;
+        Point start = coordsOf(current, startShortName);
+        List<Point> ends = new ArrayList<>();
+        for(String endShortName: endShortNames) {
+            ends.add(coordsOf(current, endShortName));
+        }
+        Map<Point, Path<Point>> paths = current.treeEngine.shortestPaths(start, ends);
+        Map<String, Path<Point>> result = new HashMap<>();
+        for(String endShortName: endShortNames) {
+            result.put(endShortName, paths.get(shortToCoords.get(endShortName)));
+        }
+        checkRep();
+        return result;
+    }
+
+    /**
+     * Finds the shortest path, by distance, between every pair of buildings in a batch, such as
+     * for an analytics job routing millions of pairs. Pairs sharing a start building are answered
+     * together by a single search, and the searches run in parallel on the common fork-join pool,
+     * only a few ahead of the caller, so the caller never holds every path at once. Routes are
+     * not cached.
+     *
+     * @param pairs The queries, each the short name of a start building mapped to the short name
+     *              of an end building.
+     * @return A stream of one result per pair, grouped by start building, which should be closed
+     * if it is not consumed to the end. A result's path is {@literal null} if none exists.
+     * @throws IllegalArgumentException if pairs is {@literal null}, or any short name is
+     *                                  {@literal null} or not a building on the campus paths.
+     */
+    public Stream<RouteResult<String, Point>> findShortestPaths(Stream<? extends Map.Entry<String, String>> pairs) {
+        checkRep();
+        return routing.batchRouter.shortestPaths(pairs, shortName -> shortToId.getOrDefault(shortName, -1));
+    }
+
+    /**
+     * Finds the k buildings closest to a start building by walking distance, nearest first.
+     * A single search grows out from the start building and stops as soon as k other buildings
+     * have been reached, so only the part of campus nearer than the k-th building is explored.
+     * Buildings at the same location as the start building are not counted.
+     *
+     * @param startShortName The short name of the building to search from.
+     * @param k              The number of buildings to find.
+     * @return A map from the short names of the (at most) k nearest reachable buildings to the
+     * path to each from the start building, iterating from nearest to farthest.
+     * @throws IllegalArgumentException if startShortName is {@literal null} or not a valid short
+     *                                  name of a building in this campus map, or k is negative.
+     */
+    public Map<String, Path<Point>> findNearestBuildings(String startShortName, int k) {
+        checkRep();
+        Routing current = routing;
+        Point start = coordsOf(current, startShortName);
+        if(k < 0) {
             throw new IllegalArgumentException();
         }
+        Map<Point, List<String>> namesAt = new HashMap<>();
+        for(Map.Entry<String, Point> building: shortToCoords.entrySet()) {
+            Point coords = building.getValue();
+            if(!coords.equals(start) && current.graph.containsNode(coords)) {
+                namesAt.computeIfAbsent(coords, c -> new ArrayList<>()).add(building.getKey());
+            }
+        }
+        //Settling k building locations always reaches at least k buildings
+        ShortestPathTree<Point> tree = current.treeEngine.shortestPathTree(start, namesAt.keySet(), k);
+        List<Point> reached = new ArrayList<>();
+        for(Point coords: namesAt.keySet()) {
+            if(tree.reaches(coords)) {
+                reached.add(coords);
+            }
+        }
+        reached.sort(Comparator.comparingDouble(tree::distanceTo));
+        Map<String, Path<Point>> nearest = new LinkedHashMap<>();
+        for(Point coords: reached) {
+            Path<Point> path = tree.pathTo(coords);
+            List<String> names = namesAt.get(coords);
+            Collections.sort(names);
+            for(String name: names) {
+                if(nearest.size() < k) {
+                    nearest.put(name, path);
+                }
+            }
+        }
         checkRep();
-        return Pathfinder.leastCostPath(campusGraph,start,end);
+        return nearest;
+    }
+
+    /**
+     * Finds every point on the campus paths within a walking distance of a building, such as
+     * for drawing the area reachable in a few minutes. A single search grows out from the
+     * building and never goes past the distance budget, so only the reachable part of campus is
+     * explored.
+     *
+     * @param startShortName The short name of the building to search from.
+     * @param maxDistance    The farthest a reached point may be from the building, along the paths.
+     * @return Every point reachable from the building within {@code maxDistance}, with its walking
+     * distance, nearest first.
+     * @throws IllegalArgumentException if startShortName is {@literal null} or not a valid short
+     *                                  name of a building in this campus map, or maxDistance is
+     *                                  negative or NaN.
+     */
+    public ReachableSet<Point> findReachable(String startShortName, double maxDistance) {
+        checkRep();
+        Routing current = routing;
+        return current.treeEngine.reachableWithin(coordsOf(current, startShortName), maxDistance);
+    }
+
+    /**
+     * Finds every point on the campus paths within a walking time of a building, walking
+     * {@link #WALKING_FEET_PER_MINUTE} feet a minute.
+     *
+     * @param startShortName The short name of the building to search from.
+     * @param minutes        The longest a walk to a reached point may take.
+     * @return Every point reachable from the building within {@code minutes}, with its walking
+     * distance, nearest first.
+     * @throws IllegalArgumentException if startShortName is {@literal null} or not a valid short
+     *                                  name of a building in this campus map, or minutes is
+     *                                  negative or NaN.
+     */
+    public ReachableSet<Point> findReachableInMinutes(String startShortName, double minutes) {
+        return findReachable(startShortName, minutes * WALKING_FEET_PER_MINUTE);
+    }
+
+    /**
+     * Looks up the location of a building on the campus graph
+     * @param current the routing of the version of the campus graph to look in
+     * @param shortName the short name of the building
+     * @return the node of the campus graph at the building
+     * @throws IllegalArgumentException if shortName is null, not a building, or not on the campus graph
+     */
+    private Point coordsOf(Routing current, String shortName) {
+        Point coords = shortName == null ? null : shortToCoords.get(shortName);
+        if(coords == null || !current.graph.containsNode(coords)) {
+            throw new IllegalArgumentException();
+        }
+        return coords;
+    }
+
+    /**
+     * Gets the search algorithm route queries are answered with
+     * @return the route strategy of this
+     */
+    public RouteStrategy getRouteStrategy() {
+        return strategy;
+    }
+
+    /**
+     * Gets the total number of nodes settled by every route query answered so far, for
+     * comparing how much of the campus different route strategies explore
+     * @return the number of nodes settled by findShortestPath, over every version of the campus graph
+     */
+    public long settledCount() {
+        return retiredSettled.sum() + routing.routeEngine.settledCount();
+    }
+
+    /**
+     * Gets the cache of recently found routes, whose counters show how often it is hit
+     * @return the route cache of this, or null if this does not cache routes
+     */
+    public RouteCache<Point> getRouteCache() {
+        return routeCache;
     }
 
     /**
@@ -126,20 +582,120 @@ public class CampusMap implements ModelAPI {
         if(onOFF) {
             assert shortToLong != null;
             assert shortToCoords != null;
-            assert campusGraph != null;
+            assert shortToId != null;
+            assert liveGraph != null && routing != null;
+            Routing current = routing;
+            FrozenGraph<Point> frozenGraph = current.graph;
+            assert current.version.getNumber() <= liveGraph.current().getNumber();
+            int open = 0;
+            for (boolean connected : current.open) {
+                open += connected ? 1 : 0;
+            }
+            assert current.nodeIndex.size() == open && current.open.length == frozenGraph.sizeNodes();
+            assert strategy != null;
+            assert current.routeEngine != null;
+            assert current.treeEngine != null;
+            assert current.batchRouter != null;
+            assert (cacheSize == 0) == (routeCache == null);
             for (String node : shortToLong.keySet()) {
                 assert node != null;
             }
             for (String node : shortToCoords.keySet()) {
                 assert node != null;
             }
-            for (Point node : campusGraph.getNodeList()) {
-                assert node != null;
-                for(Edge<Double, Point, Point> e: campusGraph.getEdgeList(node)) {
-                    assert e != null;
+            for (Map.Entry<String, Integer> building : shortToId.entrySet()) {
+                assert frozenGraph.nodeAt(building.getValue()).equals(shortToCoords.get(building.getKey()));
+            }
+            for (int u = 0; u < frozenGraph.sizeNodes(); u++) {
+                assert frozenGraph.nodeAt(u) != null;
+            }
+        }
+    }
+
+    /**
+     * Finds the nodes of a graph that have at least one edge into or out of them
+     * @param graph the graph to look through
+     * @return an array marking, by id, every node of graph with an edge into or out of it
+     */
+    private static boolean[] openNodes(FrozenGraph<Point> graph) {
+        boolean[] open = new boolean[graph.sizeNodes()];
+        for(int u = 0; u < open.length; u++) {
+            if(graph.firstEdge(u) < graph.endEdge(u)) {
+                open[u] = true;
+            }
+            for(int e = graph.firstEdge(u); e < graph.endEdge(u); e++) {
+                open[graph.target(e)] = true;
+            }
+        }
+        return open;
+    }
+
+    /**
+     * Everything route queries are answered with for one version of the campus graph. A new
+     * Routing is built for every version, so queries never see engines from two versions.
+     */
+    private final class Routing {
+
+        //The version of the campus graph this answers queries against
+        private final GraphVersion<Point> version;
+
+        //The snapshot of the campus graph in version
+        private final FrozenGraph<Point> graph;
+
+        //Marks the nodes of graph with at least one edge into or out of them, indexed by id. A
+        //disabled node, or one whose paths have all been closed, has none
+        private final boolean[] open;
+
+        //A spatial index over the open nodes of graph, for snapping locations to the graph
+        private final PointIndex nodeIndex;
+
+        //Answers route queries against graph
+        private final RouteEngine<Point> routeEngine;
+
+        //Answers queries from one building to many against graph
+        private final DijkstraEngine<Point> treeEngine;
+
+        //Answers large batches of queries between buildings in parallel on the common fork-join pool
+        private final BatchRouter<Point> batchRouter;
+
+        //Answers queries for several alternative routes against graph
+        private final KShortestPaths<Point> alternatives;
+
+        //Answers queries for routes weighing distance against penalty against graph
+        private final ParetoRouter<Point> multiCriteria;
+
+        /**
+         * Builds the engines for a version of the campus graph
+         * @param version the version to answer queries against
+         * @param previous the routing of the version before, whose node index is reused if the
+         *                 same nodes are open in both versions and whose route engine is updated rather than
+         *                 rebuilt where the strategy allows, or null if there is none
+         */
+        private Routing(GraphVersion<Point> version, Routing previous) {
+            this.version = version;
+            this.graph = version.getGraph();
+            this.open = openNodes(this.graph);
+            if(previous != null && Arrays.equals(previous.open, this.open)) {
+                this.nodeIndex = previous.nodeIndex;
+            } else {
+                List<Point> points = new ArrayList<>();
+                for(int u = 0; u < this.open.length; u++) {
+                    if(this.open[u]) {
+                        points.add(this.graph.nodeAt(u));
+                    }
                 }
+                this.nodeIndex = new PointIndex(points);
+            }
+            if(previous != null) {
+                this.routeEngine = strategy.updateEngine(previous.routeEngine, this.graph, shortToCoords.values());
+            } else {
+                this.routeEngine = strategy.createEngine(this.graph, shortToCoords.values());
             }
+            this.treeEngine = new DijkstraEngine<>(this.graph);
+            this.batchRouter = new BatchRouter<>(this.graph, ForkJoinPool.commonPool());
+            this.alternatives = new KShortestPaths<>(this.graph);
+            this.multiCriteria = new ParetoRouter<>(this.graph);
         }
     }
 
-}
\ No newline at end of file
+}
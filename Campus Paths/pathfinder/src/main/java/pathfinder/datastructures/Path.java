@@ -91,6 +91,41 @@ public class Path<V> implements Iterable<Path<V>.Segment> {
         return extendedPath;
     }
 
+    /**
+     * Appends several segments to the end of this path at once, the i-th one terminating at
+     * {@code newEnds.get(i)} with a cost of {@code segmentCosts[i]}. The returned Path is equal
+     * to the one built by calling {@link #extend(Object, double)} once per segment, in order,
+     * but the segments of this path are copied once rather than once per new segment.
+     *
+     * @param newEnds      The values being added at the ends of the segments, in order.
+     * @param segmentCosts The costs of the segments being added, in order.
+     * @return A new path representing the current path with the given segments appended to the end.
+     * @throws IllegalArgumentException if {@code newEnds} and {@code segmentCosts} differ in length.
+     */
+    public Path<V> extend(List<? extends V> newEnds, double[] segmentCosts) {
+        checkRep();
+        if(newEnds.size() != segmentCosts.length) {
+            throw new IllegalArgumentException("Every new segment needs exactly one cost.");
+        }
+        //
+        Path<V> extendedPath = new Path<V>(start);
+        extendedPath.path = new ArrayList<>(this.path.size() + newEnds.size());
+        extendedPath.path.addAll(this.path);
+        extendedPath.cost = this.cost;
+        V end = this.getEnd();
+        for(int i = 0; i < segmentCosts.length; i++) {
+            V newEnd = newEnds.get(i);
+            extendedPath.path.add(new Segment(end, newEnd, segmentCosts[i]));
+            extendedPath.cost += segmentCosts[i];
+            end = newEnd;
+        }
+        //
+        extendedPath.checkRep();
+        checkRep();
+        //
+        return extendedPath;
+    }
+
     /**
      * @return The total cost along this path.
      */
@@ -0,0 +1,234 @@
+package pathfinder.datastructures;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * This represents an immutable spatial index (a 2-d tree) over a fixed set of points, supporting
+ * nearest-neighbor and radius queries in logarithmic expected time instead of a linear scan.
+ */
+public class PointIndex {
+
+    // AF(this) =
+    //      the indexed points => points[0] ... points[points.length - 1]
+    //      the tree over them => the implicit tree over points[lo, hi), whose root is points[(lo + hi) / 2],
+    //          whose left subtree is points[lo, mid) and right subtree is points[mid + 1, hi), split on x
+    //          at even depths and on y at odd depths
+
+    // Rep Invariant:
+    //      points != null &&
+    //      points does not contain null elements &&
+    //      for every subtree rooted at mid with split coordinate c, every point in the left subtree has
+    //          c no greater than points[mid], and every point in the right subtree has c no less
+
+    /**
+     * The indexed points, laid out as an implicit 2-d tree.
+     */
+    private final Point[] points;
+
+    /**
+     * Creates a new index over the given points.
+     *
+     * @param points The points to index.
+     * @throws IllegalArgumentException if points is null or contains null.
+     */
+    public PointIndex(Collection<Point> points) {
+        if(points == null) {
+            throw new IllegalArgumentException("Points cannot be null.");
+        }
+        this.points = points.toArray(new Point[0]);
+        for(Point point : this.points) {
+            if(point == null) {
+                throw new IllegalArgumentException("Points cannot contain null.");
+            }
+        }
+        build(0, this.points.length, 0);
+    }
+
+    /**
+     * @return The number of points in this index.
+     */
+    public int size() {
+        return points.length;
+    }
+
+    /**
+     * Finds the indexed point closest to the given location, by straight-line distance.
+     *
+     * @param x The x coordinate of the location.
+     * @param y The y coordinate of the location.
+     * @return The closest indexed point, or {@literal null} if this index is empty.
+     * @throws IllegalArgumentException if x or y is NaN or infinite.
+     */
+    public Point nearest(double x, double y) {
+        checkFinite(x, y);
+        if(points.length == 0) {
+            return null;
+        }
+        Nearest best = new Nearest();
+        nearest(0, points.length, 0, x, y, best);
+        return points[best.index];
+    }
+
+    /**
+     * Finds every indexed point within a given straight-line distance of a location.
+     *
+     * @param x      The x coordinate of the location.
+     * @param y      The y coordinate of the location.
+     * @param radius The largest distance from the location to include.
+     * @return A new list of every indexed point no farther than radius from the location, in no
+     * particular order.
+     * @throws IllegalArgumentException if x or y is NaN or infinite, or radius is negative or NaN.
+     */
+    public List<Point> withinRadius(double x, double y, double radius) {
+        checkFinite(x, y);
+        if(!(radius >= 0)) {
+            throw new IllegalArgumentException("Radius must be non-negative.");
+        }
+        List<Point> found = new ArrayList<>();
+        withinRadius(0, points.length, 0, x, y, radius * radius, radius, found);
+        return found;
+    }
+
+    /**
+     * Arranges points[lo, hi) into a subtree at the given depth.
+     */
+    private void build(int lo, int hi, int depth) {
+        if(hi - lo <= 1) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        select(lo, hi - 1, mid, depth % 2 == 0);
+        build(lo, mid, depth + 1);
+        build(mid + 1, hi, depth + 1);
+    }
+
+    /**
+     * Partially sorts points[lo, hi] so that points[k] holds the point that would be there if the
+     * range were sorted by the split coordinate, with no larger values before it and no smaller after.
+     */
+    private void select(int lo, int hi, int k, boolean byX) {
+        while(lo < hi) {
+            double pivot = coordinate(points[(lo + hi) >>> 1], byX);
+            int i = lo;
+            int j = hi;
+            while(i <= j) {
+                while(coordinate(points[i], byX) < pivot) {
+                    i++;
+                }
+                while(coordinate(points[j], byX) > pivot) {
+                    j--;
+                }
+                if(i <= j) {
+                    Point swap = points[i];
+                    points[i] = points[j];
+                    points[j] = swap;
+                    i++;
+                    j--;
+                }
+            }
+            if(k <= j) {
+                hi = j;
+            } else if(k >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Searches the subtree over points[lo, hi) for a point closer than best.
+     */
+    private void nearest(int lo, int hi, int depth, double x, double y, Nearest best) {
+        if(lo >= hi) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        Point point = points[mid];
+        double dx = point.getX() - x;
+        double dy = point.getY() - y;
+        double distance = dx * dx + dy * dy;
+        //Far enough away, every squared distance overflows to infinity and none is less than the
+        //best so far, so the first point visited is taken to have something to return
+        if(best.index < 0 || distance < best.distance) {
+            best.distance = distance;
+            best.index = mid;
+        }
+        double diff = depth % 2 == 0 ? x - point.getX() : y - point.getY();
+        //Search the side of the split holding the location first, then the other side only if the
+        //split line is closer than the best point found so far
+        if(diff < 0) {
+            nearest(lo, mid, depth + 1, x, y, best);
+            if(diff * diff < best.distance) {
+                nearest(mid + 1, hi, depth + 1, x, y, best);
+            }
+        } else {
+            nearest(mid + 1, hi, depth + 1, x, y, best);
+            if(diff * diff < best.distance) {
+                nearest(lo, mid, depth + 1, x, y, best);
+            }
+        }
+    }
+
+    /**
+     * Adds every point of the subtree over points[lo, hi) within radius of the location to found.
+     */
+    private void withinRadius(int lo, int hi, int depth, double x, double y, double radiusSquared,
+                              double radius, List<Point> found) {
+        if(lo >= hi) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        Point point = points[mid];
+        double dx = point.getX() - x;
+        double dy = point.getY() - y;
+        if(dx * dx + dy * dy <= radiusSquared) {
+            found.add(point);
+        }
+        double diff = depth % 2 == 0 ? x - point.getX() : y - point.getY();
+        if(diff - radius <= 0) {
+            withinRadius(lo, mid, depth + 1, x, y, radiusSquared, radius, found);
+        }
+        if(diff + radius >= 0) {
+            withinRadius(mid + 1, hi, depth + 1, x, y, radiusSquared, radius, found);
+        }
+    }
+
+    /**
+     * Throws an exception if a location has a coordinate that no distance can be measured from.
+     *
+     * @param x The x coordinate of the location.
+     * @param y The y coordinate of the location.
+     * @throws IllegalArgumentException if x or y is NaN or infinite.
+     */
+    private static void checkFinite(double x, double y) {
+        if(!Double.isFinite(x) || !Double.isFinite(y)) {
+            throw new IllegalArgumentException("Coordinates must be finite numbers.");
+        }
+    }
+
+    /**
+     * @return The x coordinate of point if byX, otherwise its y coordinate.
+     */
+    private static double coordinate(Point point, boolean byX) {
+        return byX ? point.getX() : point.getY();
+    }
+
+    /**
+     * The best candidate found so far by a nearest-neighbor search.
+     */
+    private static class Nearest {
+
+        /**
+         * The position in points of the closest point found so far.
+         */
+        private int index = -1;
+
+        /**
+         * The squared distance to the closest point found so far.
+         */
+        private double distance = Double.POSITIVE_INFINITY;
+    }
+}
@@ -0,0 +1,356 @@
+package pathfinder.parser;
+
+import graph.FrozenGraph;
+import pathfinder.datastructures.Point;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * This represents the immutable, fully loaded campus data: the frozen path graph and the
+ * building tables. It can be built by parsing the campus buildings and paths files, or loaded
+ * from a compact binary image of the same data, which is memory-mapped and copied straight into
+ * the graph's arrays with no parsing. Each image records a checksum of the files it was built
+ * from, so an image left over from older data is never used.
+ * <p>
+ * Run {@link #main(String[])} at build time to produce the image.
+ */
+public class CampusGraphImage {
+
+    /**
+     * The first four bytes of every image, "CPGI".
+     */
+    private static final int MAGIC = 0x43504749;
+
+    /**
+     * The version of the image layout, bumped whenever the layout changes.
+     */
+    private static final int VERSION = 2;
+
+    /**
+     * The path graph, with each edge costing its distance and carrying its penalty.
+     */
+    private final FrozenGraph<Point> graph;
+
+    /**
+     * Maps each building's short name to its long name.
+     */
+    private final Map<String, String> shortToLong;
+
+    /**
+     * Maps each building's short name to its location.
+     */
+    private final Map<String, Point> shortToCoords;
+
+    /**
+     * Creates a new CampusGraphImage holding the given data.
+     *
+     * @param graph         The path graph.
+     * @param shortToLong   The long name of each building.
+     * @param shortToCoords The location of each building.
+     */
+    private CampusGraphImage(FrozenGraph<Point> graph, Map<String, String> shortToLong,
+                             Map<String, Point> shortToCoords) {
+        this.graph = graph;
+        this.shortToLong = Collections.unmodifiableMap(shortToLong);
+        this.shortToCoords = Collections.unmodifiableMap(shortToCoords);
+    }
+
+    /**
+     * @return The path graph, with each edge costing its distance and carrying its penalty.
+     */
+    public FrozenGraph<Point> getGraph() {
+        return graph;
+    }
+
+    /**
+     * @return An unmodifiable map from each building's short name to its long name.
+     */
+    public Map<String, String> getShortToLong() {
+        return shortToLong;
+    }
+
+    /**
+     * @return An unmodifiable map from each building's short name to its location.
+     */
+    public Map<String, Point> getShortToCoords() {
+        return shortToCoords;
+    }
+
+    /**
+     * Builds the campus data by parsing the buildings and paths files (in src/main/resources/data/).
+     * The paths file, which holds nearly all of the data, is parsed in parallel.
+     *
+     * @param buildingsFile The simple filename of a campus buildings file to parse.
+     * @param pathsFile     The simple filename of a campus paths file to parse.
+     * @return The data held in the two files.
+     * @throws CampusPathsParser.ParserException if either file cannot be found or parsed as expected
+     */
+    public static CampusGraphImage fromCsv(String buildingsFile, String pathsFile) {
+        Map<String, String> shortToLong = new HashMap<>();
+        Map<String, Point> shortToCoords = new HashMap<>();
+        CampusPathsParser.streamCampusBuildings(buildingsFile, (shortName, longName, x, y) -> {
+            shortToLong.put(shortName, longName);
+            shortToCoords.put(shortName, new Point(x, y));
+        });
+        FrozenGraph<Point> graph = ParallelPathsLoader.loadCampusPaths(pathsFile);
+        return new CampusGraphImage(graph, shortToLong, shortToCoords);
+    }
+
+    /**
+     * Computes the checksum recorded in an image built from the given files, which changes
+     * whenever either file's contents (or the image layout) change.
+     *
+     * @param buildingsFile The simple filename of a campus buildings file.
+     * @param pathsFile     The simple filename of a campus paths file.
+     * @return The checksum of the two files.
+     * @throws CampusPathsParser.ParserException if either file cannot be found or read
+     */
+    public static long checksum(String buildingsFile, String pathsFile) {
+        CRC32 crc = new CRC32();
+        crc.update(VERSION);
+        byte[] buffer = new byte[1 << 16];
+        for (String file : new String[] {buildingsFile, pathsFile}) {
+            try (InputStream stream = CampusPathsParser.openStream(file)) {
+                int read;
+                while ((read = stream.read(buffer)) > 0) {
+                    crc.update(buffer, 0, read);
+                }
+            } catch (IOException e) {
+                throw new CampusPathsParser.ParserException("Cannot read file: " + file, e);
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Writes this data to a binary image file.
+     *
+     * @param file     The file to write, which is replaced if it exists.
+     * @param checksum The checksum of the files this data was built from.
+     * @throws IOException if the file cannot be written
+     */
+    public void write(File file, long checksum) throws IOException {
+        int size = graph.sizeNodes();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(checksum);
+            out.writeInt(size);
+            out.writeInt(graph.sizeEdges());
+            out.writeInt(shortToLong.size());
+            for (int u = 0; u < size; u++) {
+                out.writeDouble(graph.nodeAt(u).getX());
+            }
+            for (int u = 0; u < size; u++) {
+                out.writeDouble(graph.nodeAt(u).getY());
+            }
+            for (int u = 0; u < size; u++) {
+                out.writeInt(graph.firstEdge(u));
+            }
+            out.writeInt(graph.sizeEdges());
+            for (int e = 0; e < graph.sizeEdges(); e++) {
+                out.writeInt(graph.target(e));
+            }
+            for (int e = 0; e < graph.sizeEdges(); e++) {
+                out.writeDouble(graph.weight(e));
+            }
+            out.writeBoolean(graph.hasPenalties());
+            if (graph.hasPenalties()) {
+                for (int e = 0; e < graph.sizeEdges(); e++) {
+                    out.writeDouble(graph.penalty(e));
+                }
+            }
+            for (Map.Entry<String, String> building : shortToLong.entrySet()) {
+                Point coords = shortToCoords.get(building.getKey());
+                writeString(out, building.getKey());
+                writeString(out, building.getValue());
+                out.writeDouble(coords.getX());
+                out.writeDouble(coords.getY());
+            }
+        }
+    }
+
+    /**
+     * Loads campus data from a binary image file by memory-mapping it, copying the graph's edges
+     * onto the heap.
+     *
+     * @param file             The image file to load.
+     * @param expectedChecksum The checksum of the current buildings and paths files.
+     * @return The data held in the image, or {@literal null} if the file is missing, unreadable,
+     * not an image of the current layout, or built from files with a different checksum, in
+     * which case the caller should parse the files instead.
+     */
+    public static CampusGraphImage read(File file, long expectedChecksum) {
+        return read(file, expectedChecksum, false);
+    }
+
+    /**
+     * Loads campus data from a binary image file by memory-mapping it.
+     *
+     * @param file             The image file to load.
+     * @param expectedChecksum The checksum of the current buildings and paths files.
+     * @param offHeap          Whether the graph should read its edges straight out of the mapped
+     *                         file, keeping them off the heap, instead of copying them onto it.
+     * @return The data held in the image, or {@literal null} if the file is missing, unreadable,
+     * not an image of the current layout, or built from files with a different checksum, in
+     * which case the caller should parse the files instead.
+     */
+    public static CampusGraphImage read(File file, long expectedChecksum, boolean offHeap) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.getLong() != expectedChecksum) {
+                return null;
+            }
+            int size = buffer.getInt();
+            int edges = buffer.getInt();
+            int buildings = buffer.getInt();
+            //Each node has two coordinates and an offset, so a damaged count fails here instead of
+            //allocating arrays larger than the image could hold
+            checkCount(buffer, size, 2 * Double.BYTES + Integer.BYTES);
+            double[] xs = new double[size];
+            double[] ys = new double[size];
+            buffer.asDoubleBuffer().get(xs);
+            skip(buffer, Double.BYTES * size);
+            buffer.asDoubleBuffer().get(ys);
+            skip(buffer, Double.BYTES * size);
+            IntBuffer offsets = buffer.asIntBuffer().limit(size + 1);
+            skip(buffer, Integer.BYTES * (size + 1));
+            checkCount(buffer, edges, Integer.BYTES + Double.BYTES);
+            IntBuffer targets = buffer.asIntBuffer().limit(edges);
+            skip(buffer, Integer.BYTES * edges);
+            DoubleBuffer weights = buffer.asDoubleBuffer().limit(edges);
+            skip(buffer, Double.BYTES * edges);
+            DoubleBuffer penalties = null;
+            if (buffer.get() != 0) {
+                penalties = buffer.asDoubleBuffer().limit(edges);
+                skip(buffer, Double.BYTES * edges);
+            }
+            if (!offHeap) {
+                offsets = IntBuffer.wrap(toArray(offsets));
+                targets = IntBuffer.wrap(toArray(targets));
+                weights = DoubleBuffer.wrap(toArray(weights));
+                if (penalties != null) {
+                    penalties = DoubleBuffer.wrap(toArray(penalties));
+                }
+            }
+
+            List<Point> nodes = new ArrayList<>(size);
+            for (int u = 0; u < size; u++) {
+                nodes.add(new Point(xs[u], ys[u]));
+            }
+            Map<String, String> shortToLong = new HashMap<>();
+            Map<String, Point> shortToCoords = new HashMap<>();
+            //Each building has two string lengths and two coordinates
+            checkCount(buffer, buildings, 2 * Integer.BYTES + 2 * Double.BYTES);
+            for (int i = 0; i < buildings; i++) {
+                String shortName = readString(buffer);
+                String longName = readString(buffer);
+                shortToLong.put(shortName, longName);
+                shortToCoords.put(shortName, new Point(buffer.getDouble(), buffer.getDouble()));
+            }
+            return new CampusGraphImage(FrozenGraph.fromLayout(nodes, offsets, targets, weights, penalties),
+                                        shortToLong, shortToCoords);
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException | NegativeArraySizeException e) {
+            //A damaged image is treated like a missing one
+            return null;
+        }
+    }
+
+    /**
+     * Builds the campus data from the buildings and paths files and writes it as a binary image.
+     *
+     * @param args The path of the image file to write.
+     * @throws IOException if the image cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: CampusGraphImage <image file>");
+            System.exit(1);
+        }
+        CampusGraphImage image = fromCsv("campus_buildings.csv", "campus_paths.csv");
+        image.write(new File(args[0]), checksum("campus_buildings.csv", "campus_paths.csv"));
+    }
+
+    /**
+     * Checks that a count read from an image could describe data that fits in what is left of it.
+     *
+     * @param buffer    The image, positioned just before the data the count describes.
+     * @param count     The count read from the image.
+     * @param bytesEach The fewest bytes each of the counted items takes up.
+     * @throws BufferUnderflowException if count is negative or its items cannot fit in what
+     *                                  remains of buffer
+     */
+    private static void checkCount(ByteBuffer buffer, int count, int bytesEach) {
+        if (count < 0 || (long) count * bytesEach > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+    }
+
+    /**
+     * Moves the position of buffer forward past data read through a view of it.
+     */
+    private static void skip(ByteBuffer buffer, int bytes) {
+        buffer.position(buffer.position() + bytes);
+    }
+
+    /**
+     * @return A new array holding the contents of buffer.
+     */
+    private static int[] toArray(IntBuffer buffer) {
+        int[] array = new int[buffer.limit()];
+        buffer.get(array);
+        return array;
+    }
+
+    /**
+     * @return A new array holding the contents of buffer.
+     */
+    private static double[] toArray(DoubleBuffer buffer) {
+        double[] array = new double[buffer.limit()];
+        buffer.get(array);
+        return array;
+    }
+
+    /**
+     * Writes a length-prefixed UTF-8 string.
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads a length-prefixed UTF-8 string.
+     */
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        checkCount(buffer, length, 1);
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+}
@@ -42,7 +42,13 @@ public class CampusPath {
     private final double distance;
 
     /**
-     * Creates a new immutable CampusPath entry containing the provided data.
+     * The extra cost of taking this path segment, such as for stairs or a steep climb, as
+     * described in the optional sixth column of the dataset, or 0 if there is none.
+     */
+    private final double penalty;
+
+    /**
+     * Creates a new immutable CampusPath entry containing the provided data, with no penalty.
      *
      * @param x1       The pixel-x coordinate of the first point
      * @param y1       The pixel-y coordinate of the first point
@@ -51,11 +57,26 @@ public class CampusPath {
      * @param distance The distance between the points as described in the dataset
      */
     public CampusPath(double x1, double y1, double x2, double y2, double distance) {
+        this(x1, y1, x2, y2, distance, 0);
+    }
+
+    /**
+     * Creates a new immutable CampusPath entry containing the provided data.
+     *
+     * @param x1       The pixel-x coordinate of the first point
+     * @param y1       The pixel-y coordinate of the first point
+     * @param x2       The pixel-x coordinate of the second point
+     * @param y2       The pixel-y coordinate of the second point
+     * @param distance The distance between the points as described in the dataset
+     * @param penalty  The extra cost of taking the path segment as described in the dataset
+     */
+    public CampusPath(double x1, double y1, double x2, double y2, double distance, double penalty) {
         this.x1 = x1;
         this.y1 = y1;
         this.x2 = x2;
         this.y2 = y2;
         this.distance = distance;
+        this.penalty = penalty;
     }
 
     /**
@@ -93,8 +114,19 @@ public class CampusPath {
         return distance;
     }
 
+    /**
+     * @return The extra cost of taking this path segment, or 0 if the dataset gives none.
+     */
+    public double getPenalty() {
+        return penalty;
+    }
+
     @Override
     public String toString() {
+        if (penalty != 0) {
+            return String.format("[Path (%.3f, %.3f) -> (%.3f, %.3f); Distance: %.3f; Penalty: %.3f]",
+                                 x1, y1, x2, y2, distance, penalty);
+        }
         return String.format("[Path (%.3f, %.3f) -> (%.3f, %.3f); Distance: %.3f]",
                              x1, y1, x2, y2, distance);
     }
@@ -118,7 +150,8 @@ public class CampusPath {
                && (Double.compare(this.y1, that.y1) == 0)
                && (Double.compare(this.x2, that.x2) == 0)
                && (Double.compare(this.y2, that.y2) == 0)
-               && (Double.compare(this.distance, that.distance) == 0);
+               && (Double.compare(this.distance, that.distance) == 0)
+               && (Double.compare(this.penalty, that.penalty) == 0);
     }
 
     @Override
@@ -128,6 +161,7 @@ public class CampusPath {
         result = (31 * result) + Double.hashCode(this.y1);
         result = (31 * result) + Double.hashCode(this.x2);
         result = (31 * result) + Double.hashCode(this.y2);
+        result = (31 * result) + Double.hashCode(this.penalty);
         return result;
     }
 }
\ No newline at end of file
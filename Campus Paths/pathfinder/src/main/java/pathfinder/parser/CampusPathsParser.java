@@ -12,9 +12,12 @@
 package pathfinder.parser;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -60,12 +63,15 @@ public class CampusPathsParser {
 
     /**
      * Parses the campus paths file (in src/main/resources/data/) and
-     * returns a list of objects containing all the data in that file.
+     * returns a list of objects containing all the data in that file. Each
+     * line may end with an optional sixth field giving the penalty of the
+     * path segment, which is 0 when it is left out.
      *
      * @param file The simple filename of a campus paths file to parse.
      * @return A {@link List} of {@link CampusPath} objects, one for each
      * line in the parsed file, containing the data contained within that line.
-     * @throws ParserException if the file cannot be found or parsed as expected
+     * @throws ParserException if the file cannot be found or parsed as expected, or a
+     *                         distance or penalty is negative or not finite
      */
     public static List<CampusPath> parseCampusPaths(String file) {
         List<CampusPath> paths = new ArrayList<>();
@@ -73,26 +79,160 @@ public class CampusPathsParser {
 
         for (String line : lines) {
             String[] fields = line.split(",");
-            if (fields.length != 5) {
+            if (fields.length != 5 && fields.length != 6) {
                 throw new ParserException("Wrong number of fields in line");
             }
-            double x1, x2, y1, y2, distance;
+            double x1, x2, y1, y2, distance, penalty;
             try {
                 x1 = Double.parseDouble(fields[0]);
                 y1 = Double.parseDouble(fields[1]);
                 x2 = Double.parseDouble(fields[2]);
                 y2 = Double.parseDouble(fields[3]);
                 distance = Double.parseDouble(fields[4]);
+                penalty = fields.length == 6 ? Double.parseDouble(fields[5]) : 0;
             } catch (NumberFormatException e) {
                 throw new ParserException("Cannot parse x/y coordinates as numbers", e);
             }
+            checkCosts(distance, penalty);
 
-            paths.add(new CampusPath(x1, y1, x2, y2, distance));
+            paths.add(new CampusPath(x1, y1, x2, y2, distance, penalty));
         }
 
         return paths;
     }
 
+    /**
+     * Streams the campus buildings file (in src/main/resources/data/) in a single pass, handing
+     * each entry to the visitor as it is read instead of collecting lines or building objects.
+     *
+     * @param file    The simple filename of a campus buildings file to parse.
+     * @param visitor Receives the fields of each line of the file, in order.
+     * @throws ParserException if the file cannot be found or parsed as expected
+     */
+    public static void streamCampusBuildings(String file, BuildingVisitor visitor) {
+        try (FieldScanner scanner = new FieldScanner(openResource(file))) {
+            while (scanner.hasMoreLines()) {
+                String shortName = scanner.nextString(false);
+                String longName = scanner.nextString(false);
+                double x = scanner.nextDouble(false);
+                double y = scanner.nextDouble(true);
+                visitor.visit(shortName, longName, x, y);
+            }
+        }
+    }
+
+    /**
+     * Streams the campus paths file (in src/main/resources/data/) in a single pass, handing
+     * each entry to the visitor as it is read. Numbers are parsed straight out of a reused
+     * character buffer, so no String or CampusPath is created per line. The penalty column, if
+     * the file has one, is skipped.
+     *
+     * @param file    The simple filename of a campus paths file to parse.
+     * @param visitor Receives the fields of each line of the file, in order.
+     * @throws ParserException if the file cannot be found or parsed as expected, or a
+     *                         distance or penalty is negative or not finite
+     */
+    public static void streamCampusPaths(String file, PathVisitor visitor) {
+        streamCampusPaths(openResource(file), visitor);
+    }
+
+    /**
+     * Streams the campus paths file (in src/main/resources/data/) in a single pass like
+     * {@link #streamCampusPaths(String, PathVisitor)}, also handing the visitor the penalty of
+     * each entry, or 0 for a line without one.
+     *
+     * @param file    The simple filename of a campus paths file to parse.
+     * @param visitor Receives the fields of each line of the file, in order.
+     * @throws ParserException if the file cannot be found or parsed as expected, or a
+     *                         distance or penalty is negative or not finite
+     */
+    public static void streamPenalizedCampusPaths(String file, PenalizedPathVisitor visitor) {
+        streamPenalizedCampusPaths(openResource(file), visitor);
+    }
+
+    /**
+     * Streams campus paths data from the given reader in a single pass, handing each entry to
+     * the visitor as it is read, and closes the reader.
+     *
+     * @param in      The campus paths data to parse.
+     * @param visitor Receives the fields of each line of the data, in order.
+     * @throws ParserException if the data cannot be read or parsed as expected, or a
+     *                         distance or penalty is negative or not finite
+     */
+    public static void streamCampusPaths(Reader in, PathVisitor visitor) {
+        streamPenalizedCampusPaths(in, (x1, y1, x2, y2, distance, penalty) -> visitor.visit(x1, y1, x2, y2, distance));
+    }
+
+    /**
+     * Streams campus paths data from the given reader in a single pass, handing each entry and
+     * its penalty (0 for a line without one) to the visitor as it is read, and closes the reader.
+     *
+     * @param in      The campus paths data to parse.
+     * @param visitor Receives the fields of each line of the data, in order.
+     * @throws ParserException if the data cannot be read or parsed as expected, or a
+     *                         distance or penalty is negative or not finite
+     */
+    public static void streamPenalizedCampusPaths(Reader in, PenalizedPathVisitor visitor) {
+        try (FieldScanner scanner = new FieldScanner(in)) {
+            while (scanner.hasMoreLines()) {
+                double x1 = scanner.nextDouble(false);
+                double y1 = scanner.nextDouble(false);
+                double x2 = scanner.nextDouble(false);
+                double y2 = scanner.nextDouble(false);
+                double distance = scanner.nextDouble();
+                double penalty = scanner.endedLine() ? 0 : scanner.nextDouble(true);
+                checkCosts(distance, penalty);
+                visitor.visit(x1, y1, x2, y2, distance, penalty);
+            }
+        }
+    }
+
+    /**
+     * Throws an exception if a path segment has a distance or penalty that routes cannot be found
+     * with. Every search assumes neither is negative, so bad data is refused when it is loaded
+     * rather than giving wrong routes.
+     *
+     * @param distance The distance of the path segment.
+     * @param penalty  The penalty of the path segment.
+     * @throws ParserException if distance or penalty is negative or not finite
+     */
+    private static void checkCosts(double distance, double penalty) {
+        if (!(distance >= 0) || distance == Double.POSITIVE_INFINITY) {
+            throw new ParserException("Distance must be a finite number that is not negative");
+        }
+        if (!(penalty >= 0) || penalty == Double.POSITIVE_INFINITY) {
+            throw new ParserException("Penalty must be a finite number that is not negative");
+        }
+    }
+
+    /**
+     * Opens the provided data file, which is located relative to the data/ folder in this
+     * parser's classpath.
+     *
+     * @param filename The file to open.
+     * @throws ParserException if the file doesn't exist or has an invalid name
+     * @return A new {@link Reader} over the file.
+     */
+    private static Reader openResource(String filename) {
+        return new InputStreamReader(openStream(filename));
+    }
+
+    /**
+     * Opens the provided data file as raw bytes, which is located relative to the data/ folder
+     * in this parser's classpath.
+     *
+     * @param filename The file to open.
+     * @throws ParserException if the file doesn't exist or has an invalid name
+     * @return A new {@link InputStream} over the file.
+     */
+    static InputStream openStream(String filename) {
+        InputStream stream = CampusPathsParser.class.getResourceAsStream("/data/" + filename);
+        if (stream == null) {
+            throw new ParserException("No such file: " + filename);
+        }
+        return stream;
+    }
+
     /**
      * Reads all lines contained within the provided data file, which is located
      * relative to the data/ folder in this parser's classpath.
@@ -110,6 +250,296 @@ public class CampusPathsParser {
         return new BufferedReader(new InputStreamReader(stream)).lines().collect(Collectors.toList());
     }
 
+    /**
+     * Receives the fields of one line of a campus buildings file.
+     */
+    @FunctionalInterface
+    public interface BuildingVisitor {
+
+        /**
+         * @param shortName The abbreviated name of the building entry.
+         * @param longName  The full name of the building entry.
+         * @param x         The pixel-x coordinate of the location.
+         * @param y         The pixel-y coordinate of the location.
+         */
+        void visit(String shortName, String longName, double x, double y);
+    }
+
+    /**
+     * Receives the fields of one line of a campus paths file.
+     */
+    @FunctionalInterface
+    public interface PathVisitor {
+
+        /**
+         * @param x1       The pixel-x coordinate of the first point
+         * @param y1       The pixel-y coordinate of the first point
+         * @param x2       The pixel-x coordinate of the second point
+         * @param y2       The pixel-y coordinate of the second point
+         * @param distance The distance between the points as described in the dataset
+         */
+        void visit(double x1, double y1, double x2, double y2, double distance);
+    }
+
+    /**
+     * Receives the fields of one line of a campus paths file, including its penalty.
+     */
+    @FunctionalInterface
+    public interface PenalizedPathVisitor {
+
+        /**
+         * @param x1       The pixel-x coordinate of the first point
+         * @param y1       The pixel-y coordinate of the first point
+         * @param x2       The pixel-x coordinate of the second point
+         * @param y2       The pixel-y coordinate of the second point
+         * @param distance The distance between the points as described in the dataset
+         * @param penalty  The extra cost of taking the path segment, or 0 if the line gives none
+         */
+        void visit(double x1, double y1, double x2, double y2, double distance, double penalty);
+    }
+
+    /**
+     * Splits a character stream into comma separated fields, one line at a time, copying each
+     * field into a reused buffer and parsing numbers directly from it.
+     */
+    static class FieldScanner implements AutoCloseable {
+
+        /**
+         * Exact powers of ten, which together with a mantissa below 2^53 let a short decimal be
+         * converted with a single correctly rounded division.
+         */
+        private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+        };
+
+        /**
+         * The stream being split.
+         */
+        private final Reader in;
+
+        /**
+         * Characters read from the stream but not yet scanned.
+         */
+        private final char[] buffer = new char[1 << 16];
+
+        /**
+         * The position of the next character to scan in buffer.
+         */
+        private int position;
+
+        /**
+         * The number of characters of buffer holding data.
+         */
+        private int limit;
+
+        /**
+         * The characters of the most recently scanned field.
+         */
+        private char[] field = new char[64];
+
+        /**
+         * The number of characters of field in use.
+         */
+        private int fieldLength;
+
+        /**
+         * Whether the most recently scanned field was the last field of its line.
+         */
+        private boolean endedLine;
+
+        /**
+         * Creates a scanner over the given stream.
+         *
+         * @param in The stream to split into fields.
+         */
+        FieldScanner(Reader in) {
+            this.in = in;
+        }
+
+        /**
+         * @return {@literal true} if and only if there are more characters to scan.
+         * @throws ParserException if the stream cannot be read
+         */
+        boolean hasMoreLines() {
+            return fill();
+        }
+
+        /**
+         * Scans the next field as text.
+         *
+         * @param last Whether this should be the last field of its line.
+         * @return The text of the field.
+         * @throws ParserException if the line has the wrong number of fields
+         */
+        String nextString(boolean last) {
+            scanField(last);
+            return new String(field, 0, fieldLength);
+        }
+
+        /**
+         * Scans the next field as a number.
+         *
+         * @param last Whether this should be the last field of its line.
+         * @return The value of the field.
+         * @throws ParserException if the line has the wrong number of fields or the field is not a number
+         */
+        double nextDouble(boolean last) {
+            scanField(last);
+            return parseField();
+        }
+
+        /**
+         * Scans the next field as a number, which may or may not be the last field of its line.
+         *
+         * @return The value of the field. {@link #endedLine()} tells whether it ended its line.
+         * @throws ParserException if the field is not a number
+         */
+        double nextDouble() {
+            scanToDelimiter();
+            return parseField();
+        }
+
+        /**
+         * @return {@literal true} if and only if the most recently scanned field was the last
+         * field of its line.
+         */
+        boolean endedLine() {
+            return endedLine;
+        }
+
+        /**
+         * Converts the most recently scanned field to a number.
+         *
+         * @return The value of the field.
+         * @throws ParserException if the field is not a number
+         */
+        private double parseField() {
+            double value = parseSimpleDecimal();
+            if (Double.isNaN(value)) {
+                //Not a plain decimal this parser can convert exactly, so leave it to the library
+                try {
+                    value = Double.parseDouble(new String(field, 0, fieldLength));
+                } catch (NumberFormatException e) {
+                    throw new ParserException("Cannot parse x/y coordinates as numbers", e);
+                }
+            }
+            return value;
+        }
+
+        /**
+         * Copies the next field into field, consuming the comma or line ending after it.
+         *
+         * @param last Whether this should be the last field of its line.
+         * @throws ParserException if the field ends a line early or the last field does not end its line
+         */
+        private void scanField(boolean last) {
+            scanToDelimiter();
+            if (endedLine != last) {
+                throw new ParserException("Wrong number of fields in line");
+            }
+        }
+
+        /**
+         * Copies the next field into field, consuming the comma or line ending after it, and
+         * records in endedLine which of the two it was.
+         */
+        private void scanToDelimiter() {
+            fieldLength = 0;
+            while (fill()) {
+                char c = buffer[position++];
+                if (c == ',') {
+                    endedLine = false;
+                    return;
+                }
+                if (c == '\n' || c == '\r') {
+                    if (c == '\r' && fill() && buffer[position] == '\n') {
+                        position++;
+                    }
+                    endedLine = true;
+                    return;
+                }
+                if (fieldLength == field.length) {
+                    field = Arrays.copyOf(field, fieldLength * 2);
+                }
+                field[fieldLength++] = c;
+            }
+            //The end of the stream ends the last line
+            endedLine = true;
+        }
+
+        /**
+         * Converts field when it is a plain decimal (an optional sign, digits, and an optional
+         * fraction) short enough to convert exactly.
+         *
+         * @return The value of field, or NaN if it is not such a decimal.
+         */
+        private double parseSimpleDecimal() {
+            int i = 0;
+            boolean negative = false;
+            if (fieldLength > 0 && (field[0] == '-' || field[0] == '+')) {
+                negative = field[0] == '-';
+                i++;
+            }
+            long mantissa = 0;
+            int digits = 0;
+            int fractionDigits = -1;
+            for (; i < fieldLength; i++) {
+                char c = field[i];
+                if (c == '.' && fractionDigits < 0) {
+                    fractionDigits = 0;
+                } else if (c >= '0' && c <= '9') {
+                    if (++digits > 18) {
+                        return Double.NaN;
+                    }
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (fractionDigits >= 0) {
+                        fractionDigits++;
+                    }
+                } else {
+                    return Double.NaN;
+                }
+            }
+            if (digits == 0 || mantissa >= (1L << 53) || fractionDigits >= POWERS_OF_TEN.length) {
+                return Double.NaN;
+            }
+            double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : (double) mantissa;
+            return negative ? -value : value;
+        }
+
+        /**
+         * Makes sure there is a character to scan, reading more of the stream if needed.
+         *
+         * @return {@literal false} if and only if the stream has ended.
+         * @throws ParserException if the stream cannot be read
+         */
+        private boolean fill() {
+            if (position < limit) {
+                return true;
+            }
+            try {
+                limit = in.read(buffer, 0, buffer.length);
+            } catch (IOException e) {
+                throw new ParserException("Cannot read file", e);
+            }
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public void close() {
+            try {
+                in.close();
+            } catch (IOException e) {
+                throw new ParserException("Cannot close file", e);
+            }
+        }
+    }
+
     /**
      * An Exception class representing an error during parsing.
      */
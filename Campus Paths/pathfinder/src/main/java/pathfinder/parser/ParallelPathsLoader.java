@@ -0,0 +1,476 @@
+package pathfinder.parser;
+
+import graph.FrozenGraph;
+import pathfinder.datastructures.Point;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/**
+ * A utility class that builds the campus path graph from a campus paths file using several
+ * threads. The file is split into chunks of whole lines that are parsed concurrently, each
+ * into its own edge buffer with its points interned into ids local to the chunk. The points are
+ * then given node ids in chunk order, and the buffers are merged straight into the compressed
+ * sparse row arrays of a {@link FrozenGraph}, without ever building a mutable graph.
+ * <p>
+ * The result holds the same nodes and edges as inserting every path into a graph one at a time:
+ * repeated points become one node and repeated paths (with the same ends, distance and penalty)
+ * become one edge. The graph only stores penalties if some path has a penalty other than 0.
+ * The result does not depend on the number of threads or how they are scheduled: node ids are
+ * given in the order points first appear in the file, and the outgoing edges of each node are
+ * ordered by target, then distance, then penalty.
+ */
+public class ParallelPathsLoader {
+
+    /**
+     * How many chunks each thread is given on average, so that threads finishing early can take
+     * over the remaining work.
+     */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    /**
+     * The fewest bytes worth putting in a chunk of their own.
+     */
+    private static final int MIN_CHUNK_BYTES = 1 << 16;
+
+    /**
+     * The most outgoing edges of one node that are sorted by insertion sort.
+     */
+    private static final int INSERTION_SORT_LIMIT = 16;
+
+    /**
+     * This class only has static methods.
+     */
+    private ParallelPathsLoader() {
+    }
+
+    /**
+     * Builds the graph held in the campus paths file (in src/main/resources/data/), using one
+     * thread per available processor.
+     *
+     * @param file The simple filename of a campus paths file to parse.
+     * @return A graph with a node for each distinct point and an edge for each distinct path,
+     * whose cost is its distance. Node ids are given in the order points first appear.
+     * @throws CampusPathsParser.ParserException if the file cannot be found or parsed as expected,
+     *                                           or a distance or penalty is negative or not finite
+     */
+    public static FrozenGraph<Point> loadCampusPaths(String file) {
+        return loadCampusPaths(file, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Builds the graph held in the campus paths file (in src/main/resources/data/), using the
+     * given number of threads.
+     *
+     * @param file        The simple filename of a campus paths file to parse.
+     * @param parallelism The number of threads to parse and merge with.
+     * @return A graph with a node for each distinct point and an edge for each distinct path,
+     * whose cost is its distance. Node ids are given in the order points first appear.
+     * @throws CampusPathsParser.ParserException if the file cannot be found or parsed as expected,
+     *                                           or a distance or penalty is negative or not finite
+     * @throws IllegalArgumentException if parallelism is less than 1
+     */
+    public static FrozenGraph<Point> loadCampusPaths(String file, int parallelism) {
+        byte[] data;
+        try (InputStream stream = CampusPathsParser.openStream(file)) {
+            data = stream.readAllBytes();
+        } catch (IOException e) {
+            throw new CampusPathsParser.ParserException("Cannot read file: " + file, e);
+        }
+        return build(data, parallelism);
+    }
+
+    /**
+     * Builds the graph held in the given campus paths data, using the given number of threads.
+     *
+     * @param data        The contents of a campus paths file.
+     * @param parallelism The number of threads to parse and merge with.
+     * @return A graph with a node for each distinct point and an edge for each distinct path,
+     * whose cost is its distance. Node ids are given in the order points first appear.
+     * @throws CampusPathsParser.ParserException if the data cannot be parsed as expected, or a
+     *                                           distance or penalty is negative or not finite
+     * @throws IllegalArgumentException if data is null or parallelism is less than 1
+     */
+    public static FrozenGraph<Point> build(byte[] data, int parallelism) {
+        if (data == null) {
+            throw new IllegalArgumentException("Data cannot be null.");
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1.");
+        }
+        int[] bounds = chunkBounds(data, parallelism * CHUNKS_PER_THREAD);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            //Parse every chunk into its own buffer, interning points within the chunk as they are read
+            EdgeBuffer[] buffers = run(pool, () -> IntStream.range(0, bounds.length - 1).parallel()
+                    .mapToObj(i -> parseChunk(data, bounds[i], bounds[i + 1]))
+                    .toArray(EdgeBuffer[]::new));
+
+            //Give the points node ids in chunk order, which is the order they first appear in data,
+            //so the ids never depend on which thread parsed what first
+            Map<Point, Integer> ids = new HashMap<>();
+            List<Point> nodes = new ArrayList<>();
+            int[][] nodeIds = new int[buffers.length][];
+            for (int i = 0; i < buffers.length; i++) {
+                List<Point> points = buffers[i].points;
+                nodeIds[i] = new int[points.size()];
+                for (int local = 0; local < points.size(); local++) {
+                    Integer id = ids.putIfAbsent(points.get(local), nodes.size());
+                    if (id == null) {
+                        id = nodes.size();
+                        nodes.add(points.get(local));
+                    }
+                    nodeIds[i][local] = id;
+                }
+            }
+            return run(pool, () -> {
+                IntStream.range(0, buffers.length).parallel().forEach(i -> buffers[i].renumber(nodeIds[i]));
+                return merge(nodes.toArray(new Point[0]), buffers);
+            });
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Merges the edge buffers into the compressed sparse row layout of a graph, dropping
+     * repeated edges. Must be run inside a ForkJoinPool, whose threads do the work.
+     *
+     * @param nodes   The node value of each id.
+     * @param buffers The parsed edges, in any order.
+     * @return A graph holding nodes and every distinct edge of buffers.
+     */
+    private static FrozenGraph<Point> merge(Point[] nodes, EdgeBuffer[] buffers) {
+        int size = nodes.length;
+        //Count the outgoing edges of each node, then turn the counts into offsets
+        AtomicIntegerArray degrees = new AtomicIntegerArray(size);
+        Arrays.stream(buffers).parallel().forEach(buffer -> {
+            for (int i = 0; i < buffer.size; i++) {
+                degrees.getAndIncrement(buffer.sources[i]);
+            }
+        });
+        int[] offsets = new int[size + 1];
+        for (int u = 0; u < size; u++) {
+            offsets[u + 1] = offsets[u] + degrees.get(u);
+        }
+
+        //Scatter every edge into a free slot of its source, in whatever order threads reach them
+        AtomicIntegerArray next = new AtomicIntegerArray(Arrays.copyOf(offsets, size));
+        int[] targets = new int[offsets[size]];
+        double[] weights = new double[offsets[size]];
+        boolean penalized = Arrays.stream(buffers).anyMatch(buffer -> buffer.penalized);
+        double[] penalties = penalized ? new double[offsets[size]] : null;
+        Arrays.stream(buffers).parallel().forEach(buffer -> {
+            for (int i = 0; i < buffer.size; i++) {
+                int slot = next.getAndIncrement(buffer.sources[i]);
+                targets[slot] = buffer.targets[i];
+                weights[slot] = buffer.weights[i];
+                if (penalties != null) {
+                    penalties[slot] = buffer.penalties[i];
+                }
+            }
+        });
+
+        //Sort the edges of each node, which undoes the order threads scattered them in and puts
+        //repeated edges next to each other, then count the distinct ones
+        int[] kept = new int[size];
+        IntStream.range(0, size).parallel().forEach(u -> {
+            sortByTarget(targets, weights, penalties, offsets[u], offsets[u + 1]);
+            kept[u] = dropRepeats(targets, weights, penalties, offsets[u], offsets[u + 1]);
+        });
+        int[] keptOffsets = new int[size + 1];
+        for (int u = 0; u < size; u++) {
+            keptOffsets[u + 1] = keptOffsets[u] + kept[u];
+        }
+        if (keptOffsets[size] == offsets[size]) {
+            return FrozenGraph.fromLayout(Arrays.asList(nodes), offsets, targets, weights, penalties);
+        }
+        int[] keptTargets = new int[keptOffsets[size]];
+        double[] keptWeights = new double[keptOffsets[size]];
+        double[] keptPenalties = penalized ? new double[keptOffsets[size]] : null;
+        IntStream.range(0, size).parallel().forEach(u -> {
+            System.arraycopy(targets, offsets[u], keptTargets, keptOffsets[u], kept[u]);
+            System.arraycopy(weights, offsets[u], keptWeights, keptOffsets[u], kept[u]);
+            if (keptPenalties != null) {
+                System.arraycopy(penalties, offsets[u], keptPenalties, keptOffsets[u], kept[u]);
+            }
+        });
+        return FrozenGraph.fromLayout(Arrays.asList(nodes), keptOffsets, keptTargets, keptWeights, keptPenalties);
+    }
+
+    /**
+     * Parses the lines of data from index from (inclusive) to index to (exclusive).
+     *
+     * @param data   The contents of a campus paths file.
+     * @param from   The index of the first byte of the chunk, which starts a line.
+     * @param to     One past the index of the last byte of the chunk, which ends a line.
+     * @return The edges of the chunk, in the order they appear, between ids local to the chunk.
+     * @throws CampusPathsParser.ParserException if the chunk cannot be parsed as expected
+     */
+    private static EdgeBuffer parseChunk(byte[] data, int from, int to) {
+        EdgeBuffer buffer = new EdgeBuffer();
+        Map<Point, Integer> ids = new HashMap<>();
+        InputStreamReader in = new InputStreamReader(new ByteArrayInputStream(data, from, to - from));
+        CampusPathsParser.streamPenalizedCampusPaths(in, (x1, y1, x2, y2, distance, penalty) ->
+                buffer.add(intern(new Point(x1, y1), ids, buffer.points), intern(new Point(x2, y2), ids, buffer.points),
+                        distance, penalty));
+        return buffer;
+    }
+
+    /**
+     * Gets the id of a point within one chunk, giving it the next id if the chunk has not seen it yet.
+     *
+     * @param point  The point to look up.
+     * @param ids    Maps every point seen so far in the chunk to its id.
+     * @param points The point with each id, in order, to which a new point is added.
+     * @return The id of point within the chunk.
+     */
+    private static int intern(Point point, Map<Point, Integer> ids, List<Point> points) {
+        Integer id = ids.putIfAbsent(point, points.size());
+        if (id == null) {
+            id = points.size();
+            points.add(point);
+        }
+        return id;
+    }
+
+    /**
+     * Splits data into about the given number of chunks, each ending at the end of a line.
+     *
+     * @param data   The contents of a campus paths file.
+     * @param chunks The number of chunks wanted.
+     * @return The index of the first byte of each chunk, followed by data.length.
+     */
+    private static int[] chunkBounds(byte[] data, int chunks) {
+        int length = Math.max(MIN_CHUNK_BYTES, data.length / chunks + 1);
+        IntStream.Builder bounds = IntStream.builder().add(0);
+        int start = 0;
+        while (start < data.length) {
+            int end = (int) Math.min(data.length, (long) start + length);
+            while (end < data.length && data[end - 1] != '\n') {
+                end++;
+            }
+            bounds.add(end);
+            start = end;
+        }
+        return bounds.build().toArray();
+    }
+
+    /**
+     * Sorts the edges from index from (inclusive) to index to (exclusive) by target, then weight,
+     * then penalty, keeping each weight and penalty with its target. penalties may be null if
+     * there are none.
+     */
+    private static void sortByTarget(int[] targets, double[] weights, double[] penalties, int from, int to) {
+        if (to - from <= INSERTION_SORT_LIMIT) {
+            insertionSort(targets, weights, penalties, from, to);
+            return;
+        }
+        //Sort the targets together with each one's position, then move the weights to match
+        long[] keys = new long[to - from];
+        for (int i = from; i < to; i++) {
+            keys[i - from] = ((long) targets[i] << 32) | (i - from);
+        }
+        Arrays.sort(keys);
+        double[] sorted = new double[to - from];
+        for (int i = 0; i < keys.length; i++) {
+            targets[from + i] = (int) (keys[i] >>> 32);
+            sorted[i] = weights[from + (int) keys[i]];
+        }
+        System.arraycopy(sorted, 0, weights, from, sorted.length);
+        if (penalties != null) {
+            for (int i = 0; i < keys.length; i++) {
+                sorted[i] = penalties[from + (int) keys[i]];
+            }
+            System.arraycopy(sorted, 0, penalties, from, sorted.length);
+        }
+        //Edges with the same target are few, so finish each run of them by insertion sort
+        int runStart = from;
+        for (int i = from + 1; i <= to; i++) {
+            if (i == to || targets[i] != targets[runStart]) {
+                insertionSort(targets, weights, penalties, runStart, i);
+                runStart = i;
+            }
+        }
+    }
+
+    /**
+     * Sorts the edges from index from (inclusive) to index to (exclusive) by target, then weight,
+     * then penalty, by insertion sort. penalties may be null if there are none.
+     */
+    private static void insertionSort(int[] targets, double[] weights, double[] penalties, int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            int target = targets[i];
+            double weight = weights[i];
+            double penalty = penalties == null ? 0 : penalties[i];
+            int j = i - 1;
+            while (j >= from && compare(targets[j], weights[j], penalties == null ? 0 : penalties[j],
+                    target, weight, penalty) > 0) {
+                targets[j + 1] = targets[j];
+                weights[j + 1] = weights[j];
+                if (penalties != null) {
+                    penalties[j + 1] = penalties[j];
+                }
+                j--;
+            }
+            targets[j + 1] = target;
+            weights[j + 1] = weight;
+            if (penalties != null) {
+                penalties[j + 1] = penalty;
+            }
+        }
+    }
+
+    /**
+     * Compares two edges by target, then weight, then penalty.
+     *
+     * @return A negative number, zero, or a positive number as the first edge comes before, ties
+     * with, or comes after the second.
+     */
+    private static int compare(int target1, double weight1, double penalty1,
+                               int target2, double weight2, double penalty2) {
+        if (target1 != target2) {
+            return Integer.compare(target1, target2);
+        }
+        if (Double.compare(weight1, weight2) != 0) {
+            return Double.compare(weight1, weight2);
+        }
+        return Double.compare(penalty1, penalty2);
+    }
+
+    /**
+     * Moves the distinct edges from index from (inclusive) to index to (exclusive), which are
+     * sorted by target, to the front of that range, keeping the first of each repeated edge.
+     * penalties may be null if there are none.
+     *
+     * @return The number of distinct edges.
+     */
+    private static int dropRepeats(int[] targets, double[] weights, double[] penalties, int from, int to) {
+        int kept = from;
+        int runStart = from;
+        for (int i = from; i < to; i++) {
+            if (i > from && targets[i] != targets[i - 1]) {
+                runStart = kept;
+            }
+            //Edges with the same target are few, so compare against each one kept so far
+            boolean repeat = false;
+            for (int k = runStart; k < kept && !repeat; k++) {
+                repeat = targets[k] == targets[i] && Double.compare(weights[k], weights[i]) == 0
+                        && (penalties == null || Double.compare(penalties[k], penalties[i]) == 0);
+            }
+            if (!repeat) {
+                targets[kept] = targets[i];
+                weights[kept] = weights[i];
+                if (penalties != null) {
+                    penalties[kept] = penalties[i];
+                }
+                kept++;
+            }
+        }
+        return kept - from;
+    }
+
+    /**
+     * Runs a task inside the given pool and waits for it, so that any parallel streams it uses
+     * run on the pool's threads.
+     *
+     * @throws CampusPathsParser.ParserException if the task throws one, or is interrupted
+     */
+    private static <T> T run(ForkJoinPool pool, Callable<T> task) {
+        try {
+            return pool.submit(task).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CampusPathsParser.ParserException("Interrupted while loading paths", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new CampusPathsParser.ParserException("Cannot load paths", e.getCause());
+        }
+    }
+
+    /**
+     * A growable list of edges, stored as parallel arrays of source ids, target ids, weights, and
+     * penalties.
+     */
+    private static class EdgeBuffer {
+
+        /**
+         * The source id of each edge.
+         */
+        private int[] sources = new int[1024];
+
+        /**
+         * The target id of each edge.
+         */
+        private int[] targets = new int[1024];
+
+        /**
+         * The weight of each edge.
+         */
+        private double[] weights = new double[1024];
+
+        /**
+         * The penalty of each edge.
+         */
+        private double[] penalties = new double[1024];
+
+        /**
+         * Whether any edge in this buffer has a penalty other than 0.
+         */
+        private boolean penalized;
+
+        /**
+         * The number of edges in this buffer.
+         */
+        private int size;
+
+        /**
+         * The point with each id the sources and targets refer to, until they are renumbered.
+         */
+        private final List<Point> points = new ArrayList<>();
+
+        /**
+         * Adds an edge to the end of this buffer.
+         */
+        private void add(int source, int target, double weight, double penalty) {
+            if (size == sources.length) {
+                sources = Arrays.copyOf(sources, size * 2);
+                targets = Arrays.copyOf(targets, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+                penalties = Arrays.copyOf(penalties, size * 2);
+            }
+            sources[size] = source;
+            targets[size] = target;
+            weights[size] = weight;
+            penalties[size] = penalty;
+            penalized |= penalty != 0;
+            size++;
+        }
+
+        /**
+         * Replaces every source and target id with the one it maps to.
+         *
+         * @param ids The new id of each point of this buffer, by its old id.
+         */
+        private void renumber(int[] ids) {
+            for (int i = 0; i < size; i++) {
+                sources[i] = ids[sources[i]];
+                targets[i] = ids[targets[i]];
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package pathfinder.search;
+
+import graph.FrozenGraph;
+import pathfinder.datastructures.Path;
+import pathfinder.datastructures.Point;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * AStarEngine finds least cost paths between Points with A* search, using the straight-line
+ * distance to the end Point as the heuristic. Edge costs and coordinates need not share a unit
+ * (campus paths are measured in feet over pixel coordinates), so the straight-line distance is
+ * scaled by the smallest ratio of edge cost to edge length found in the graph. That keeps the
+ * heuristic admissible and consistent, and it never settles more nodes than Dijkstra would.
+ * The coordinate tables are kept off the heap whenever the graph's edges are, and each thread
+ * reuses one search workspace across its queries.
+ */
+public final class AStarEngine implements RouteEngine<Point> {
+
+    //The graph searched by this engine
+    private final FrozenGraph<Point> graph;
+
+    //The x coordinate of each node, indexed by id
+    private final DoubleBuffer xs;
+
+    //The y coordinate of each node, indexed by id
+    private final DoubleBuffer ys;
+
+    //Converts a straight-line distance between coordinates into a lower bound on path cost
+    private final double scale;
+
+    //The total number of nodes settled by every query so far
+    private final LongAdder settled;
+
+    //The search workspace of each thread that queries this engine
+    private final ThreadLocal<SearchWorkspace> workspaces;
+
+    /**
+     * Constructs a new AStarEngine
+     * @param graph the graph to search
+     * @throws IllegalArgumentException if graph is null
+     */
+    public AStarEngine(FrozenGraph<Point> graph) {
+        if(graph == null) {
+            throw new IllegalArgumentException("Graph cannot be null");
+        }
+        this.graph = graph;
+        int size = graph.sizeNodes();
+        this.xs = allocate(size, graph.isOffHeap());
+        this.ys = allocate(size, graph.isOffHeap());
+        for(int u = 0; u < size; u++) {
+            this.xs.put(u, graph.nodeAt(u).getX());
+            this.ys.put(u, graph.nodeAt(u).getY());
+        }
+        double minRatio = Double.POSITIVE_INFINITY;
+        for(int u = 0; u < size; u++) {
+            for(int e = graph.firstEdge(u); e < graph.endEdge(u); e++) {
+                int v = graph.target(e);
+                double length = Math.hypot(this.xs.get(u) - this.xs.get(v), this.ys.get(u) - this.ys.get(v));
+                if(length > 0) {
+                    minRatio = Math.min(minRatio, graph.weight(e) / length);
+                }
+            }
+        }
+        //With no edges of positive length any scale is admissible, so fall back to plain Dijkstra
+        this.scale = Double.isInfinite(minRatio) ? 0 : minRatio;
+        this.settled = new LongAdder();
+        this.workspaces = SearchWorkspace.perThread(size);
+    }
+
+    @Override
+    public Path<Point> shortestPath(Point start, Point end) {
+        return shortestPathById(DijkstraEngine.idOf(this.graph, start), DijkstraEngine.idOf(this.graph, end));
+    }
+
+    @Override
+    public Path<Point> shortestPathById(int start, int end) {
+        int s = DijkstraEngine.checkId(this.graph, start);
+        int t = DijkstraEngine.checkId(this.graph, end);
+        double tx = this.xs.get(t);
+        double ty = this.ys.get(t);
+        SearchWorkspace workspace = this.workspaces.get();
+        workspace.begin();
+        IndexedMinHeap active = workspace.heap;
+
+        int count = 0;
+        workspace.setDistance(s, 0);
+        active.insertOrDecrease(s, 0);
+        try {
+            while(!active.isEmpty()) {
+                int u = active.pollMin();
+                workspace.settle(u);
+                count++;
+                if(u == t) {
+                    return PathBuilder.fromTree(this.graph, workspace, s, t);
+                }
+                double du = workspace.distance(u);
+                for(int e = this.graph.firstEdge(u); e < this.graph.endEdge(u); e++) {
+                    int v = this.graph.target(e);
+                    double dv = du + this.graph.weight(e);
+                    if(!workspace.isSettled(v) && dv < workspace.distance(v)) {
+                        workspace.setDistance(v, dv);
+                        workspace.prevNode[v] = u;
+                        workspace.prevEdge[v] = e;
+                        double remaining = Math.hypot(this.xs.get(v) - tx, this.ys.get(v) - ty);
+                        active.insertOrDecrease(v, dv + this.scale * remaining);
+                    }
+                }
+            }
+            //There is no path
+            return null;
+        } finally {
+            this.settled.add(count);
+        }
+    }
+
+    @Override
+    public long settledCount() {
+        return this.settled.sum();
+    }
+
+    /**
+     * Allocates a table of doubles
+     * @param length the number of doubles in the table
+     * @param offHeap whether to allocate the table outside the Java heap
+     * @return a new table of length zeros
+     */
+    private static DoubleBuffer allocate(int length, boolean offHeap) {
+        if(!offHeap) {
+            return DoubleBuffer.allocate(length);
+        }
+        return ByteBuffer.allocateDirect(Double.BYTES * length).order(ByteOrder.nativeOrder()).asDoubleBuffer();
+    }
+}
@@ -0,0 +1,301 @@
+package pathfinder.search;
+
+import graph.FrozenGraph;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * BatchRouter answers large batches of route queries. The queries are grouped by their start
+ * node, and each group is answered with a single Dijkstra search from its start that stops once
+ * every end of the group is settled, rather than one search per query. Groups are searched in
+ * parallel on a fork-join pool, each worker thread reusing one search workspace for all its
+ * searches, and the results are handed back as a stream that only keeps a few groups' paths
+ * computed ahead of the caller, so the caller never holds every path in memory at once.
+ * @param <N> The value assigned to the node
+ */
+public final class BatchRouter<N> {
+
+    //The most queries answered by one search; larger groups are split so that no single task
+    //holds too many paths
+    private static final int MAX_BATCH = 1024;
+
+    //The number of batches kept in flight per thread of the pool
+    private static final int BATCHES_PER_THREAD = 2;
+
+    //The graph searched by this router
+    private final FrozenGraph<N> graph;
+
+    //Runs the searches
+    private final DijkstraEngine<N> engine;
+
+    //The threads the searches run on
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructs a new BatchRouter
+     * @param graph the graph to search
+     * @param pool the pool to run the searches on
+     * @throws IllegalArgumentException if graph or pool is null
+     */
+    public BatchRouter(FrozenGraph<N> graph, ForkJoinPool pool) {
+        if(graph == null || pool == null) {
+            throw new IllegalArgumentException("Graph and pool cannot be null");
+        }
+        this.graph = graph;
+        this.engine = new DijkstraEngine<>(graph);
+        this.pool = pool;
+    }
+
+    /**
+     * Finds the least cost path for every (start, end) pair of nodes in a batch
+     * @param pairs the queries, each a start node mapped to an end node
+     * @return the result of every query, as described by {@link #shortestPaths(Stream, ToIntFunction)}
+     * @throws IllegalArgumentException if pairs is null, or any node is null or not in the graph
+     */
+    public Stream<RouteResult<N, N>> shortestPaths(Stream<? extends Map.Entry<? extends N, ? extends N>> pairs) {
+        return shortestPaths(pairs, node -> DijkstraEngine.idOf(this.graph, node));
+    }
+
+    /**
+     * Finds the least cost path for every (start, end) pair in a batch, where the starts and ends
+     * are given as keys (such as building names) that idOf maps to node ids. Every pair is read
+     * from the given stream before this returns, but the searches run as the returned stream is
+     * consumed. The results are grouped by start node, in increasing order of its id, and within
+     * a group are in the order the pairs were given
+     * @param pairs the queries, each a start key mapped to an end key
+     * @param idOf gives the id of the node at each key, or -1 if the key has none
+     * @param <K> The type the starts and ends are given as
+     * @return a sequential stream of one result per pair, which should be closed if it is not
+     * consumed to the end so that any searches still running are cancelled
+     * @throws IllegalArgumentException if pairs or idOf is null, or any key is null or not a valid
+     *                                  id of the graph
+     */
+    public <K> Stream<RouteResult<K, N>> shortestPaths(Stream<? extends Map.Entry<? extends K, ? extends K>> pairs,
+                                                       ToIntFunction<? super K> idOf) {
+        if(pairs == null || idOf == null) {
+            throw new IllegalArgumentException("Pairs and idOf cannot be null");
+        }
+        Batch<K> batch = new Batch<>();
+        pairs.forEachOrdered(pair -> batch.add(pair.getKey(), pair.getValue(), idOf));
+        batch.sortByStart();
+        Results<K> results = new Results<>(batch);
+        return StreamSupport.stream(Spliterators.spliterator(results, batch.size,
+                        Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(results::cancel);
+    }
+
+    /**
+     * Answers the queries order[from] to order[to - 1] of a batch, which all share one start,
+     * with a single search on the calling thread
+     * @param batch the queries
+     * @param from the index into batch.order of the first query
+     * @param to one more than the index into batch.order of the last query
+     * @param <K> The type the starts and ends are given as
+     * @return the result of each query, in order
+     */
+    private <K> RouteResult<K, N>[] answer(Batch<K> batch, int from, int to) {
+        boolean[] isTarget = this.engine.workspace().isTarget;
+        int count = 0;
+        for(int i = from; i < to; i++) {
+            int t = batch.ends[batch.order[i]];
+            if(!isTarget[t]) {
+                isTarget[t] = true;
+                count++;
+            }
+        }
+        int s = batch.starts[batch.order[from]];
+        ShortestPathTree<N> tree;
+        try {
+            tree = this.engine.shortestPathTree(s, isTarget, count);
+        } finally {
+            for(int i = from; i < to; i++) {
+                isTarget[batch.ends[batch.order[i]]] = false;
+            }
+        }
+        @SuppressWarnings("unchecked")
+        RouteResult<K, N>[] results = (RouteResult<K, N>[]) new RouteResult<?, ?>[to - from];
+        for(int i = from; i < to; i++) {
+            int q = batch.order[i];
+            results[i - from] = new RouteResult<>(batch.keyAt(2 * q), batch.keyAt(2 * q + 1),
+                                                  tree.pathTo(batch.ends[q]));
+        }
+        return results;
+    }
+
+    /**
+     * The queries of one call to shortestPaths, held as node ids alongside the keys they were
+     * given as, and sorted by start node
+     * @param <K> The type the starts and ends are given as
+     */
+    private final class Batch<K> {
+
+        //The id of the start node of each query, in the order given
+        private int[] starts = new int[64];
+
+        //The id of the end node of each query, in the order given
+        private int[] ends = new int[64];
+
+        //The start and end key of each query, interleaved, in the order given
+        private Object[] keys = new Object[128];
+
+        //The number of queries
+        private int size;
+
+        //The indices of the queries, sorted by start node and then by the order given
+        private int[] order;
+
+        /**
+         * Adds a query to the end of this
+         * @throws IllegalArgumentException if either key is null or not a valid id of the graph
+         */
+        private void add(K start, K end, ToIntFunction<? super K> idOf) {
+            int s = checkKey(start, idOf);
+            int t = checkKey(end, idOf);
+            if(this.size == this.starts.length) {
+                this.starts = Arrays.copyOf(this.starts, this.size * 2);
+                this.ends = Arrays.copyOf(this.ends, this.size * 2);
+                this.keys = Arrays.copyOf(this.keys, this.size * 4);
+            }
+            this.starts[this.size] = s;
+            this.ends[this.size] = t;
+            this.keys[2 * this.size] = start;
+            this.keys[2 * this.size + 1] = end;
+            this.size++;
+        }
+
+        /**
+         * Looks up the node id of a key
+         * @throws IllegalArgumentException if key is null or not a valid id of the graph
+         */
+        private int checkKey(K key, ToIntFunction<? super K> idOf) {
+            if(key == null) {
+                throw new IllegalArgumentException("Start or end cannot be null");
+            }
+            return DijkstraEngine.checkId(BatchRouter.this.graph, idOf.applyAsInt(key));
+        }
+
+        /**
+         * Fills order by counting sort on the start node, which keeps the given order of the
+         * queries sharing a start
+         */
+        private void sortByStart() {
+            int[] first = new int[BatchRouter.this.graph.sizeNodes() + 1];
+            for(int q = 0; q < this.size; q++) {
+                first[this.starts[q] + 1]++;
+            }
+            for(int u = 0; u < first.length - 1; u++) {
+                first[u + 1] += first[u];
+            }
+            this.order = new int[this.size];
+            for(int q = 0; q < this.size; q++) {
+                this.order[first[this.starts[q]]++] = q;
+            }
+        }
+
+        /**
+         * @return the key at the given index of keys
+         */
+        @SuppressWarnings("unchecked")
+        private K keyAt(int index) {
+            return (K) this.keys[index];
+        }
+    }
+
+    /**
+     * Iterates over the results of a batch, keeping a bounded number of searches running on the
+     * pool ahead of the caller
+     * @param <K> The type the starts and ends are given as
+     */
+    private final class Results<K> implements Iterator<RouteResult<K, N>> {
+
+        //The queries being answered
+        private final Batch<K> batch;
+
+        //The searches submitted but not yet handed to the caller, in order
+        private final ArrayDeque<ForkJoinTask<RouteResult<K, N>[]>> running;
+
+        //The index into batch.order of the first query not yet submitted
+        private int submitted;
+
+        //The results of the search being handed to the caller
+        private RouteResult<K, N>[] current;
+
+        //The index into current of the next result to hand to the caller
+        private int next;
+
+        /**
+         * Constructs a new Results, starting the first searches
+         * @param batch the queries to answer, sorted by start node
+         */
+        private Results(Batch<K> batch) {
+            this.batch = batch;
+            this.running = new ArrayDeque<>();
+            int window = BATCHES_PER_THREAD * BatchRouter.this.pool.getParallelism();
+            while(this.running.size() < window && submitNext()) {
+                //Keep submitting until the window is full or every query is submitted
+            }
+        }
+
+        /**
+         * Submits the search answering the next run of up to MAX_BATCH queries sharing a start
+         * @return false if every query had already been submitted
+         */
+        private boolean submitNext() {
+            int from = this.submitted;
+            if(from == this.batch.size) {
+                return false;
+            }
+            int start = this.batch.starts[this.batch.order[from]];
+            int to = from + 1;
+            while(to < this.batch.size && to - from < MAX_BATCH
+                    && this.batch.starts[this.batch.order[to]] == start) {
+                to++;
+            }
+            int end = to;
+            this.running.add(BatchRouter.this.pool.submit(() -> answer(this.batch, from, end)));
+            this.submitted = to;
+            return true;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return (this.current != null && this.next < this.current.length) || !this.running.isEmpty();
+        }
+
+        @Override
+        public RouteResult<K, N> next() {
+            if(this.current == null || this.next == this.current.length) {
+                ForkJoinTask<RouteResult<K, N>[]> task = this.running.poll();
+                if(task == null) {
+                    throw new NoSuchElementException();
+                }
+                this.current = task.join();
+                this.next = 0;
+                submitNext();
+            }
+            return this.current[this.next++];
+        }
+
+        /**
+         * Cancels every search not yet handed to the caller
+         */
+        private void cancel() {
+            for(ForkJoinTask<?> task: this.running) {
+                task.cancel(false);
+            }
+            this.running.clear();
+            this.submitted = this.batch.size;
+        }
+    }
+}
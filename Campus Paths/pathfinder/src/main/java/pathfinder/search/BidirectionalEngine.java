@@ -0,0 +1,140 @@
+package pathfinder.search;
+
+import graph.FrozenGraph;
+import pathfinder.datastructures.Path;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * BidirectionalEngine finds least cost paths with bidirectional Dijkstra: one search grows
+ * forward from the start over the graph while another grows backward from the end over the
+ * reversed graph, and the query stops once the two frontiers together cannot improve on the
+ * best meeting point found. On long routes each side explores roughly half the region a
+ * single search from the start would.
+ * @param <N> The value assigned to the node
+ */
+public final class BidirectionalEngine<N> implements RouteEngine<N> {
+
+    //The graph searched forward from the start
+    private final FrozenGraph<N> graph;
+
+    //The reverse of graph, searched backward from the end
+    private final FrozenGraph<N> reverse;
+
+    //The total number of nodes settled by every query so far, counting both directions
+    private final LongAdder settled;
+
+    //The workspace of the forward search of each thread that queries this engine
+    private final ThreadLocal<SearchWorkspace> forwardWorkspaces;
+
+    //The workspace of the backward search of each thread that queries this engine
+    private final ThreadLocal<SearchWorkspace> backwardWorkspaces;
+
+    /**
+     * Constructs a new BidirectionalEngine, building the reverse of graph up front
+     * @param graph the graph to search
+     * @throws IllegalArgumentException if graph is null
+     */
+    public BidirectionalEngine(FrozenGraph<N> graph) {
+        if(graph == null) {
+            throw new IllegalArgumentException("Graph cannot be null");
+        }
+        this.graph = graph;
+        this.reverse = graph.reverse();
+        this.settled = new LongAdder();
+        this.forwardWorkspaces = SearchWorkspace.perThread(graph.sizeNodes());
+        this.backwardWorkspaces = SearchWorkspace.perThread(graph.sizeNodes());
+    }
+
+    @Override
+    public Path<N> shortestPath(N start, N end) {
+        return shortestPathById(DijkstraEngine.idOf(this.graph, start), DijkstraEngine.idOf(this.graph, end));
+    }
+
+    @Override
+    public Path<N> shortestPathById(int start, int end) {
+        int s = DijkstraEngine.checkId(this.graph, start);
+        int t = DijkstraEngine.checkId(this.graph, end);
+        if(s == t) {
+            this.settled.increment();
+            return new Path<>(this.graph.nodeAt(s));
+        }
+        SearchWorkspace forward = this.forwardWorkspaces.get();
+        SearchWorkspace backward = this.backwardWorkspaces.get();
+        forward.begin();
+        backward.begin();
+        IndexedMinHeap activeF = forward.heap;
+        IndexedMinHeap activeB = backward.heap;
+
+        int count = 0;
+        double best = Double.POSITIVE_INFINITY;
+        int meet = -1;
+        forward.setDistance(s, 0);
+        backward.setDistance(t, 0);
+        activeF.insertOrDecrease(s, 0);
+        activeB.insertOrDecrease(t, 0);
+        while(!activeF.isEmpty() && !activeB.isEmpty()) {
+            //No path through either frontier can be shorter than the best meeting point
+            if(activeF.peekKey() + activeB.peekKey() >= best) {
+                break;
+            }
+            boolean isForward = activeF.size() <= activeB.size();
+            FrozenGraph<N> side = isForward ? this.graph : this.reverse;
+            SearchWorkspace workspace = isForward ? forward : backward;
+            SearchWorkspace other = isForward ? backward : forward;
+            IndexedMinHeap active = workspace.heap;
+
+            int u = active.pollMin();
+            workspace.settle(u);
+            count++;
+            double du = workspace.distance(u);
+            for(int e = side.firstEdge(u); e < side.endEdge(u); e++) {
+                int v = side.target(e);
+                double dv = du + side.weight(e);
+                if(!workspace.isSettled(v) && dv < workspace.distance(v)) {
+                    workspace.setDistance(v, dv);
+                    workspace.prevNode[v] = u;
+                    workspace.prevEdge[v] = e;
+                    active.insertOrDecrease(v, dv);
+                }
+                if(dv + other.distance(v) < best) {
+                    best = dv + other.distance(v);
+                    meet = v;
+                }
+            }
+        }
+        this.settled.add(count);
+        if(meet < 0) {
+            //There is no path
+            return null;
+        }
+        return join(s, t, meet, forward, backward);
+    }
+
+    /**
+     * Builds the path from s to t through the meeting point of the two searches
+     * @return the forward tree's path from s to meet followed by the backward tree's path from meet to t
+     */
+    private Path<N> join(int s, int t, int meet, SearchWorkspace forward, SearchWorkspace backward) {
+        Path<N> path = PathBuilder.fromTree(this.graph, forward, s, meet);
+        int length = 0;
+        for(int v = meet; v != t; v = backward.prevNode[v]) {
+            length++;
+        }
+        List<N> ends = new ArrayList<>(length);
+        double[] costs = new double[length];
+        int i = 0;
+        for(int v = meet; v != t; v = backward.prevNode[v]) {
+            ends.add(this.graph.nodeAt(backward.prevNode[v]));
+            costs[i++] = this.reverse.weight(backward.prevEdge[v]);
+        }
+        return path.extend(ends, costs);
+    }
+
+    @Override
+    public long settledCount() {
+        return this.settled.sum();
+    }
+}
@@ -0,0 +1,621 @@
+package pathfinder.search;
+
+import graph.FrozenGraph;
+import pathfinder.datastructures.Path;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ContractionHierarchy answers least cost path queries over a static graph using contraction
+ * hierarchies. Construction contracts the nodes one at a time in order of importance, adding
+ * a shortcut edge wherever removing a node would lengthen a shortest path between its
+ * neighbors. Each node's rank is the order it was contracted in. A query then runs a
+ * bidirectional Dijkstra that only ever moves to higher ranked nodes, which settles a small
+ * fraction of the graph, and unpacks every shortcut on the route back into the edges it stands
+ * for before building the Path.
+ * @param <N> The value assigned to the node
+ */
+public final class ContractionHierarchy<N> implements RouteEngine<N> {
+
+    //The most nodes a witness search may settle before giving up and adding the shortcut
+    private static final int WITNESS_SETTLE_LIMIT = 128;
+
+    //The graph the hierarchy was built over
+    private final FrozenGraph<N> graph;
+
+    //The order each node was contracted in, indexed by id
+    private final int[] rank;
+
+    //The upward arcs of node u, to higher ranked nodes, are upOffsets[u] (inclusive) to upOffsets[u + 1] (exclusive)
+    private final int[] upOffsets;
+
+    //The node each upward arc ends at
+    private final int[] upTargets;
+
+    //The cost of each upward arc
+    private final double[] upWeights;
+
+    //The node each upward arc is a shortcut around, or -1 if the arc is an edge of graph
+    private final int[] upMiddles;
+
+    //The downward arcs into node u, from higher ranked nodes, are downOffsets[u] (inclusive) to downOffsets[u + 1] (exclusive)
+    private final int[] downOffsets;
+
+    //The node each downward arc begins at
+    private final int[] downSources;
+
+    //The cost of each downward arc
+    private final double[] downWeights;
+
+    //The node each downward arc is a shortcut around, or -1 if the arc is an edge of graph
+    private final int[] downMiddles;
+
+    //The number of shortcut arcs added while contracting
+    private final int shortcuts;
+
+    //The total number of nodes settled by every query so far, counting both directions
+    private final LongAdder settled;
+
+    //The workspace of the upward search from the start of each thread that queries this hierarchy
+    private final ThreadLocal<SearchWorkspace> forwardWorkspaces;
+
+    //The workspace of the upward search from the end of each thread that queries this hierarchy
+    private final ThreadLocal<SearchWorkspace> backwardWorkspaces;
+
+    //Abstraction function:
+    //A ContractionHierarchy h is graph together with the arcs of the upward and downward lists, where every
+    //arc from a to b with middle m >= 0 stands for the arc from a to m followed by the arc from m to b
+
+    //Representation Invariant
+    //rank is a permutation of 0 ... graph.sizeNodes() - 1 && rank[upTargets[e]] > rank[u] for every upward
+    //arc e of u && rank[downSources[e]] > rank[u] for every downward arc e of u && every arc with a middle m has
+    //rank[m] lower than the ranks of both its ends
+
+    /**
+     * Constructs a new ContractionHierarchy, contracting every node of graph
+     * @param graph the graph to build the hierarchy over
+     * @throws IllegalArgumentException if graph is null
+     */
+    public ContractionHierarchy(FrozenGraph<N> graph) {
+        if(graph == null) {
+            throw new IllegalArgumentException("Graph cannot be null");
+        }
+        this.graph = graph;
+        Contractor contractor = new Contractor(graph);
+        contractor.contractAll();
+        this.rank = contractor.rank;
+        this.shortcuts = contractor.shortcuts;
+
+        int size = graph.sizeNodes();
+        this.upOffsets = new int[size + 1];
+        this.downOffsets = new int[size + 1];
+        for(int u = 0; u < size; u++) {
+            this.upOffsets[u + 1] = this.upOffsets[u] + contractor.out[u].countHigher(u, this.rank);
+            this.downOffsets[u + 1] = this.downOffsets[u] + contractor.in[u].countHigher(u, this.rank);
+        }
+        this.upTargets = new int[this.upOffsets[size]];
+        this.upWeights = new double[this.upOffsets[size]];
+        this.upMiddles = new int[this.upOffsets[size]];
+        this.downSources = new int[this.downOffsets[size]];
+        this.downWeights = new double[this.downOffsets[size]];
+        this.downMiddles = new int[this.downOffsets[size]];
+        for(int u = 0; u < size; u++) {
+            contractor.out[u].copyHigher(u, this.rank, this.upOffsets[u], this.upTargets, this.upWeights, this.upMiddles);
+            contractor.in[u].copyHigher(u, this.rank, this.downOffsets[u], this.downSources, this.downWeights,
+                    this.downMiddles);
+        }
+        this.settled = new LongAdder();
+        this.forwardWorkspaces = SearchWorkspace.perThread(size);
+        this.backwardWorkspaces = SearchWorkspace.perThread(size);
+        checkRep();
+    }
+
+    /**
+     * Throws an exception if the representation invariant is violated.
+     */
+    private void checkRep() {
+        assert(this.rank.length == this.graph.sizeNodes());
+        assert(this.upOffsets[this.rank.length] == this.upTargets.length);
+        assert(this.downOffsets[this.rank.length] == this.downSources.length);
+    }
+
+    /**
+     * @return the number of shortcut arcs added while building this hierarchy
+     */
+    public int shortcutCount() {
+        return this.shortcuts;
+    }
+
+    @Override
+    public Path<N> shortestPath(N start, N end) {
+        return shortestPathById(DijkstraEngine.idOf(this.graph, start), DijkstraEngine.idOf(this.graph, end));
+    }
+
+    @Override
+    public Path<N> shortestPathById(int start, int end) {
+        int s = DijkstraEngine.checkId(this.graph, start);
+        int t = DijkstraEngine.checkId(this.graph, end);
+        if(s == t) {
+            this.settled.increment();
+            return new Path<>(this.graph.nodeAt(s));
+        }
+        SearchWorkspace forward = this.forwardWorkspaces.get();
+        SearchWorkspace backward = this.backwardWorkspaces.get();
+        forward.begin();
+        backward.begin();
+        IndexedMinHeap activeF = forward.heap;
+        IndexedMinHeap activeB = backward.heap;
+
+        int count = 0;
+        double best = Double.POSITIVE_INFINITY;
+        int meet = -1;
+        forward.setDistance(s, 0);
+        backward.setDistance(t, 0);
+        activeF.insertOrDecrease(s, 0);
+        activeB.insertOrDecrease(t, 0);
+        while(true) {
+            //Each side may stop once its frontier cannot lead to a cheaper meeting point
+            boolean canF = !activeF.isEmpty() && activeF.peekKey() < best;
+            boolean canB = !activeB.isEmpty() && activeB.peekKey() < best;
+            if(!canF && !canB) {
+                break;
+            }
+            count++;
+            if(canF && (!canB || activeF.peekKey() <= activeB.peekKey())) {
+                int u = activeF.pollMin();
+                double du = forward.distance(u);
+                if(du + backward.distance(u) < best) {
+                    best = du + backward.distance(u);
+                    meet = u;
+                }
+                for(int e = this.upOffsets[u]; e < this.upOffsets[u + 1]; e++) {
+                    int v = this.upTargets[e];
+                    double dv = du + this.upWeights[e];
+                    if(dv < forward.distance(v)) {
+                        forward.setDistance(v, dv);
+                        forward.prevNode[v] = u;
+                        forward.prevEdge[v] = e;
+                        activeF.insertOrDecrease(v, dv);
+                    }
+                }
+            } else {
+                int u = activeB.pollMin();
+                double du = backward.distance(u);
+                if(du + forward.distance(u) < best) {
+                    best = du + forward.distance(u);
+                    meet = u;
+                }
+                for(int e = this.downOffsets[u]; e < this.downOffsets[u + 1]; e++) {
+                    int v = this.downSources[e];
+                    double dv = du + this.downWeights[e];
+                    if(dv < backward.distance(v)) {
+                        backward.setDistance(v, dv);
+                        backward.prevNode[v] = u;
+                        backward.prevEdge[v] = e;
+                        activeB.insertOrDecrease(v, dv);
+                    }
+                }
+            }
+        }
+        this.settled.add(count);
+        if(meet < 0) {
+            //There is no path
+            return null;
+        }
+        return unpack(s, t, meet, forward, backward);
+    }
+
+    @Override
+    public long settledCount() {
+        return this.settled.sum();
+    }
+
+    /**
+     * Builds the path from s to t through the meeting point of the two upward searches, replacing
+     * every shortcut with the edges of graph it stands for
+     * @param forward the workspace of the search from s, whose prevEdge holds upward arcs
+     * @param backward the workspace of the search from t, whose prevEdge holds downward arcs
+     * @return the least cost path from s to t through meet
+     */
+    private Path<N> unpack(int s, int t, int meet, SearchWorkspace forward, SearchWorkspace backward) {
+        int[] prevNodeF = forward.prevNode;
+        int[] prevArcF = forward.prevEdge;
+        int[] prevNodeB = backward.prevNode;
+        int[] prevArcB = backward.prevEdge;
+        //Arcs still to be unpacked, as (from, to, arc) triples where upward arcs are stored as their
+        //index and downward arcs as the bitwise complement of their index. The top of the stack is
+        //always the next arc along the route
+        ArcStack pending = new ArcStack();
+        int[] downward = backward.route;
+        int length = 0;
+        for(int v = meet; v != t; v = prevNodeB[v]) {
+            downward[length++] = v;
+        }
+        //Push from the end of the route backwards, so the arc out of s ends up on top
+        for(int i = length - 1; i >= 0; i--) {
+            int v = downward[i];
+            pending.push(v, prevNodeB[v], ~prevArcB[v]);
+        }
+        for(int v = meet; v != s; v = prevNodeF[v]) {
+            pending.push(prevNodeF[v], v, prevArcF[v]);
+        }
+
+        //The nodes and costs of the unpacked edges, appended to the path all at once
+        List<N> ends = new ArrayList<>();
+        double[] costs = new double[16];
+        while(!pending.isEmpty()) {
+            int arc = pending.topArc();
+            int from = pending.topFrom();
+            int to = pending.topTo();
+            pending.pop();
+            double weight = arc >= 0 ? this.upWeights[arc] : this.downWeights[~arc];
+            int middle = arc >= 0 ? this.upMiddles[arc] : this.downMiddles[~arc];
+            if(middle < 0) {
+                if(ends.size() == costs.length) {
+                    costs = Arrays.copyOf(costs, costs.length * 2);
+                }
+                costs[ends.size()] = weight;
+                ends.add(this.graph.nodeAt(to));
+            } else {
+                //The middle was contracted before both ends, so from reaches it by a downward arc
+                //into middle and it reaches to by an upward arc out of middle
+                pending.push(middle, to, findUp(middle, to));
+                pending.push(from, middle, ~findDown(middle, from));
+            }
+        }
+        return new Path<>(this.graph.nodeAt(s)).extend(ends, Arrays.copyOf(costs, ends.size()));
+    }
+
+    /**
+     * @return the index of the upward arc from u to target
+     */
+    private int findUp(int u, int target) {
+        for(int e = this.upOffsets[u]; e < this.upOffsets[u + 1]; e++) {
+            if(this.upTargets[e] == target) {
+                return e;
+            }
+        }
+        throw new IllegalStateException("Missing upward arc in contraction hierarchy");
+    }
+
+    /**
+     * @return the index of the downward arc into u from source
+     */
+    private int findDown(int u, int source) {
+        for(int e = this.downOffsets[u]; e < this.downOffsets[u + 1]; e++) {
+            if(this.downSources[e] == source) {
+                return e;
+            }
+        }
+        throw new IllegalStateException("Missing downward arc in contraction hierarchy");
+    }
+
+    /**
+     * A growable stack of (from, to, arc) triples used while unpacking shortcuts.
+     */
+    private static final class ArcStack {
+
+        private int[] entries = new int[48];
+
+        private int size = 0;
+
+        void push(int from, int to, int arc) {
+            if(this.size + 3 > this.entries.length) {
+                this.entries = Arrays.copyOf(this.entries, this.entries.length * 2);
+            }
+            this.entries[this.size++] = from;
+            this.entries[this.size++] = to;
+            this.entries[this.size++] = arc;
+        }
+
+        boolean isEmpty() {
+            return this.size == 0;
+        }
+
+        int topFrom() {
+            return this.entries[this.size - 3];
+        }
+
+        int topTo() {
+            return this.entries[this.size - 2];
+        }
+
+        int topArc() {
+            return this.entries[this.size - 1];
+        }
+
+        void pop() {
+            this.size -= 3;
+        }
+    }
+
+    /**
+     * A growable list of arcs leaving (or entering) one node during contraction, holding at most
+     * one arc per neighbor.
+     */
+    private static final class ArcList {
+
+        private int[] nodes = new int[4];
+
+        private double[] weights = new double[4];
+
+        private int[] middles = new int[4];
+
+        private int size = 0;
+
+        /**
+         * Adds an arc to node, or lowers the cost of the existing arc to node
+         * @return true if and only if the list changed
+         */
+        boolean add(int node, double weight, int middle) {
+            for(int i = 0; i < this.size; i++) {
+                if(this.nodes[i] == node) {
+                    if(weight < this.weights[i]) {
+                        this.weights[i] = weight;
+                        this.middles[i] = middle;
+                        return true;
+                    }
+                    return false;
+                }
+            }
+            if(this.size == this.nodes.length) {
+                this.nodes = Arrays.copyOf(this.nodes, this.size * 2);
+                this.weights = Arrays.copyOf(this.weights, this.size * 2);
+                this.middles = Arrays.copyOf(this.middles, this.size * 2);
+            }
+            this.nodes[this.size] = node;
+            this.weights[this.size] = weight;
+            this.middles[this.size] = middle;
+            this.size++;
+            return true;
+        }
+
+        /**
+         * @return the number of arcs to nodes ranked higher than u
+         */
+        int countHigher(int u, int[] rank) {
+            int count = 0;
+            for(int i = 0; i < this.size; i++) {
+                if(rank[this.nodes[i]] > rank[u]) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Copies the arcs to nodes ranked higher than u into the given arrays, starting at index at
+         */
+        void copyHigher(int u, int[] rank, int at, int[] toNodes, double[] toWeights, int[] toMiddles) {
+            for(int i = 0; i < this.size; i++) {
+                if(rank[this.nodes[i]] > rank[u]) {
+                    toNodes[at] = this.nodes[i];
+                    toWeights[at] = this.weights[i];
+                    toMiddles[at] = this.middles[i];
+                    at++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Contracts the nodes of a graph one at a time, cheapest first, recording the order and the
+     * shortcuts needed to keep every shortest path between the remaining nodes intact.
+     */
+    private static final class Contractor {
+
+        //The arcs leaving each node, including shortcuts and arcs to contracted nodes
+        final ArcList[] out;
+
+        //The arcs entering each node, including shortcuts and arcs from contracted nodes
+        final ArcList[] in;
+
+        //The order each node was contracted in
+        final int[] rank;
+
+        //Whether each node has been contracted
+        private final boolean[] contracted;
+
+        //The number of neighbors of each node that have already been contracted
+        private final int[] deletedNeighbors;
+
+        //The tentative distance of each node in the current witness search
+        private final double[] witnessDist;
+
+        //The nodes whose witnessDist has been set by the current witness search
+        private final int[] touched;
+
+        //The number of entries of touched in use
+        private int touchedCount;
+
+        //The frontier of the current witness search
+        private final IndexedMinHeap witnessActive;
+
+        //The number of shortcut arcs added so far
+        int shortcuts;
+
+        Contractor(FrozenGraph<?> graph) {
+            int size = graph.sizeNodes();
+            this.out = new ArcList[size];
+            this.in = new ArcList[size];
+            for(int u = 0; u < size; u++) {
+                this.out[u] = new ArcList();
+                this.in[u] = new ArcList();
+            }
+            for(int u = 0; u < size; u++) {
+                for(int e = graph.firstEdge(u); e < graph.endEdge(u); e++) {
+                    int v = graph.target(e);
+                    if(v != u) {
+                        this.out[u].add(v, graph.weight(e), -1);
+                        this.in[v].add(u, graph.weight(e), -1);
+                    }
+                }
+            }
+            this.rank = new int[size];
+            this.contracted = new boolean[size];
+            this.deletedNeighbors = new int[size];
+            this.witnessDist = new double[size];
+            Arrays.fill(this.witnessDist, Double.POSITIVE_INFINITY);
+            this.touched = new int[size];
+            this.witnessActive = new IndexedMinHeap(size);
+        }
+
+        /**
+         * Contracts every node, always picking the node with the lowest priority next. Priorities
+         * go stale as neighbors are contracted, so each node's priority is recomputed when it
+         * reaches the front and it is put back if it is no longer the cheapest.
+         */
+        void contractAll() {
+            int size = this.rank.length;
+            IndexedMinHeap order = new IndexedMinHeap(size);
+            for(int v = 0; v < size; v++) {
+                order.insertOrDecrease(v, priority(v));
+            }
+            int next = 0;
+            while(!order.isEmpty()) {
+                int v = order.pollMin();
+                double current = priority(v);
+                if(!order.isEmpty() && current > order.peekKey()) {
+                    order.insertOrDecrease(v, current);
+                    continue;
+                }
+                this.shortcuts += contract(v, false);
+                this.contracted[v] = true;
+                this.rank[v] = next++;
+                markNeighbors(this.out[v]);
+                markNeighbors(this.in[v]);
+            }
+        }
+
+        /**
+         * Counts one more contracted neighbor for every live node in arcs
+         */
+        private void markNeighbors(ArcList arcs) {
+            for(int i = 0; i < arcs.size; i++) {
+                if(!this.contracted[arcs.nodes[i]]) {
+                    this.deletedNeighbors[arcs.nodes[i]]++;
+                }
+            }
+        }
+
+        /**
+         * Estimates how costly contracting v would be, as the number of shortcuts it needs less the
+         * number of arcs it removes, plus the number of its neighbors already contracted so that
+         * contraction spreads evenly over the graph
+         */
+        private double priority(int v) {
+            int removed = 0;
+            for(int i = 0; i < this.out[v].size; i++) {
+                if(!this.contracted[this.out[v].nodes[i]]) {
+                    removed++;
+                }
+            }
+            for(int i = 0; i < this.in[v].size; i++) {
+                if(!this.contracted[this.in[v].nodes[i]]) {
+                    removed++;
+                }
+            }
+            return contract(v, true) - removed + this.deletedNeighbors[v];
+        }
+
+        /**
+         * Adds a shortcut from u to x around v for every live pair of in and out neighbors whose
+         * shortest connection runs through v
+         * @param v the node to contract
+         * @param simulate if true, only count the shortcuts without adding them
+         * @return the number of shortcuts needed
+         */
+        private int contract(int v, boolean simulate) {
+            ArcList ins = this.in[v];
+            ArcList outs = this.out[v];
+            int added = 0;
+            for(int i = 0; i < ins.size; i++) {
+                int u = ins.nodes[i];
+                if(this.contracted[u]) {
+                    continue;
+                }
+                double maxOut = -1;
+                for(int j = 0; j < outs.size; j++) {
+                    int x = outs.nodes[j];
+                    if(x != u && !this.contracted[x]) {
+                        maxOut = Math.max(maxOut, outs.weights[j]);
+                    }
+                }
+                if(maxOut < 0) {
+                    continue;
+                }
+                witnessSearch(u, v, ins.weights[i] + maxOut);
+                for(int j = 0; j < outs.size; j++) {
+                    int x = outs.nodes[j];
+                    if(x == u || this.contracted[x]) {
+                        continue;
+                    }
+                    double through = ins.weights[i] + outs.weights[j];
+                    if(this.witnessDist[x] > through) {
+                        added++;
+                        if(!simulate) {
+                            this.out[u].add(x, through, v);
+                            this.in[x].add(u, through, v);
+                        }
+                    }
+                }
+                resetWitness();
+            }
+            return added;
+        }
+
+        /**
+         * Runs a bounded Dijkstra from u over the live nodes other than skip, stopping at the cost
+         * limit or after WITNESS_SETTLE_LIMIT nodes. Nodes it does not reach keep an infinite
+         * distance, which at worst adds a shortcut that was not strictly needed.
+         */
+        private void witnessSearch(int u, int skip, double limit) {
+            touch(u, 0);
+            this.witnessActive.insertOrDecrease(u, 0);
+            int count = 0;
+            while(!this.witnessActive.isEmpty() && count < WITNESS_SETTLE_LIMIT) {
+                if(this.witnessActive.peekKey() > limit) {
+                    break;
+                }
+                int w = this.witnessActive.pollMin();
+                count++;
+                ArcList arcs = this.out[w];
+                for(int i = 0; i < arcs.size; i++) {
+                    int x = arcs.nodes[i];
+                    if(x == skip || this.contracted[x]) {
+                        continue;
+                    }
+                    double dx = this.witnessDist[w] + arcs.weights[i];
+                    if(dx < this.witnessDist[x]) {
+                        touch(x, dx);
+                        this.witnessActive.insertOrDecrease(x, dx);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Sets the witness distance of x, remembering it so it can be reset later
+         */
+        private void touch(int x, double dist) {
+            if(this.witnessDist[x] == Double.POSITIVE_INFINITY) {
+                this.touched[this.touchedCount++] = x;
+            }
+            this.witnessDist[x] = dist;
+        }
+
+        /**
+         * Clears everything the last witness search set
+         */
+        private void resetWitness() {
+            for(int i = 0; i < this.touchedCount; i++) {
+                this.witnessDist[this.touched[i]] = Double.POSITIVE_INFINITY;
+            }
+            this.touchedCount = 0;
+            this.witnessActive.clear();
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package pathfinder.search;
+
+import graph.FrozenGraph;
+import pathfinder.datastructures.Path;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * DijkstraEngine finds least cost paths over a FrozenGraph with Dijkstra's algorithm. The
+ * search keeps only primitive distance and predecessor arrays plus an IndexedMinHeap with
+ * decrease-key, all held in a workspace each thread reuses across queries, and builds a Path
+ * for the final route alone, so a steady stream of queries allocates little beyond the Paths.
+ * @param <N> The value assigned to the node
+ */
+public final class DijkstraEngine<N> implements RouteEngine<N> {
+
+    //The graph searched by this engine
+    private final FrozenGraph<N> graph;
+
+    //The total number of nodes settled by every query so far
+    private final LongAdder settled;
+
+    //The search workspace of each thread that queries this engine
+    private final ThreadLocal<SearchWorkspace> workspaces;
+
+    /**
+     * Constructs a new DijkstraEngine
+     * @param graph the graph to search
+     * @throws IllegalArgumentException if graph is null
+     */
+    public DijkstraEngine(FrozenGraph<N> graph) {
+        if(graph == null) {
+            throw new IllegalArgumentException("Graph cannot be null");
+        }
+        this.graph = graph;
+        this.settled = new LongAdder();
+        this.workspaces = SearchWorkspace.perThread(graph.sizeNodes());
+    }
+
+    @Override
+    public Path<N> shortestPath(N start, N end) {
+        return shortestPathById(idOf(this.graph, start), idOf(this.graph, end));
+    }
+
+    @Override
+    public Path<N> shortestPathById(int start, int end) {
+        int s = checkId(this.graph, start);
+        int t = checkId(this.graph, end);
+        SearchWorkspace workspace = workspace();
+        workspace.begin();
+        IndexedMinHeap active = workspace.heap;
+
+        int count = 0;
+        workspace.setDistance(s, 0);
+        active.insertOrDecrease(s, 0);
+        try {
+            while(!active.isEmpty()) {
+                int u = active.pollMin();
+                workspace.settle(u);
+                count++;
+                if(u == t) {
+                    return PathBuilder.fromTree(this.graph, workspace, s, t);
+                }
+                double du = workspace.distance(u);
+                for(int e = this.graph.firstEdge(u); e < this.graph.endEdge(u); e++) {
+                    int v = this.graph.target(e);
+                    double dv = du + this.graph.weight(e);
+                    if(!workspace.isSettled(v) && dv < workspace.distance(v)) {
+                        workspace.setDistance(v, dv);
+                        workspace.prevNode[v] = u;
+                        workspace.prevEdge[v] = e;
+                        active.insertOrDecrease(v, dv);
+                    }
+                }
+            }
+            //There is no path
+            return null;
+        } finally {
+            this.settled.add(count);
+        }
+    }
+
+    /**
+     * Grows the shortest path tree from a start node to every node reachable from it
+     * @param start the root of the tree
+     * @return the least cost paths from start to every node it can reach
+     * @throws IllegalArgumentException if start is null or not in the graph
+     */
+    public ShortestPathTree<N> shortestPathTree(N start) {
+        return shortestPathTree(idOf(this.graph, start), null, 0);
+    }
+
+    /**
+     * Finds the least cost path from a start node to each of several end nodes with a single
+     * search, which stops as soon as every end node is settled
+     * @param start the starting node of every path
+     * @param ends the nodes the paths should end at
+     * @return a map from each end node to its least cost path from start, or to null if there is no path
+     * @throws IllegalArgumentException if start or ends is null, or any of them is not in the graph
+     */
+    public Map<N, Path<N>> shortestPaths(N start, Collection<N> ends) {
+        int s = idOf(this.graph, start);
+        if(ends == null) {
+            throw new IllegalArgumentException("End nodes cannot be null");
+        }
+        ShortestPathTree<N> tree = shortestPathTreeTo(s, idsOf(ends), -1);
+        Map<N, Path<N>> paths = new HashMap<>();
+        for(N end: ends) {
+            paths.put(end, tree.pathTo(this.graph.idOf(end)));
+        }
+        return paths;
+    }
+
+    /**
+     * Grows the shortest path tree from a start node only until a given number of the target
+     * nodes have been settled, so that the closest targets can be found without exploring the
+     * whole graph. The settled targets are exactly the stopAfter targets nearest to start
+     * (fewer if not enough are reachable), with ties broken arbitrarily
+     * @param start the root of the tree
+     * @param targets the nodes to count as they are settled
+     * @param stopAfter the number of targets to settle before stopping
+     * @return the least cost paths from start to every node settled before the search stopped
+     * @throws IllegalArgumentException if start or targets is null, any of them is not in the
+     *                                  graph, or stopAfter is negative
+     */
+    public ShortestPathTree<N> shortestPathTree(N start, Collection<N> targets, int stopAfter) {
+        int s = idOf(this.graph, start);
+        if(targets == null || stopAfter < 0) {
+            throw new IllegalArgumentException("Targets cannot be null and stopAfter cannot be negative");
+        }
+        return shortestPathTreeTo(s, idsOf(targets), stopAfter);
+    }
+
+    /**
+     * Grows the shortest path tree from node s until a given number of the target nodes have been
+     * settled, marking the targets in the calling thread's workspace for the search and unmarking
+     * them after, so that no array the size of the graph is allocated
+     * @param s the id of the root of the tree
+     * @param targets the ids of the targets, possibly with repeats
+     * @param stopAfter the number of distinct targets to settle before stopping, or -1 for all of them
+     * @return the least cost paths from s to every node settled before the search stopped
+     */
+    private ShortestPathTree<N> shortestPathTreeTo(int s, int[] targets, int stopAfter) {
+        boolean[] isTarget = workspace().isTarget;
+        int count = 0;
+        try {
+            for(int t: targets) {
+                if(!isTarget[t]) {
+                    isTarget[t] = true;
+                    count++;
+                }
+            }
+            return shortestPathTree(s, isTarget, stopAfter < 0 ? count : stopAfter);
+        } finally {
+            for(int t: targets) {
+                isTarget[t] = false;
+            }
+        }
+    }
+
+    /**
+     * Looks up the ids of query endpoints
+     * @param nodes the nodes to look up
+     * @return the id of each of nodes in the graph, in the same order
+     * @throws IllegalArgumentException if any of nodes is null or not in the graph
+     */
+    private int[] idsOf(Collection<N> nodes) {
+        int[] ids = new int[nodes.size()];
+        int i = 0;
+        for(N node: nodes) {
+            ids[i++] = idOf(this.graph, node);
+        }
+        return ids;
+    }
+
+    /**
+     * Finds every node whose least cost from a start node is at most a budget, such as every
+     * point within a ten minute walk. The search never queues a node it cannot reach within
+     * the budget, so it explores nothing beyond the budget and takes time proportional to the
+     * part of the graph reached rather than to the whole graph
+     * @param start the node to search from
+     * @param maxCost the most a path to a reached node may cost
+     * @return every node reachable from start within maxCost, with its least cost, nearest first
+     * @throws IllegalArgumentException if start is null or not in the graph, or maxCost is
+     *                                  negative or NaN
+     */
+    public ReachableSet<N> reachableWithin(N start, double maxCost) {
+        int s = idOf(this.graph, start);
+        if(!(maxCost >= 0)) {
+            throw new IllegalArgumentException("Budget must be a non-negative number");
+        }
+        SearchWorkspace workspace = workspace();
+        workspace.begin();
+        IndexedMinHeap active = workspace.heap;
+
+        int[] nodes = new int[16];
+        double[] costs = new double[16];
+        int count = 0;
+        workspace.setDistance(s, 0);
+        active.insertOrDecrease(s, 0);
+        try {
+            while(!active.isEmpty()) {
+                int u = active.pollMin();
+                workspace.settle(u);
+                double du = workspace.distance(u);
+                if(count == nodes.length) {
+                    nodes = Arrays.copyOf(nodes, count * 2);
+                    costs = Arrays.copyOf(costs, count * 2);
+                }
+                nodes[count] = u;
+                costs[count] = du;
+                count++;
+                for(int e = this.graph.firstEdge(u); e < this.graph.endEdge(u); e++) {
+                    int v = this.graph.target(e);
+                    double dv = du + this.graph.weight(e);
+                    if(dv <= maxCost && !workspace.isSettled(v) && dv < workspace.distance(v)) {
+                        workspace.setDistance(v, dv);
+                        active.insertOrDecrease(v, dv);
+                    }
+                }
+            }
+        } finally {
+            this.settled.add(count);
+        }
+        return new ReachableSet<>(this.graph, maxCost, Arrays.copyOf(nodes, count), Arrays.copyOf(costs, count));
+    }
+
+    /**
+     * Grows the shortest path tree from node s, stopping as soon as every target is settled.
+     * Nodes the search reached but did not settle are left out of the tree. A tree grown over the
+     * whole graph holds every node; one that is only grown to targets holds just the nodes it
+     * settled, so it takes time and space proportional to the part of the graph searched
+     * @param s the id of the root of the tree
+     * @param isTarget marks the ids of the targets, or null to grow the tree over the whole graph
+     * @param targetCount the number of ids marked in isTarget
+     * @return the least cost paths from s to every node settled before the search stopped
+     */
+    ShortestPathTree<N> shortestPathTree(int s, boolean[] isTarget, int targetCount) {
+        SearchWorkspace workspace = workspace();
+        workspace.begin();
+        IndexedMinHeap active = workspace.heap;
+
+        int count = 0;
+        int remaining = targetCount;
+        boolean complete = true;
+        //The ids of the settled nodes in the order they were settled, kept only for a tree grown to targets
+        int[] order = isTarget == null ? null : new int[16];
+        workspace.setDistance(s, 0);
+        if(isTarget != null && remaining <= 0) {
+            //Nothing needs settling, so the tree is just s
+            workspace.settle(s);
+            order[count++] = s;
+            complete = false;
+        } else {
+            active.insertOrDecrease(s, 0);
+        }
+        while(!active.isEmpty()) {
+            int u = active.pollMin();
+            workspace.settle(u);
+            if(order != null) {
+                if(count == order.length) {
+                    order = Arrays.copyOf(order, count * 2);
+                }
+                order[count] = u;
+            }
+            count++;
+            if(isTarget != null && isTarget[u] && --remaining == 0) {
+                //The tree only misses nodes if some were still waiting to be settled, or u has
+                //edges that were never followed
+                complete = active.isEmpty() && this.graph.firstEdge(u) == this.graph.endEdge(u);
+                break;
+            }
+            double du = workspace.distance(u);
+            for(int e = this.graph.firstEdge(u); e < this.graph.endEdge(u); e++) {
+                int v = this.graph.target(e);
+                double dv = du + this.graph.weight(e);
+                if(!workspace.isSettled(v) && dv < workspace.distance(v)) {
+                    workspace.setDistance(v, dv);
+                    workspace.prevEdge[v] = e;
+                    active.insertOrDecrease(v, dv);
+                }
+            }
+        }
+        this.settled.add(count);
+        if(order != null) {
+            //Copy out only the settled nodes, whose distances are final
+            int[] ids = Arrays.copyOf(order, count);
+            double[] dist = new double[count];
+            int[] prevEdge = new int[count];
+            for(int i = 0; i < count; i++) {
+                dist[i] = workspace.distance(ids[i]);
+                prevEdge[i] = ids[i] == s ? -1 : workspace.prevEdge[ids[i]];
+            }
+            return new ShortestPathTree<>(this.graph, s, ids, dist, prevEdge, complete);
+        }
+        //Copy out the settled nodes, leaving out those reached but never settled, whose distances
+        //are not final
+        int size = this.graph.sizeNodes();
+        double[] dist = new double[size];
+        int[] prevEdge = new int[size];
+        for(int v = 0; v < size; v++) {
+            if(workspace.isSettled(v)) {
+                dist[v] = workspace.distance(v);
+                prevEdge[v] = workspace.prevEdge[v];
+            } else {
+                dist[v] = Double.POSITIVE_INFINITY;
+                prevEdge[v] = -1;
+            }
+        }
+        prevEdge[s] = -1;
+        return new ShortestPathTree<>(this.graph, s, dist, prevEdge, complete);
+    }
+
+    /**
+     * Gets the search workspace of the calling thread, which every search of this engine on
+     * that thread shares, so a search must not run while another on the same thread is unfinished
+     * @return the calling thread's workspace for this engine's graph
+     */
+    SearchWorkspace workspace() {
+        return this.workspaces.get();
+    }
+
+    @Override
+    public long settledCount() {
+        return this.settled.sum();
+    }
+
+    /**
+     * Looks up the id of a query endpoint
+     * @param graph the graph the node should be in
+     * @param node the node to look up
+     * @return the id of node in graph
+     * @param <N> The value assigned to the node
+     * @throws IllegalArgumentException if node is null or not in graph
+     */
+    static <N> int idOf(FrozenGraph<N> graph, N node) {
+        if(node == null) {
+            throw new IllegalArgumentException("Start or end cannot be null");
+        }
+        int id = graph.idOf(node);
+        if(id < 0) {
+            throw new IllegalArgumentException("start and end must both exist in map");
+        }
+        return id;
+    }
+
+    /**
+     * Checks the id of a query endpoint
+     * @param graph the graph the id should be in
+     * @param id the id to check
+     * @return id
+     * @param <N> The value assigned to the node
+     * @throws IllegalArgumentException if id is not a valid id of graph
+     */
+    static <N> int checkId(FrozenGraph<N> graph, int id) {
+        if(id < 0 || id >= graph.sizeNodes()) {
+            throw new IllegalArgumentException("start and end must both exist in map");
+        }
+        return id;
+    }
+}
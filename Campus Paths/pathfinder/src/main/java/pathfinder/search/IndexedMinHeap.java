@@ -0,0 +1,175 @@
+package pathfinder.search;
+
+import java.util.Arrays;
+
+/**
+ * <b>IndexedMinHeap</b> is a mutable binary min-heap of int ids in the range [0, capacity), each
+ * ordered by a double key. Unlike a PriorityQueue, an id can have its key lowered in place
+ * (decrease-key), so each id is stored at most once and no entry objects are allocated.
+ */
+public final class IndexedMinHeap {
+
+    //The ids in the heap, where heap[0] holds the id with the smallest key
+    private final int[] heap;
+
+    //The position of each id within heap, or -1 if the id is not in the heap
+    private final int[] position;
+
+    //The key of each id, only meaningful while the id is in the heap
+    private final double[] keys;
+
+    //The number of ids currently in the heap
+    private int size;
+
+    //Abstraction function:
+    //An IndexedMinHeap h is the set of pairs (heap[i], keys[heap[i]]) for 0 <= i < size
+
+    //Representation Invariant
+    //0 <= size <= heap.length && position[heap[i]] == i for 0 <= i < size && position[id] == -1 for every
+    //other id && keys[heap[(i - 1) / 2]] <= keys[heap[i]] for 0 < i < size
+
+    /**
+     * Constructs a new, empty IndexedMinHeap
+     * @param capacity is one more than the largest id that will be stored
+     * @spec.effects constructs an empty heap that can hold the ids 0 to capacity - 1
+     */
+    public IndexedMinHeap(int capacity) {
+        this.heap = new int[capacity];
+        this.position = new int[capacity];
+        this.keys = new double[capacity];
+        Arrays.fill(this.position, -1);
+        this.size = 0;
+    }
+
+    /**
+     * @return true if and only if there are no ids in this
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * @return the number of ids in this
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @param id is the id to look for
+     * @return true if and only if id is in this
+     */
+    public boolean contains(int id) {
+        return this.position[id] >= 0;
+    }
+
+    /**
+     * Inserts an id, or lowers its key if it is already in this with a larger key
+     * @param id is the id to insert
+     * @param key is the key to give the id
+     * @return true if and only if the id was inserted or its key was lowered
+     * @spec.modifies this
+     */
+    public boolean insertOrDecrease(int id, double key) {
+        int i = this.position[id];
+        if(i < 0) {
+            i = this.size++;
+            this.heap[i] = id;
+            this.position[id] = i;
+        } else if(key >= this.keys[id]) {
+            return false;
+        }
+        this.keys[id] = key;
+        siftUp(i);
+        return true;
+    }
+
+    /**
+     * @return the smallest key in this
+     * @throws IllegalStateException if this is empty
+     */
+    public double peekKey() {
+        if(this.size == 0) {
+            throw new IllegalStateException("Heap is empty");
+        }
+        return this.keys[this.heap[0]];
+    }
+
+    /**
+     * Removes the id with the smallest key
+     * @return the id with the smallest key
+     * @throws IllegalStateException if this is empty
+     * @spec.modifies this
+     */
+    public int pollMin() {
+        if(this.size == 0) {
+            throw new IllegalStateException("Heap is empty");
+        }
+        int min = this.heap[0];
+        this.position[min] = -1;
+        this.size--;
+        if(this.size > 0) {
+            int last = this.heap[this.size];
+            this.heap[0] = last;
+            this.position[last] = 0;
+            siftDown(0);
+        }
+        return min;
+    }
+
+    /**
+     * Removes every id from this, in time proportional to the number of ids removed
+     * @spec.modifies this
+     */
+    public void clear() {
+        for(int i = 0; i < this.size; i++) {
+            this.position[this.heap[i]] = -1;
+        }
+        this.size = 0;
+    }
+
+    /**
+     * Moves the id at heap[i] up until its parent's key is no larger than its own
+     */
+    private void siftUp(int i) {
+        int id = this.heap[i];
+        double key = this.keys[id];
+        while(i > 0) {
+            int parent = (i - 1) >>> 1;
+            int parentId = this.heap[parent];
+            if(this.keys[parentId] <= key) {
+                break;
+            }
+            this.heap[i] = parentId;
+            this.position[parentId] = i;
+            i = parent;
+        }
+        this.heap[i] = id;
+        this.position[id] = i;
+    }
+
+    /**
+     * Moves the id at heap[i] down until neither child has a smaller key
+     */
+    private void siftDown(int i) {
+        int id = this.heap[i];
+        double key = this.keys[id];
+        int half = this.size >>> 1;
+        while(i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if(right < this.size && this.keys[this.heap[right]] < this.keys[this.heap[child]]) {
+                child = right;
+            }
+            int childId = this.heap[child];
+            if(key <= this.keys[childId]) {
+                break;
+            }
+            this.heap[i] = childId;
+            this.position[childId] = i;
+            i = child;
+        }
+        this.heap[i] = id;
+        this.position[id] = i;
+    }
+}
@@ -0,0 +1,415 @@
+package pathfinder.search;
+
+import graph.FrozenGraph;
+import pathfinder.datastructures.Path;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * KShortestPaths finds the k least cost loopless paths between two nodes with Yen's algorithm,
+ * for offering a few alternative routes rather than only the shortest.
+ * <p>
+ * Yen's algorithm builds each new path by taking a prefix (the root) of a path already found,
+ * then searching for the best way on (the spur) from the root's last node that leaves the root's
+ * other nodes alone and avoids every edge already taken out of that node by a found path with
+ * the same root. Each query here starts with one backward search from the end over the whole
+ * graph, giving the exact least cost from every node to the end and the first edge of a least
+ * cost path from it, and every spur search of the query reuses that tree:
+ * <ul>
+ * <li>If the tree's path from the spur node is not blocked, it is the spur, and no search is
+ * needed at all.</li>
+ * <li>Otherwise the spur search is an A* search guided by the tree's costs, which never
+ * underestimate once edges are blocked. It goes straight to the end wherever nothing is in the
+ * way, and never enters a node that cannot reach the end.</li>
+ * </ul>
+ * Spur searches also start only at or past the node where the path they come from left the path
+ * it was derived from (Lawler's refinement), since the earlier spur nodes were already searched
+ * from, and a candidate path already found by an earlier spur search is dropped rather than
+ * queued twice. Each thread reuses one workspace for the backward search and one for the spur
+ * searches across its queries.
+ * @param <N> The value assigned to the node
+ */
+public final class KShortestPaths<N> {
+
+    //The graph searched by this engine
+    private final FrozenGraph<N> graph;
+
+    //Gives the edges of graph ending at each node: the edges ending at v are
+    //inEdges[inOffsets[v]] ... inEdges[inOffsets[v + 1] - 1]
+    private final int[] inOffsets;
+
+    //The edges of graph, ordered by the node they end at
+    private final int[] inEdges;
+
+    //The total number of nodes settled by every query so far
+    private final LongAdder settled;
+
+    //The workspace of each thread's backward search, which holds the cost from every node to the
+    //end, and the first edge of a least cost path to the end, for the whole of a query
+    private final ThreadLocal<SearchWorkspace> backwardWorkspaces;
+
+    //The workspace of each thread's spur searches
+    private final ThreadLocal<SearchWorkspace> spurWorkspaces;
+
+    /**
+     * Constructs a new KShortestPaths, listing the edges into every node up front
+     * @param graph the graph to search
+     * @throws IllegalArgumentException if graph is null
+     */
+    public KShortestPaths(FrozenGraph<N> graph) {
+        if(graph == null) {
+            throw new IllegalArgumentException("Graph cannot be null");
+        }
+        this.graph = graph;
+        int size = graph.sizeNodes();
+        this.inOffsets = new int[size + 1];
+        for(int e = 0; e < graph.sizeEdges(); e++) {
+            this.inOffsets[graph.target(e) + 1]++;
+        }
+        for(int v = 0; v < size; v++) {
+            this.inOffsets[v + 1] += this.inOffsets[v];
+        }
+        this.inEdges = new int[graph.sizeEdges()];
+        int[] next = Arrays.copyOf(this.inOffsets, size);
+        for(int e = 0; e < graph.sizeEdges(); e++) {
+            this.inEdges[next[graph.target(e)]++] = e;
+        }
+        this.settled = new LongAdder();
+        this.backwardWorkspaces = SearchWorkspace.perThread(size);
+        this.spurWorkspaces = SearchWorkspace.perThread(size);
+    }
+
+    /**
+     * Finds the k least cost loopless paths from a start node to an end node
+     * @param start the starting node of every path
+     * @param end the ending node of every path
+     * @param k the most paths to find
+     * @return up to k paths from start to end in increasing order of cost, fewer if there are
+     * not k loopless paths, and no two running along the same edges
+     * @throws IllegalArgumentException if start or end is null or not in the graph, or k is negative
+     */
+    public List<Path<N>> shortestPaths(N start, N end, int k) {
+        return shortestPathsById(DijkstraEngine.idOf(this.graph, start), DijkstraEngine.idOf(this.graph, end), k);
+    }
+
+    /**
+     * Finds the k least cost loopless paths between two nodes given by their ids in the graph
+     * @param start the id of the starting node of every path
+     * @param end the id of the ending node of every path
+     * @param k the most paths to find
+     * @return up to k paths from start to end in increasing order of cost, fewer if there are
+     * not k loopless paths, and no two running along the same edges
+     * @throws IllegalArgumentException if start or end is not a valid id of the graph, or k is negative
+     */
+    public List<Path<N>> shortestPathsById(int start, int end, int k) {
+        int s = DijkstraEngine.checkId(this.graph, start);
+        int t = DijkstraEngine.checkId(this.graph, end);
+        if(k < 0) {
+            throw new IllegalArgumentException("Number of paths cannot be negative");
+        }
+        List<Path<N>> paths = new ArrayList<>(k);
+        if(k == 0) {
+            return paths;
+        }
+        SearchWorkspace toEnd = this.backwardWorkspaces.get();
+        searchBackward(toEnd, t);
+        if(toEnd.distance(s) == Double.POSITIVE_INFINITY) {
+            return paths;
+        }
+        SearchWorkspace spur = this.spurWorkspaces.get();
+        List<Route> found = new ArrayList<>(k);
+        PriorityQueue<Route> candidates = new PriorityQueue<>();
+        Set<Route> seen = new HashSet<>();
+        Route first = followTree(toEnd, null, 0, s, t, 0);
+        seen.add(first);
+        found.add(first);
+        while(found.size() < k) {
+            addCandidates(found, toEnd, spur, t, candidates, seen);
+            Route next = candidates.poll();
+            if(next == null) {
+                break;
+            }
+            found.add(next);
+        }
+        for(Route route: found) {
+            paths.add(PathBuilder.extend(this.graph, new Path<>(this.graph.nodeAt(s)), route.edges, 0,
+                                         route.edges.length));
+        }
+        return paths;
+    }
+
+    /**
+     * Gets the total number of nodes settled by every query answered so far, by both the
+     * backward searches and the spur searches
+     * @return the number of nodes settled by this engine
+     */
+    public long settledCount() {
+        return this.settled.sum();
+    }
+
+    /**
+     * Searches backward from the end over the whole graph, leaving in a workspace the least
+     * cost from every node to t, and in its prevEdge the first edge of a least cost path from
+     * each node to t
+     * @spec.modifies toEnd
+     */
+    private void searchBackward(SearchWorkspace toEnd, int t) {
+        toEnd.begin();
+        IndexedMinHeap active = toEnd.heap;
+        int count = 0;
+        toEnd.setDistance(t, 0);
+        active.insertOrDecrease(t, 0);
+        while(!active.isEmpty()) {
+            int v = active.pollMin();
+            toEnd.settle(v);
+            count++;
+            double dv = toEnd.distance(v);
+            for(int i = this.inOffsets[v]; i < this.inOffsets[v + 1]; i++) {
+                int e = this.inEdges[i];
+                int u = this.graph.sourceOf(e);
+                double du = dv + this.graph.weight(e);
+                if(!toEnd.isSettled(u) && du < toEnd.distance(u)) {
+                    toEnd.setDistance(u, du);
+                    toEnd.prevEdge[u] = e;
+                    active.insertOrDecrease(u, du);
+                }
+            }
+        }
+        this.settled.add(count);
+    }
+
+    /**
+     * Runs the spur searches of Yen's algorithm from every node of the most recently found path
+     * at or past where it left the path it was derived from, queueing every candidate path not
+     * seen before
+     * @param found the paths found so far, in order
+     * @param toEnd the workspace of the backward search
+     * @param spur the workspace for the spur searches
+     * @param t the id of the end node
+     * @param candidates the candidate paths not yet found, cheapest first
+     * @param seen every path found or queued so far
+     * @spec.modifies spur, candidates, seen
+     */
+    private void addCandidates(List<Route> found, SearchWorkspace toEnd, SearchWorkspace spur, int t,
+                               PriorityQueue<Route> candidates, Set<Route> seen) {
+        Route last = found.get(found.size() - 1);
+        //Whether each found path shares the root ending at the current spur node
+        boolean[] sharesRoot = new boolean[found.size()];
+        for(int q = 0; q < found.size(); q++) {
+            sharesRoot[q] = found.get(q).sharesPrefix(last, last.deviation);
+        }
+        int[] blocked = new int[found.size()];
+        double rootCost = 0;
+        for(int i = 0; i < last.deviation; i++) {
+            rootCost += this.graph.weight(last.edges[i]);
+        }
+        for(int i = last.deviation; i < last.edges.length; i++) {
+            if(i > last.deviation) {
+                rootCost += this.graph.weight(last.edges[i - 1]);
+            }
+            int blockedCount = 0;
+            for(int q = 0; q < found.size(); q++) {
+                Route other = found.get(q);
+                if(sharesRoot[q] && i > 0) {
+                    sharesRoot[q] = other.edges.length >= i && other.edges[i - 1] == last.edges[i - 1];
+                }
+                if(sharesRoot[q] && other.edges.length > i) {
+                    blocked[blockedCount++] = other.edges[i];
+                }
+            }
+            Route candidate = spurPath(last, i, rootCost, blocked, blockedCount, toEnd, spur, t);
+            if(candidate != null && seen.add(candidate)) {
+                candidates.add(candidate);
+            }
+        }
+    }
+
+    /**
+     * Finds the least cost path that follows the first i edges of a found path, then leaves
+     * node i of it without using a blocked edge or going back through the root
+     * @param base the found path
+     * @param i the index into base of the spur node
+     * @param rootCost the cost of the first i edges of base
+     * @param blocked the edges out of the spur node that must not be taken
+     * @param blockedCount the number of elements of blocked that are edges
+     * @param toEnd the workspace of the backward search
+     * @param spur the workspace for the spur search
+     * @param t the id of the end node
+     * @return the path, or null if there is none
+     * @spec.modifies spur
+     */
+    private Route spurPath(Route base, int i, double rootCost, int[] blocked, int blockedCount,
+                           SearchWorkspace toEnd, SearchWorkspace spur, int t) {
+        int spurNode = base.nodes[i];
+        spur.begin();
+        //Settling the root's nodes up front keeps the search from ever entering them again
+        for(int j = 0; j < i; j++) {
+            spur.settle(base.nodes[j]);
+        }
+
+        //The tree's path from the spur node is the best spur whenever nothing blocks it
+        int first = toEnd.prevEdge[spurNode];
+        boolean clear = !contains(blocked, blockedCount, first);
+        for(int v = this.graph.target(first); clear && v != t; v = this.graph.target(toEnd.prevEdge[v])) {
+            clear = !spur.isSettled(v);
+        }
+        if(clear) {
+            return followTree(toEnd, base, i, spurNode, t, rootCost);
+        }
+
+        IndexedMinHeap active = spur.heap;
+        int count = 0;
+        spur.setDistance(spurNode, 0);
+        active.insertOrDecrease(spurNode, toEnd.distance(spurNode));
+        try {
+            while(!active.isEmpty()) {
+                int u = active.pollMin();
+                spur.settle(u);
+                count++;
+                if(u == t) {
+                    return joinSpur(base, i, spur, spurNode, t, rootCost + spur.distance(t));
+                }
+                double du = spur.distance(u);
+                for(int e = this.graph.firstEdge(u); e < this.graph.endEdge(u); e++) {
+                    int v = this.graph.target(e);
+                    double hv = toEnd.distance(v);
+                    if(hv == Double.POSITIVE_INFINITY || (u == spurNode && contains(blocked, blockedCount, e))) {
+                        continue;
+                    }
+                    double dv = du + this.graph.weight(e);
+                    if(!spur.isSettled(v) && dv < spur.distance(v)) {
+                        spur.setDistance(v, dv);
+                        spur.prevNode[v] = u;
+                        spur.prevEdge[v] = e;
+                        active.insertOrDecrease(v, dv + hv);
+                    }
+                }
+            }
+            //Every way on from the spur node is blocked
+            return null;
+        } finally {
+            this.settled.add(count);
+        }
+    }
+
+    /**
+     * Builds the path that follows the first i edges of base (or none if base is null) and then
+     * the backward search's tree from node u to t
+     * @param cost the cost of the first i edges of base
+     * @return the path, costing cost plus the tree's cost from u to t
+     */
+    private Route followTree(SearchWorkspace toEnd, Route base, int i, int u, int t, double cost) {
+        int length = i;
+        for(int v = u; v != t; v = this.graph.target(toEnd.prevEdge[v])) {
+            length++;
+        }
+        int[] edges = new int[length];
+        if(base != null) {
+            System.arraycopy(base.edges, 0, edges, 0, i);
+        }
+        int j = i;
+        for(int v = u; v != t; v = this.graph.target(toEnd.prevEdge[v])) {
+            edges[j++] = toEnd.prevEdge[v];
+        }
+        return new Route(this.graph, base == null ? u : base.nodes[0], edges, cost + toEnd.distance(u), i);
+    }
+
+    /**
+     * Builds the path that follows the first i edges of base and then the spur search's tree
+     * from spurNode to t
+     * @param cost the cost of the whole path
+     * @return the path
+     */
+    private Route joinSpur(Route base, int i, SearchWorkspace spur, int spurNode, int t, double cost) {
+        int length = i;
+        for(int v = t; v != spurNode; v = spur.prevNode[v]) {
+            length++;
+        }
+        int[] edges = new int[length];
+        System.arraycopy(base.edges, 0, edges, 0, i);
+        int j = length;
+        for(int v = t; v != spurNode; v = spur.prevNode[v]) {
+            edges[--j] = spur.prevEdge[v];
+        }
+        return new Route(this.graph, base.nodes[0], edges, cost, i);
+    }
+
+    /**
+     * @return true if and only if one of the first count elements of array is value
+     */
+    private static boolean contains(int[] array, int count, int value) {
+        for(int i = 0; i < count; i++) {
+            if(array[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A path found or queued by a query, held as the edges it runs along. Two routes are equal
+     * if they run along the same edges, and are ordered by cost
+     */
+    private static final class Route implements Comparable<Route> {
+
+        //The edges of the path, in order
+        private final int[] edges;
+
+        //The nodes of the path, in order, one more than there are edges
+        private final int[] nodes;
+
+        //The cost of the path
+        private final double cost;
+
+        //The number of leading edges the path shares with the path it was derived from, before
+        //which no spur search from it can find anything new
+        private final int deviation;
+
+        /**
+         * Constructs a new Route
+         * @param graph the graph the edges belong to
+         * @param start the id of the node the path starts at
+         */
+        private Route(FrozenGraph<?> graph, int start, int[] edges, double cost, int deviation) {
+            this.edges = edges;
+            this.nodes = new int[edges.length + 1];
+            this.nodes[0] = start;
+            for(int i = 0; i < edges.length; i++) {
+                this.nodes[i + 1] = graph.target(edges[i]);
+            }
+            this.cost = cost;
+            this.deviation = deviation;
+        }
+
+        /**
+         * @return true if and only if this and other share their first length edges
+         */
+        private boolean sharesPrefix(Route other, int length) {
+            if(this.edges.length < length || other.edges.length < length) {
+                return false;
+            }
+            return Arrays.equals(this.edges, 0, length, other.edges, 0, length);
+        }
+
+        @Override
+        public int compareTo(Route other) {
+            return Double.compare(this.cost, other.cost);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Route && Arrays.equals(this.edges, ((Route) obj).edges);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(this.edges);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package pathfinder.search;
+
+import pathfinder.datastructures.Path;
+
+/**
+ * <b>ParetoRoute</b> represents an immutable route found by a multi-criteria search: a path whose
+ * segments cost what their edges cost, together with the total penalty of those edges (see
+ * {@link graph.FrozenGraph#penalty(int)}).
+ * @param <N> The value assigned to the node
+ */
+public final class ParetoRoute<N> {
+
+    //The route, each segment costing the cost of its edge
+    private final Path<N> path;
+
+    //The sum of the penalties of the edges of path
+    private final double penalty;
+
+    //Abstraction function:
+    //A ParetoRoute r is the route path, which costs path.getCost() and has a penalty of penalty
+
+    //Representation Invariant
+    //path != null && penalty is not NaN
+
+    /**
+     * Constructs a new ParetoRoute
+     * @param path the route, each segment costing the cost of its edge
+     * @param penalty the sum of the penalties of the edges of path
+     */
+    ParetoRoute(Path<N> path, double penalty) {
+        this.path = path;
+        this.penalty = penalty;
+        checkRep();
+    }
+
+    /**
+     * Throws an exception if the representation invariant is violated.
+     */
+    private void checkRep() {
+        assert(this.path != null && !Double.isNaN(this.penalty));
+    }
+
+    /**
+     * @return the route, each segment costing the cost of its edge
+     */
+    public Path<N> getPath() {
+        return this.path;
+    }
+
+    /**
+     * @return the total cost of the route
+     */
+    public double getCost() {
+        return this.path.getCost();
+    }
+
+    /**
+     * @return the total penalty of the route
+     */
+    public double getPenalty() {
+        return this.penalty;
+    }
+
+    @Override
+    public String toString() {
+        return this.path + " with penalty " + this.penalty;
+    }
+}
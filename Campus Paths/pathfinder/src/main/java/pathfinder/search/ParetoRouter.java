@@ -0,0 +1,501 @@
+package pathfinder.search;
+
+import graph.FrozenGraph;
+import pathfinder.datastructures.Path;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ParetoRouter finds routes that weigh two measures of every edge against each other: its cost
+ * and its penalty (see {@link FrozenGraph#penalty(int)}), such as the length of a path and the
+ * stairs along it. It answers two kinds of query:
+ * <ul>
+ * <li>The Pareto set of routes between two nodes: every route that no other route beats in one
+ * measure without being worse in the other, one for each such pair of cost and penalty, from the
+ * least cost to the least penalty.</li>
+ * <li>The single route of least cost plus a given multiple of its penalty, which is always one of
+ * the Pareto set, found with one ordinary search.</li>
+ * </ul>
+ * The Pareto set is found by a multi-criteria label-setting search. A node can hold several
+ * labels, each the cost and penalty of one way of reaching it, and labels are settled in
+ * lexicographic order of their cost and penalty plus lower bounds on the rest of the way to the
+ * end. A label is dropped as soon as a label already settled at its node, or a route already
+ * found to the end once the lower bounds are added, is at least as good in both measures. The
+ * lower bounds are exact least costs and least penalties to the end from two backward searches,
+ * which also keep the search out of nodes that cannot reach the end, so on most graphs only
+ * labels that may lead to a route of the Pareto set are ever settled. Each thread reuses one
+ * workspace for each search across its queries, holding every label in primitive arrays.
+ * <p>
+ * The costs and penalties of the graph must not be negative.
+ * @param <N> The value assigned to the node
+ */
+public final class ParetoRouter<N> {
+
+    //The graph searched by this router
+    private final FrozenGraph<N> graph;
+
+    //The reverse of graph, searched backward from the end of each query
+    private final FrozenGraph<N> reverse;
+
+    //The total number of nodes and labels settled by every query so far
+    private final LongAdder settled;
+
+    //The workspace of each thread's backward search by cost, which holds the least cost from every
+    //node to the end for the whole of a query, and of its searches for a weighted route
+    private final ThreadLocal<SearchWorkspace> costWorkspaces;
+
+    //The workspace of each thread's backward search by penalty, which holds the least penalty from
+    //every node to the end for the whole of a query
+    private final ThreadLocal<SearchWorkspace> penaltyWorkspaces;
+
+    //The labels of each thread's multi-criteria searches
+    private final ThreadLocal<Labels> labelWorkspaces;
+
+    /**
+     * Constructs a new ParetoRouter, building the reverse of the graph up front
+     * @param graph the graph to search
+     * @throws IllegalArgumentException if graph is null
+     */
+    public ParetoRouter(FrozenGraph<N> graph) {
+        if(graph == null) {
+            throw new IllegalArgumentException("Graph cannot be null");
+        }
+        this.graph = graph;
+        this.reverse = graph.reverse();
+        this.settled = new LongAdder();
+        int size = graph.sizeNodes();
+        this.costWorkspaces = SearchWorkspace.perThread(size);
+        this.penaltyWorkspaces = SearchWorkspace.perThread(size);
+        this.labelWorkspaces = ThreadLocal.withInitial(() -> new Labels(size));
+    }
+
+    /**
+     * Finds the Pareto set of routes from a start node to an end node
+     * @param start the starting node of every route
+     * @param end the ending node of every route
+     * @return one route for each pair of cost and penalty that no route from start to end beats in
+     * one measure without being worse in the other, in increasing order of cost and so decreasing
+     * order of penalty, or an empty list if there is no route
+     * @throws IllegalArgumentException if start or end is null or not in the graph
+     */
+    public List<ParetoRoute<N>> paretoRoutes(N start, N end) {
+        return paretoRoutesById(DijkstraEngine.idOf(this.graph, start), DijkstraEngine.idOf(this.graph, end));
+    }
+
+    /**
+     * Finds the Pareto set of routes between two nodes given by their ids in the graph
+     * @param start the id of the starting node of every route
+     * @param end the id of the ending node of every route
+     * @return one route for each pair of cost and penalty that no route from start to end beats in
+     * one measure without being worse in the other, in increasing order of cost and so decreasing
+     * order of penalty, or an empty list if there is no route
+     * @throws IllegalArgumentException if start or end is not a valid id of the graph
+     */
+    public List<ParetoRoute<N>> paretoRoutesById(int start, int end) {
+        int s = DijkstraEngine.checkId(this.graph, start);
+        int t = DijkstraEngine.checkId(this.graph, end);
+        SearchWorkspace costToEnd = this.costWorkspaces.get();
+        searchBackward(costToEnd, t, false);
+        if(costToEnd.distance(s) == Double.POSITIVE_INFINITY) {
+            return new ArrayList<>();
+        }
+        //Without penalties every lower bound on the penalty is 0, and there is no need to search for them
+        boolean penalized = this.graph.hasPenalties();
+        SearchWorkspace penaltyToEnd = this.penaltyWorkspaces.get();
+        if(penalized) {
+            searchBackward(penaltyToEnd, t, true);
+        }
+
+        Labels labels = this.labelWorkspaces.get();
+        labels.begin();
+        labels.push(s, 0, 0, -1, -1, costToEnd.distance(s), penalized ? penaltyToEnd.distance(s) : 0);
+        int count = 0;
+        while(!labels.isEmpty()) {
+            int l = labels.pollMin();
+            int u = labels.node[l];
+            double cu = labels.cost[l];
+            double pu = labels.penalty[l];
+            if(labels.dominated(u, cu, pu) || labels.dominatedAtEnd(t, labels.keyCost[l], labels.keyPenalty[l])) {
+                continue;
+            }
+            labels.settle(l);
+            count++;
+            if(u == t) {
+                //Going on past the end only leads back to it with a route that is no better
+                continue;
+            }
+            for(int e = this.graph.firstEdge(u); e < this.graph.endEdge(u); e++) {
+                int v = this.graph.target(e);
+                double hc = costToEnd.distance(v);
+                if(hc == Double.POSITIVE_INFINITY) {
+                    continue;
+                }
+                double hp = penalized ? penaltyToEnd.distance(v) : 0;
+                double cv = cu + this.graph.weight(e);
+                double pv = pu + this.graph.penalty(e);
+                if(!labels.dominated(v, cv, pv) && !labels.dominatedAtEnd(t, cv + hc, pv + hp)) {
+                    labels.push(v, cv, pv, l, e, cv + hc, pv + hp);
+                }
+            }
+        }
+        this.settled.add(count);
+
+        //The labels settled at the end are listed from the last settled, which has the greatest cost
+        List<ParetoRoute<N>> routes = new ArrayList<>();
+        for(int l = labels.bagHead(t); l >= 0; l = labels.nextInBag[l]) {
+            routes.add(toRoute(labels, s, l));
+        }
+        Collections.reverse(routes);
+        return routes;
+    }
+
+    /**
+     * Finds the route from a start node to an end node of least cost plus the given multiple of
+     * its penalty
+     * @param start the starting node of the route
+     * @param end the ending node of the route
+     * @param penaltyWeight how much a unit of penalty costs, where 0 finds a least cost route
+     * @return the route of least cost plus penaltyWeight times its penalty, or null if there is none
+     * @throws IllegalArgumentException if start or end is null or not in the graph, or
+     *                                  penaltyWeight is negative, infinite, or NaN
+     */
+    public ParetoRoute<N> weightedRoute(N start, N end, double penaltyWeight) {
+        return weightedRouteById(DijkstraEngine.idOf(this.graph, start), DijkstraEngine.idOf(this.graph, end),
+                                 penaltyWeight);
+    }
+
+    /**
+     * Finds the route between two nodes given by their ids in the graph of least cost plus the
+     * given multiple of its penalty
+     * @param start the id of the starting node of the route
+     * @param end the id of the ending node of the route
+     * @param penaltyWeight how much a unit of penalty costs, where 0 finds a least cost route
+     * @return the route of least cost plus penaltyWeight times its penalty, or null if there is none
+     * @throws IllegalArgumentException if start or end is not a valid id of the graph, or
+     *                                  penaltyWeight is negative, infinite, or NaN
+     */
+    public ParetoRoute<N> weightedRouteById(int start, int end, double penaltyWeight) {
+        int s = DijkstraEngine.checkId(this.graph, start);
+        int t = DijkstraEngine.checkId(this.graph, end);
+        if(!(penaltyWeight >= 0) || penaltyWeight == Double.POSITIVE_INFINITY) {
+            throw new IllegalArgumentException("Penalty weight must be a non-negative number");
+        }
+        SearchWorkspace workspace = this.costWorkspaces.get();
+        workspace.begin();
+        IndexedMinHeap active = workspace.heap;
+        int count = 0;
+        workspace.setDistance(s, 0);
+        active.insertOrDecrease(s, 0);
+        try {
+            while(!active.isEmpty()) {
+                int u = active.pollMin();
+                workspace.settle(u);
+                count++;
+                if(u == t) {
+                    double penalty = 0;
+                    for(int v = t; v != s; v = workspace.prevNode[v]) {
+                        penalty += this.graph.penalty(workspace.prevEdge[v]);
+                    }
+                    return new ParetoRoute<>(PathBuilder.fromTree(this.graph, workspace, s, t), penalty);
+                }
+                double du = workspace.distance(u);
+                for(int e = this.graph.firstEdge(u); e < this.graph.endEdge(u); e++) {
+                    int v = this.graph.target(e);
+                    double dv = du + this.graph.weight(e) + penaltyWeight * this.graph.penalty(e);
+                    if(!workspace.isSettled(v) && dv < workspace.distance(v)) {
+                        workspace.setDistance(v, dv);
+                        workspace.prevNode[v] = u;
+                        workspace.prevEdge[v] = e;
+                        active.insertOrDecrease(v, dv);
+                    }
+                }
+            }
+            return null;
+        } finally {
+            this.settled.add(count);
+        }
+    }
+
+    /**
+     * Gets the total number of nodes settled by the backward and weighted searches, and labels
+     * settled by the multi-criteria searches, of every query answered so far
+     * @return the number of nodes and labels settled by this router
+     */
+    public long settledCount() {
+        return this.settled.sum();
+    }
+
+    /**
+     * Searches backward from the end over the whole graph, leaving in a workspace the least cost,
+     * or least penalty, from every node to t
+     * @param byPenalty whether to measure the way to t by penalty rather than cost
+     * @spec.modifies toEnd
+     */
+    private void searchBackward(SearchWorkspace toEnd, int t, boolean byPenalty) {
+        toEnd.begin();
+        IndexedMinHeap active = toEnd.heap;
+        int count = 0;
+        toEnd.setDistance(t, 0);
+        active.insertOrDecrease(t, 0);
+        while(!active.isEmpty()) {
+            int v = active.pollMin();
+            toEnd.settle(v);
+            count++;
+            double dv = toEnd.distance(v);
+            for(int e = this.reverse.firstEdge(v); e < this.reverse.endEdge(v); e++) {
+                int u = this.reverse.target(e);
+                double du = dv + (byPenalty ? this.reverse.penalty(e) : this.reverse.weight(e));
+                if(!toEnd.isSettled(u) && du < toEnd.distance(u)) {
+                    toEnd.setDistance(u, du);
+                    active.insertOrDecrease(u, du);
+                }
+            }
+        }
+        this.settled.add(count);
+    }
+
+    /**
+     * Builds the route a label settled at the end stands for, by following the labels it was
+     * reached through back to the start
+     * @param s the id of the start node
+     * @param l the label
+     * @return the route from s that label l stands for
+     */
+    private ParetoRoute<N> toRoute(Labels labels, int s, int l) {
+        int length = 0;
+        for(int k = l; labels.prevLabel[k] >= 0; k = labels.prevLabel[k]) {
+            length++;
+        }
+        int[] edges = new int[length];
+        int i = length;
+        for(int k = l; labels.prevLabel[k] >= 0; k = labels.prevLabel[k]) {
+            edges[--i] = labels.prevEdge[k];
+        }
+        Path<N> path = PathBuilder.extend(this.graph, new Path<>(this.graph.nodeAt(s)), edges, 0, length);
+        return new ParetoRoute<>(path, labels.penalty[l]);
+    }
+
+    /**
+     * The labels of one multi-criteria search, held in growable parallel arrays indexed by label,
+     * together with the heap of labels not yet settled and the labels settled at each node. Like a
+     * SearchWorkspace, it is reused across searches by one thread, and starting a new search
+     * never has to clear the arrays sized by the number of nodes.
+     */
+    private static final class Labels {
+
+        //The id of the node each label reaches
+        private int[] node;
+
+        //The cost of the way each label reaches its node
+        private double[] cost;
+
+        //The penalty of the way each label reaches its node
+        private double[] penalty;
+
+        //The cost of each label plus the least cost from its node to the end
+        private double[] keyCost;
+
+        //The penalty of each label plus the least penalty from its node to the end
+        private double[] keyPenalty;
+
+        //The label each label was reached from, or -1 for the label of the start
+        private int[] prevLabel;
+
+        //The edge each label was reached along, or -1 for the label of the start
+        private int[] prevEdge;
+
+        //The next label settled at the same node, before this one, or -1 if there is none
+        private int[] nextInBag;
+
+        //The labels not yet settled, in a binary heap ordered by key cost and then key penalty
+        private int[] heap;
+
+        //The last label settled at each node, only meaningful where bagEpoch holds the current epoch
+        private final int[] bagHead;
+
+        //The epoch of the search that last settled a label at each node
+        private final int[] bagEpoch;
+
+        //The number of labels of the current search
+        private int size;
+
+        //The number of labels in heap
+        private int heapSize;
+
+        //The epoch of the current search. Stamps of 0 never match it
+        private int epoch;
+
+        //Abstraction function:
+        //The labels of a search are the tuples (node[l], cost[l], penalty[l]) for l from 0 to size - 1, reached
+        //from label prevLabel[l] along edge prevEdge[l]. The labels settled at node v are bagHead[v],
+        //nextInBag[bagHead[v]], ... up to -1 if bagEpoch[v] == epoch, and none otherwise
+
+        //Representation Invariant
+        //every array != null && node, cost, penalty, keyCost, keyPenalty, prevLabel, prevEdge, nextInBag, heap
+        //all have the same length >= size && bagHead.length == bagEpoch.length && 0 <= heapSize <= size &&
+        //heap[0 .. heapSize - 1] is a binary heap && every stamp is <= epoch
+
+        /**
+         * Constructs a new, empty Labels
+         * @param nodes the number of nodes of the graph it will search
+         */
+        private Labels(int nodes) {
+            int capacity = 1024;
+            this.node = new int[capacity];
+            this.cost = new double[capacity];
+            this.penalty = new double[capacity];
+            this.keyCost = new double[capacity];
+            this.keyPenalty = new double[capacity];
+            this.prevLabel = new int[capacity];
+            this.prevEdge = new int[capacity];
+            this.nextInBag = new int[capacity];
+            this.heap = new int[capacity];
+            this.bagHead = new int[nodes];
+            this.bagEpoch = new int[nodes];
+        }
+
+        /**
+         * Starts a new search, with no labels and none settled at any node
+         * @spec.modifies this
+         */
+        private void begin() {
+            this.size = 0;
+            this.heapSize = 0;
+            if(this.epoch == Integer.MAX_VALUE) {
+                Arrays.fill(this.bagEpoch, 0);
+                this.epoch = 0;
+            }
+            this.epoch++;
+        }
+
+        /**
+         * @return true if and only if every label has been taken off the heap
+         */
+        private boolean isEmpty() {
+            return this.heapSize == 0;
+        }
+
+        /**
+         * Adds a new label and puts it on the heap
+         * @spec.modifies this
+         */
+        private void push(int v, double c, double p, int prev, int e, double kc, double kp) {
+            if(this.size == this.node.length) {
+                int capacity = this.size * 2;
+                this.node = Arrays.copyOf(this.node, capacity);
+                this.cost = Arrays.copyOf(this.cost, capacity);
+                this.penalty = Arrays.copyOf(this.penalty, capacity);
+                this.keyCost = Arrays.copyOf(this.keyCost, capacity);
+                this.keyPenalty = Arrays.copyOf(this.keyPenalty, capacity);
+                this.prevLabel = Arrays.copyOf(this.prevLabel, capacity);
+                this.prevEdge = Arrays.copyOf(this.prevEdge, capacity);
+                this.nextInBag = Arrays.copyOf(this.nextInBag, capacity);
+                this.heap = Arrays.copyOf(this.heap, capacity);
+            }
+            int l = this.size++;
+            this.node[l] = v;
+            this.cost[l] = c;
+            this.penalty[l] = p;
+            this.keyCost[l] = kc;
+            this.keyPenalty[l] = kp;
+            this.prevLabel[l] = prev;
+            this.prevEdge[l] = e;
+            int i = this.heapSize++;
+            while(i > 0) {
+                int parent = (i - 1) >>> 1;
+                if(!precedes(l, this.heap[parent])) {
+                    break;
+                }
+                this.heap[i] = this.heap[parent];
+                i = parent;
+            }
+            this.heap[i] = l;
+        }
+
+        /**
+         * Takes the label with the least key off the heap
+         * @return the label with the least key cost, and of those the least key penalty
+         * @spec.modifies this
+         */
+        private int pollMin() {
+            int min = this.heap[0];
+            int last = this.heap[--this.heapSize];
+            int i = 0;
+            while(true) {
+                int child = 2 * i + 1;
+                if(child >= this.heapSize) {
+                    break;
+                }
+                if(child + 1 < this.heapSize && precedes(this.heap[child + 1], this.heap[child])) {
+                    child++;
+                }
+                if(!precedes(this.heap[child], last)) {
+                    break;
+                }
+                this.heap[i] = this.heap[child];
+                i = child;
+            }
+            this.heap[i] = last;
+            return min;
+        }
+
+        /**
+         * @return true if and only if the key of label a comes lexicographically before that of label b
+         */
+        private boolean precedes(int a, int b) {
+            return this.keyCost[a] < this.keyCost[b]
+                    || (this.keyCost[a] == this.keyCost[b] && this.keyPenalty[a] < this.keyPenalty[b]);
+        }
+
+        /**
+         * @param v the id of a node
+         * @return the last label settled at v, or -1 if there is none
+         */
+        private int bagHead(int v) {
+            return this.bagEpoch[v] == this.epoch ? this.bagHead[v] : -1;
+        }
+
+        /**
+         * Adds a label to those settled at its node
+         * @spec.modifies this
+         */
+        private void settle(int l) {
+            int v = this.node[l];
+            this.nextInBag[l] = bagHead(v);
+            this.bagHead[v] = l;
+            this.bagEpoch[v] = this.epoch;
+        }
+
+        /**
+         * @return true if and only if a label settled at node v costs at most c and has a penalty of at most p
+         */
+        private boolean dominated(int v, double c, double p) {
+            for(int l = bagHead(v); l >= 0; l = this.nextInBag[l]) {
+                if(this.cost[l] <= c && this.penalty[l] <= p) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Checks a label's key against the labels settled at the end. Those are settled in
+         * increasing order of cost, each with less penalty than the one before, so the scan from
+         * the last settled can stop at the first with more penalty than p
+         * @param t the id of the end node
+         * @return true if and only if a label settled at t costs at most c and has a penalty of at most p
+         */
+        private boolean dominatedAtEnd(int t, double c, double p) {
+            for(int l = bagHead(t); l >= 0 && this.penalty[l] <= p; l = this.nextInBag[l]) {
+                if(this.cost[l] <= c) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
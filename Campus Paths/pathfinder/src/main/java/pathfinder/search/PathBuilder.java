@@ -0,0 +1,110 @@
+package pathfinder.search;
+
+import graph.FrozenGraph;
+import pathfinder.datastructures.Path;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Turns the predecessor arrays left behind by a search into a Path. Searches only ever
+ * record int ids and edge indices, so this is the one place a route's Path is built, and it
+ * is built with a single call to Path.extend rather than one per edge.
+ */
+final class PathBuilder {
+
+    // This class does not represent an ADT.
+
+    private PathBuilder() {
+    }
+
+    /**
+     * Builds the path from start to end by walking the shortest path tree left in a workspace
+     * backwards from end, using the workspace's route array as scratch space
+     * @param graph the graph the tree was built over
+     * @param workspace the workspace of the search, whose prevNode and prevEdge hold the node
+     *                  before each node in the tree and the edge of graph used to reach it
+     * @param start the id of the root of the tree
+     * @param end the id of the node the path should end at, which must be in the tree
+     * @return the path from start to end along the tree
+     * @param <N> The value assigned to the node
+     */
+    static <N> Path<N> fromTree(FrozenGraph<N> graph, SearchWorkspace workspace, int start, int end) {
+        int[] prevNode = workspace.prevNode;
+        int[] edges = workspace.route;
+        int length = 0;
+        for(int v = end; v != start; v = prevNode[v]) {
+            length++;
+        }
+        int i = length;
+        for(int v = end; v != start; v = prevNode[v]) {
+            edges[--i] = workspace.prevEdge[v];
+        }
+        return extend(graph, new Path<>(graph.nodeAt(start)), edges, 0, length);
+    }
+
+    /**
+     * Builds the path from the source of a shortest path tree to a node by walking the tree
+     * backwards from the node, finding the node before each node from the edge used to reach it
+     * @param tree the tree to walk
+     * @param end the id of the node the path should end at, which must be in the tree
+     * @return the path from the source of tree to end along the tree
+     * @param <N> The value assigned to the node
+     */
+    static <N> Path<N> fromTree(ShortestPathTree<N> tree, int end) {
+        FrozenGraph<N> graph = tree.graph();
+        int start = tree.sourceId();
+        int length = 0;
+        for(int v = end; v != start; v = graph.sourceOf(tree.prevEdge(v))) {
+            length++;
+        }
+        int[] edges = new int[length];
+        int i = length;
+        for(int v = end; v != start; v = graph.sourceOf(tree.prevEdge(v))) {
+            edges[--i] = tree.prevEdge(v);
+        }
+        return extend(graph, new Path<>(graph.nodeAt(start)), edges, 0, length);
+    }
+
+    /**
+     * Appends a run of edges of graph to the end of a path
+     * @param graph the graph the edges belong to
+     * @param path the path to extend, which must end where the first edge begins
+     * @param edges the edge indices to append, in order
+     * @param from the first index into edges to append
+     * @param to one past the last index into edges to append
+     * @return a new path with the edges appended
+     * @param <N> The value assigned to the node
+     */
+    static <N> Path<N> extend(FrozenGraph<N> graph, Path<N> path, int[] edges, int from, int to) {
+        List<N> ends = new ArrayList<>(to - from);
+        double[] costs = new double[to - from];
+        for(int i = from; i < to; i++) {
+            int e = edges[i];
+            ends.add(graph.nodeAt(graph.target(e)));
+            costs[i - from] = graph.weight(e);
+        }
+        return path.extend(ends, costs);
+    }
+
+    /**
+     * Builds the path that runs through the same values as path in the opposite order, with
+     * each segment keeping its cost
+     * @param path the path to reverse
+     * @return a new path from path.getEnd() to path.getStart()
+     * @param <N> The value assigned to the node
+     */
+    static <N> Path<N> reverse(Path<N> path) {
+        List<Path<N>.Segment> segments = new ArrayList<>();
+        for(Path<N>.Segment segment: path) {
+            segments.add(segment);
+        }
+        List<N> ends = new ArrayList<>(segments.size());
+        double[] costs = new double[segments.size()];
+        for(int i = segments.size() - 1; i >= 0; i--) {
+            ends.add(segments.get(i).getStart());
+            costs[segments.size() - 1 - i] = segments.get(i).getCost();
+        }
+        return new Path<>(path.getEnd()).extend(ends, costs);
+    }
+}
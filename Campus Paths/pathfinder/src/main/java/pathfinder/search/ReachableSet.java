@@ -0,0 +1,98 @@
+package pathfinder.search;
+
+import graph.FrozenGraph;
+
+/**
+ * <b>ReachableSet</b> represents the immutable result of a cost-bounded search: every node whose
+ * least cost from a source node is within a budget, with that cost, in increasing order of cost.
+ * It holds one int and one double per node reached, rather than per node of the graph, so a
+ * small budget gives a small result however large the graph is.
+ * @param <N> The value assigned to the node
+ */
+public final class ReachableSet<N> {
+
+    //The graph that was searched
+    private final FrozenGraph<N> graph;
+
+    //The most a path to a reached node may cost
+    private final double budget;
+
+    //The id of each node reached, in increasing order of cost
+    private final int[] nodes;
+
+    //The least cost from the source to each node of nodes, in the same order
+    private final double[] costs;
+
+    //Abstraction function:
+    //A ReachableSet r is the list of pairs (graph.nodeAt(nodes[i]), costs[i]) for i from 0 to nodes.length - 1,
+    //where graph.nodeAt(nodes[0]) is the source
+
+    //Representation Invariant
+    //graph, nodes, costs != null && nodes.length == costs.length >= 1 && costs[0] == 0 &&
+    //costs is non-decreasing && every cost is <= budget && no id appears twice in nodes
+
+    /**
+     * Constructs a new ReachableSet that takes ownership of the given arrays
+     * @param graph the graph that was searched
+     * @param budget the most a path to a reached node may cost
+     * @param nodes the id of each node reached, starting with the source, in increasing order of cost
+     * @param costs the least cost to each node of nodes
+     */
+    ReachableSet(FrozenGraph<N> graph, double budget, int[] nodes, double[] costs) {
+        this.graph = graph;
+        this.budget = budget;
+        this.nodes = nodes;
+        this.costs = costs;
+        checkRep();
+    }
+
+    /**
+     * Throws an exception if the representation invariant is violated.
+     */
+    private void checkRep() {
+        assert(this.graph != null && this.nodes != null && this.costs != null);
+        assert(this.nodes.length == this.costs.length && this.nodes.length >= 1 && this.costs[0] == 0);
+        for(int i = 1; i < this.costs.length; i++) {
+            assert(this.costs[i - 1] <= this.costs[i] && this.costs[i] <= this.budget);
+        }
+    }
+
+    /**
+     * @return the node the search started from
+     */
+    public N getSource() {
+        return this.graph.nodeAt(this.nodes[0]);
+    }
+
+    /**
+     * @return the most a path to a reached node may cost
+     */
+    public double getBudget() {
+        return this.budget;
+    }
+
+    /**
+     * @return the number of nodes reached, including the source
+     */
+    public int size() {
+        return this.nodes.length;
+    }
+
+    /**
+     * @param i the index of a node reached, from 0 (the source) to size() - 1
+     * @return the i-th nearest node reached
+     * @throws IndexOutOfBoundsException if i is not a valid index
+     */
+    public N getNode(int i) {
+        return this.graph.nodeAt(this.nodes[i]);
+    }
+
+    /**
+     * @param i the index of a node reached, from 0 (the source) to size() - 1
+     * @return the least cost from the source to the i-th nearest node reached
+     * @throws IndexOutOfBoundsException if i is not a valid index
+     */
+    public double getCost(int i) {
+        return this.costs[i];
+    }
+}
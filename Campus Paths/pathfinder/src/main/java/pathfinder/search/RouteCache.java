@@ -0,0 +1,297 @@
+package pathfinder.search;
+
+import graph.GraphVersion;
+import pathfinder.datastructures.Path;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * RouteCache is a thread-safe, size-bounded cache of computed routes keyed by the graph ids of
+ * their start and end nodes, packed into a single long, so a lookup never hashes node values.
+ * The routes are split by key across up to 16 segments, each a least recently used cache with
+ * its own lock and an equal share of the capacity, so lookups of different keys, hits included,
+ * rarely wait on each other. When a segment is full its least recently used route is evicted,
+ * which makes eviction only approximately least recently used across the whole cache; a cache of
+ * fewer than 16 routes has one segment and is exact. If the graph's edges are symmetric,
+ * a cached route from B to A is reversed to answer a query from A to B instead of searching again.
+ * <p>
+ * Routes over a graph that changes (see LiveGraph) are looked up with the GraphVersion they are
+ * for. Each route is stamped with the version it was found in and only answers lookups for that
+ * same version, so a change to the graph makes every older route stale at once without
+ * flushing the cache; stale routes are replaced as they are looked up again, or evicted.
+ * @param <N> The value assigned to the node
+ */
+public final class RouteCache<N> {
+
+    //The most segments a cache is split into
+    private static final int MAX_SEGMENTS = 16;
+
+    //The fewest routes a segment holds when the cache is split, so that small caches are not split
+    //into segments too small to keep a useful recency order
+    private static final int MIN_SEGMENT_ENTRIES = 8;
+
+    //The segments holding the routes of this cache, each keyed by routeKey(start, end) in least to most
+    //recently used order and guarded by its own lock. The route with key k is held in segments[segmentOf(k)]
+    private final LinkedHashMap<Long, Route<N>>[] segments;
+
+    //The most routes this cache holds at once
+    private final int maxEntries;
+
+    //Whether a route can be answered by reversing the route going the other way, for lookups
+    //that do not give a version
+    private final boolean symmetric;
+
+    //The number of lookups answered from this cache, including reversed routes
+    private final LongAdder hits;
+
+    //The number of lookups that had to compute their route
+    private final LongAdder misses;
+
+    //The number of routes evicted to stay within maxEntries
+    private final LongAdder evictions;
+
+    //The number of lookups that found a route for a different version of the graph
+    private final LongAdder stale;
+
+    /**
+     * Constructs a new, empty RouteCache
+     * @param maxEntries the most routes to hold at once
+     * @param symmetric whether every edge has an equal cost edge going the other way, so that
+     *                  reversing a route gives a least cost route between the same ends. Lookups
+     *                  that give a GraphVersion use its symmetry instead
+     * @throws IllegalArgumentException if maxEntries is not positive
+     */
+    @SuppressWarnings("unchecked")
+    public RouteCache(int maxEntries, boolean symmetric) {
+        if(maxEntries <= 0) {
+            throw new IllegalArgumentException("Cache must hold at least one route");
+        }
+        this.maxEntries = maxEntries;
+        this.symmetric = symmetric;
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.evictions = new LongAdder();
+        this.stale = new LongAdder();
+        //A power of two, so a segment is picked by masking the hash of a key
+        int count = Integer.highestOneBit(Math.max(1, Math.min(MAX_SEGMENTS, maxEntries / MIN_SEGMENT_ENTRIES)));
+        this.segments = (LinkedHashMap<Long, Route<N>>[]) new LinkedHashMap<?, ?>[count];
+        for(int i = 0; i < count; i++) {
+            //Share out the capacity so the segments hold maxEntries routes in all
+            int capacity = maxEntries / count + (i < maxEntries % count ? 1 : 0);
+            this.segments[i] = new LinkedHashMap<Long, Route<N>>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Route<N>> eldest) {
+                    if(size() > capacity) {
+                        RouteCache.this.evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+    }
+
+    /**
+     * Gets the route between two ends, computing and caching it if it is not already cached.
+     * The route is computed outside the cache's locks, so two threads that miss on the same key
+     * at once may both compute it
+     * @param start the id of the start node of the route
+     * @param end the id of the end node of the route
+     * @param compute finds the route between two nodes when it is not cached, such as
+     *                {@link RouteEngine#shortestPathById}
+     * @return the route from start to end, or null if compute finds none (null is not cached)
+     */
+    public Path<N> get(int start, int end, RouteSearch<N> compute) {
+        return get(start, end, 0, this.symmetric, compute);
+    }
+
+    /**
+     * Gets the route between two ends in a version of a changing graph, computing and caching it
+     * if the cache holds no route between them for that version. The route is computed outside
+     * the cache's locks, so two threads that miss on the same key at once may both compute it
+     * @param start the id of the start node of the route
+     * @param end the id of the end node of the route
+     * @param version the version of the graph compute searches
+     * @param compute finds the route between two nodes in version when it is not cached
+     * @return the route from start to end, or null if compute finds none (null is not cached)
+     * @throws IllegalArgumentException if version is null
+     */
+    public Path<N> get(int start, int end, GraphVersion<?> version, RouteSearch<N> compute) {
+        if(version == null) {
+            throw new IllegalArgumentException("Version cannot be null");
+        }
+        return get(start, end, version.getNumber(), version.isSymmetric(), compute);
+    }
+
+    /**
+     * Gets the route between two ends in the given version, computing and caching it if needed
+     * @param version the number of the version of the graph compute searches
+     * @param symmetric whether that version's edges are symmetric
+     */
+    private Path<N> get(int start, int end, long version, boolean symmetric, RouteSearch<N> compute) {
+        long key = routeKey(start, end);
+        LinkedHashMap<Long, Route<N>> segment = this.segments[segmentOf(key)];
+        Route<N> route;
+        Route<N> opposite = null;
+        synchronized(segment) {
+            route = segment.get(key);
+        }
+        if((route == null || route.version != version) && symmetric) {
+            long oppositeKey = routeKey(end, start);
+            LinkedHashMap<Long, Route<N>> oppositeSegment = this.segments[segmentOf(oppositeKey)];
+            synchronized(oppositeSegment) {
+                opposite = oppositeSegment.get(oppositeKey);
+            }
+        }
+        if(route != null && route.version == version) {
+            this.hits.increment();
+            return route.path;
+        }
+        if(route != null) {
+            this.stale.increment();
+        }
+        Path<N> path;
+        if(opposite != null && opposite.version == version) {
+            this.hits.increment();
+            path = PathBuilder.reverse(opposite.path);
+        } else {
+            this.misses.increment();
+            path = compute.find(start, end);
+            if(path == null) {
+                return null;
+            }
+        }
+        synchronized(segment) {
+            //A slow lookup for an old version must not replace a route already found for a newer one
+            Route<N> cached = segment.get(key);
+            if(cached == null || cached.version <= version) {
+                segment.put(key, new Route<>(version, path));
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Removes every route from this cache
+     * @spec.modifies this
+     */
+    public void clear() {
+        for(LinkedHashMap<Long, Route<N>> segment: this.segments) {
+            synchronized(segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * @return the number of routes currently cached, counting each segment in turn while lookups
+     * may go on in the others
+     */
+    public int size() {
+        int size = 0;
+        for(LinkedHashMap<Long, Route<N>> segment: this.segments) {
+            synchronized(segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return the most routes this cache holds at once
+     */
+    public int maxEntries() {
+        return this.maxEntries;
+    }
+
+    /**
+     * @return the number of lookups answered from this cache so far
+     */
+    public long hitCount() {
+        return this.hits.sum();
+    }
+
+    /**
+     * @return the number of lookups that had to compute their route so far
+     */
+    public long missCount() {
+        return this.misses.sum();
+    }
+
+    /**
+     * @return the number of routes evicted so far
+     */
+    public long evictionCount() {
+        return this.evictions.sum();
+    }
+
+    /**
+     * @return the number of lookups so far that found a route cached for a different version of
+     * the graph than the one asked for
+     */
+    public long staleCount() {
+        return this.stale.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("[Routes: %d/%d; Hits: %d; Misses: %d; Evictions: %d; Stale: %d]",
+                             size(), this.maxEntries, hitCount(), missCount(), evictionCount(), staleCount());
+    }
+
+    /**
+     * Packs the ids of the ends of a route into the key it is cached under
+     * @param start the id of the start node of the route
+     * @param end the id of the end node of the route
+     * @return start in the high 32 bits and end in the low 32 bits
+     */
+    private static long routeKey(int start, int end) {
+        return ((long) start << 32) | (end & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Picks the segment a route is held in
+     * @param key the key of the route
+     * @return the index into segments of the segment holding key
+     */
+    private int segmentOf(long key) {
+        //Mix the two ids together, so that routes from one start spread over every segment
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & (this.segments.length - 1);
+    }
+
+    /**
+     * A cached route, stamped with the version of the graph it was found in.
+     * @param <N> The value assigned to the node
+     */
+    private static final class Route<N> {
+
+        //The number of the version of the graph the route was found in
+        private final long version;
+
+        //The route
+        private final Path<N> path;
+
+        private Route(long version, Path<N> path) {
+            this.version = version;
+            this.path = path;
+        }
+    }
+
+    /**
+     * Finds the route between two nodes given by their ids.
+     * @param <N> The value assigned to the node
+     */
+    @FunctionalInterface
+    public interface RouteSearch<N> {
+
+        /**
+         * @param start the id of the start node of the route
+         * @param end the id of the end node of the route
+         * @return the route from start to end, or null if there is none
+         */
+        Path<N> find(int start, int end);
+    }
+}
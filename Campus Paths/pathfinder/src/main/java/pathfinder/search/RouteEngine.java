@@ -0,0 +1,37 @@
+package pathfinder.search;
+
+import pathfinder.datastructures.Path;
+
+/**
+ * A RouteEngine answers point-to-point shortest path queries over a fixed graph.
+ * Implementations must be safe to call from several threads at once.
+ * @param <N> The value assigned to the node
+ */
+public interface RouteEngine<N> {
+
+    /**
+     * Finds the path of the least cost from a given start node to a given end node
+     * @param start the starting node of the path
+     * @param end the ending node of the path
+     * @return the least costly path from start to end, or null if there is no path
+     * @throws IllegalArgumentException if start or end is null or not in the graph
+     */
+    public Path<N> shortestPath(N start, N end);
+
+    /**
+     * Finds the path of the least cost between two nodes given by their ids in the graph this
+     * engine searches, which skips looking the nodes up by value
+     * @param start the id of the starting node of the path
+     * @param end the id of the ending node of the path
+     * @return the least costly path from start to end, or null if there is no path
+     * @throws IllegalArgumentException if start or end is not a valid id of the graph
+     */
+    public Path<N> shortestPathById(int start, int end);
+
+    /**
+     * Gets the total number of nodes settled (expanded) by every query answered so far, which
+     * is the usual measure for comparing how much of the graph different engines explore
+     * @return the number of nodes settled by this engine
+     */
+    public long settledCount();
+}
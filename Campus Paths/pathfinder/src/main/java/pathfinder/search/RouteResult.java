@@ -0,0 +1,59 @@
+package pathfinder.search;
+
+import pathfinder.datastructures.Path;
+
+/**
+ * <b>RouteResult</b> represents the immutable answer to one query of a batch of route queries:
+ * the start and end the query was given as, and the least cost path between them.
+ * @param <K> The type the start and end of the query were given as, such as building names
+ * @param <N> The value assigned to the node
+ */
+public final class RouteResult<K, N> {
+
+    //The start of the query, as given
+    private final K start;
+
+    //The end of the query, as given
+    private final K end;
+
+    //The least cost path from start to end, or null if there is none
+    private final Path<N> path;
+
+    /**
+     * Constructs a new RouteResult
+     * @param start the start of the query, as given
+     * @param end the end of the query, as given
+     * @param path the least cost path from start to end, or null if there is none
+     */
+    RouteResult(K start, K end, Path<N> path) {
+        this.start = start;
+        this.end = end;
+        this.path = path;
+    }
+
+    /**
+     * @return the start of the query, as given
+     */
+    public K getStart() {
+        return this.start;
+    }
+
+    /**
+     * @return the end of the query, as given
+     */
+    public K getEnd() {
+        return this.end;
+    }
+
+    /**
+     * @return the least cost path from the start to the end, or null if there is none
+     */
+    public Path<N> getPath() {
+        return this.path;
+    }
+
+    @Override
+    public String toString() {
+        return this.start + " -> " + this.end + ": " + this.path;
+    }
+}
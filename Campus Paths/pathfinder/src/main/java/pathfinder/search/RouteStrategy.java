@@ -0,0 +1,84 @@
+package pathfinder.search;
+
+import graph.FrozenGraph;
+import pathfinder.datastructures.Point;
+
+import java.util.Collection;
+
+/**
+ * The search algorithms CampusMap can answer route queries with. Every strategy finds a path
+ * of the same least cost; they differ only in how much of the graph they explore.
+ */
+public enum RouteStrategy {
+
+    /**
+     * Dijkstra's algorithm, settling nodes in order of distance from the start.
+     */
+    DIJKSTRA,
+
+    /**
+     * A* search guided by the straight-line distance to the end.
+     */
+    A_STAR,
+
+    /**
+     * Bidirectional Dijkstra, searching forward from the start and backward from the end at once.
+     */
+    BIDIRECTIONAL,
+
+    /**
+     * Contraction hierarchies, which shortcut the graph once up front so that each query only
+     * searches upward through a small part of it.
+     */
+    CONTRACTION_HIERARCHY,
+
+    /**
+     * A table of routes between every pair of buildings, computed in parallel up front and
+     * repaired rather than recomputed when the graph changes, with Dijkstra's algorithm for any
+     * other query.
+     */
+    PRECOMPUTED;
+
+    /**
+     * Creates an engine that answers queries over a graph with this strategy
+     * @param graph the graph to search
+     * @param buildings the locations of the buildings
+     * @return a new engine for this strategy
+     * @throws IllegalArgumentException if graph or buildings is null
+     */
+    public RouteEngine<Point> createEngine(FrozenGraph<Point> graph, Collection<Point> buildings) {
+        switch(this) {
+            case A_STAR:
+                return new AStarEngine(graph);
+            case BIDIRECTIONAL:
+                return new BidirectionalEngine<>(graph);
+            case CONTRACTION_HIERARCHY:
+                return new ContractionHierarchy<>(graph);
+            case PRECOMPUTED:
+                return new RouteTable<>(graph, buildings, new DijkstraEngine<>(graph));
+            case DIJKSTRA:
+            default:
+                return new DijkstraEngine<>(graph);
+        }
+    }
+
+    /**
+     * Creates an engine that answers queries over a new version of a graph with this strategy,
+     * reusing the work of the engine for the version before where the strategy can. Only
+     * PRECOMPUTED reuses anything: its table is repaired to fit the changes between the versions.
+     * @param previous the engine this strategy created for the version before, or null if there is none
+     * @param graph the new version of the graph, which must keep every node of the version
+     *              before at the same id
+     * @param buildings the locations of the buildings
+     * @return a new engine for this strategy
+     * @throws IllegalArgumentException if graph or buildings is null
+     */
+    @SuppressWarnings("unchecked")
+    public RouteEngine<Point> updateEngine(RouteEngine<Point> previous, FrozenGraph<Point> graph,
+                                           Collection<Point> buildings) {
+        if(this == PRECOMPUTED && previous instanceof RouteTable) {
+            return ((RouteTable<Point>) previous).repair(graph, buildings, new DijkstraEngine<>(graph));
+        }
+        return createEngine(graph, buildings);
+    }
+}
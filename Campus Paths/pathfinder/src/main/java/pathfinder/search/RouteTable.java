@@ -0,0 +1,122 @@
+package pathfinder.search;
+
+import graph.FrozenGraph;
+import pathfinder.datastructures.Path;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.stream.IntStream;
+
+/**
+ * RouteTable answers queries between a fixed set of endpoints (such as campus buildings) from a
+ * table built up front. Construction runs one single-source search over the whole graph from
+ * every endpoint in parallel on the common fork-join pool, and keeps only the resulting shortest
+ * path trees. A query between two endpoints then just walks one tree back from the end. Queries
+ * that do not start and end at endpoints are passed on to a fallback engine. When the graph
+ * changes, {@link #repair} builds the table for the new version by repairing each tree rather
+ * than searching again, which is why the trees cover the whole graph instead of stopping once
+ * every endpoint is settled.
+ * @param <N> The value assigned to the node
+ */
+public final class RouteTable<N> implements RouteEngine<N> {
+
+    //The graph the table was built over
+    private final FrozenGraph<N> graph;
+
+    //The index into trees of each node's tree, or -1 if the node is not an endpoint
+    private final int[] treeIndex;
+
+    //The shortest path tree from each endpoint
+    private final ShortestPathTree<N>[] trees;
+
+    //Answers the queries that are not between two endpoints
+    private final RouteEngine<N> fallback;
+
+    /**
+     * Constructs a new RouteTable, searching from every endpoint
+     * @param graph the graph to search
+     * @param endpoints the nodes routes will be looked up between; any not in graph are ignored
+     * @param fallback the engine used for any query not between two endpoints, which must search graph
+     * @throws IllegalArgumentException if any argument is null, or any endpoint is null
+     */
+    public RouteTable(FrozenGraph<N> graph, Collection<N> endpoints, RouteEngine<N> fallback) {
+        this(graph, endpoints, fallback, null, null);
+    }
+
+    /**
+     * Constructs a new RouteTable, repairing the trees of a table over an earlier version of
+     * graph where it can and searching from every other endpoint
+     * @param previous the table over the earlier version, or null to search from every endpoint
+     * @param repair compares the earlier version to graph, or null if previous is null
+     * @throws IllegalArgumentException if graph, endpoints, or fallback is null, or any endpoint is null
+     */
+    @SuppressWarnings("unchecked")
+    private RouteTable(FrozenGraph<N> graph, Collection<N> endpoints, RouteEngine<N> fallback,
+                       RouteTable<N> previous, TreeRepair<N> repair) {
+        if(graph == null || endpoints == null || fallback == null) {
+            throw new IllegalArgumentException("Graph, endpoints, and fallback cannot be null");
+        }
+        this.graph = graph;
+        this.fallback = fallback;
+        this.treeIndex = new int[graph.sizeNodes()];
+        Arrays.fill(this.treeIndex, -1);
+        int[] sources = new int[endpoints.size()];
+        int count = 0;
+        for(N endpoint: endpoints) {
+            //Endpoints off the graph can never be routed between, so they get no tree
+            int id = graph.idOf(endpoint);
+            if(id >= 0 && this.treeIndex[id] < 0) {
+                this.treeIndex[id] = count;
+                sources[count++] = id;
+            }
+        }
+        DijkstraEngine<N> dijkstra = new DijkstraEngine<>(graph);
+        this.trees = (ShortestPathTree<N>[]) new ShortestPathTree<?>[count];
+        IntStream.range(0, count).parallel().forEach(i -> {
+            int s = sources[i];
+            if(previous != null && s < previous.treeIndex.length && previous.treeIndex[s] >= 0) {
+                this.trees[i] = repair.repair(previous.trees[previous.treeIndex[s]]);
+            } else {
+                this.trees[i] = dijkstra.shortestPathTree(s, null, 0);
+            }
+        });
+    }
+
+    /**
+     * Builds the table for a later version of the graph this was built over, repairing the tree
+     * of every endpoint that already had one to fit the changes between the versions, and only
+     * searching from endpoints that are new to the graph. This is much cheaper than building a
+     * new table when only a few edges have changed
+     * @param graph the later version, which must keep every node of this's graph at the same id
+     * @param endpoints the nodes routes will be looked up between; any not in graph are ignored
+     * @param fallback the engine used for any query not between two endpoints, which must search graph
+     * @return a new table over graph, whose routes cost the same as those of one built from scratch
+     * @throws IllegalArgumentException if any argument is null, any endpoint is null, or graph
+     *                                  has fewer nodes than the graph of this
+     */
+    public RouteTable<N> repair(FrozenGraph<N> graph, Collection<N> endpoints, RouteEngine<N> fallback) {
+        return new RouteTable<>(graph, endpoints, fallback, this, new TreeRepair<>(this.graph, graph));
+    }
+
+    @Override
+    public Path<N> shortestPath(N start, N end) {
+        return shortestPathById(DijkstraEngine.idOf(this.graph, start), DijkstraEngine.idOf(this.graph, end));
+    }
+
+    @Override
+    public Path<N> shortestPathById(int start, int end) {
+        int s = DijkstraEngine.checkId(this.graph, start);
+        int t = DijkstraEngine.checkId(this.graph, end);
+        int i = this.treeIndex[s];
+        if(i < 0 || this.treeIndex[t] < 0) {
+            return this.fallback.shortestPathById(s, t);
+        }
+        return this.trees[i].pathTo(t);
+    }
+
+    @Override
+    public long settledCount() {
+        //Table lookups settle nothing, so only the fallback's searches count
+        return this.fallback.settledCount();
+    }
+}
@@ -0,0 +1,134 @@
+package pathfinder.search;
+
+import java.util.Arrays;
+
+/**
+ * SearchWorkspace holds the scratch state of one single-source search over a graph of a fixed
+ * size, so a thread running many searches can reuse it instead of allocating it per search.
+ * Distances and settled marks are stamped with the epoch of the search that wrote them, and
+ * anything stamped with an older epoch reads as unreached, so starting a new search never has
+ * to clear the arrays. A workspace must only be used by one thread at a time; engines keep one
+ * per thread with {@link #perThread}.
+ */
+final class SearchWorkspace {
+
+    //The nodes reached but not yet settled, ordered by their key
+    final IndexedMinHeap heap;
+
+    //The node before each reached node on the best path found to it
+    final int[] prevNode;
+
+    //The edge used to reach each reached node on the best path found to it
+    final int[] prevEdge;
+
+    //Marks the nodes a search is looking for. Unlike the stamped state, whoever marks a node must
+    //unmark it when the search is done
+    final boolean[] isTarget;
+
+    //Scratch space for the edges of a route while its Path is built
+    final int[] route;
+
+    //The least cost found to each node, only meaningful where reachedIn holds the current epoch
+    private final double[] dist;
+
+    //The epoch of the search that last reached each node
+    private final int[] reachedIn;
+
+    //The epoch of the search that last settled each node
+    private final int[] settledIn;
+
+    //The epoch of the current search. Stamps of 0 never match it
+    private int epoch;
+
+    //Abstraction function:
+    //A SearchWorkspace w is the state of one search, in which node v has been reached with a best
+    //known cost of dist[v] if reachedIn[v] == epoch (and is unreached otherwise), and has been settled
+    //if settledIn[v] == epoch
+
+    //Representation Invariant
+    //heap, prevNode, prevEdge, isTarget, route, dist, reachedIn, settledIn != null && all have the same
+    //length && epoch >= 0 && every stamp is <= epoch
+
+    /**
+     * Constructs a new SearchWorkspace
+     * @param size the number of nodes of the graph it will search
+     */
+    SearchWorkspace(int size) {
+        this.heap = new IndexedMinHeap(size);
+        this.prevNode = new int[size];
+        this.prevEdge = new int[size];
+        this.isTarget = new boolean[size];
+        this.route = new int[size];
+        this.dist = new double[size];
+        this.reachedIn = new int[size];
+        this.settledIn = new int[size];
+        this.epoch = 0;
+    }
+
+    /**
+     * Creates a per-thread pool of workspaces, each made the first time a thread asks for one
+     * @param size the number of nodes of the graph the workspaces will search
+     * @return a ThreadLocal giving each thread its own workspace
+     */
+    static ThreadLocal<SearchWorkspace> perThread(int size) {
+        return ThreadLocal.withInitial(() -> new SearchWorkspace(size));
+    }
+
+    /**
+     * Starts a new search, so that every node reads as unreached and unsettled and the heap is empty
+     * @spec.modifies this
+     */
+    void begin() {
+        this.heap.clear();
+        if(this.epoch == Integer.MAX_VALUE) {
+            //Stamps are about to wrap around, so clear them once and start counting again
+            Arrays.fill(this.reachedIn, 0);
+            Arrays.fill(this.settledIn, 0);
+            this.epoch = 0;
+        }
+        this.epoch++;
+    }
+
+    /**
+     * @return the number of nodes of the graph this workspace is sized for
+     */
+    int size() {
+        return this.dist.length;
+    }
+
+    /**
+     * @param v the id of a node
+     * @return the least cost found to v by the current search, or infinity if it has not reached v
+     */
+    double distance(int v) {
+        return this.reachedIn[v] == this.epoch ? this.dist[v] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Records a new least cost to a node in the current search
+     * @param v the id of the node
+     * @param cost the cost of the best path found to v
+     * @spec.modifies this
+     */
+    void setDistance(int v, double cost) {
+        this.dist[v] = cost;
+        this.reachedIn[v] = this.epoch;
+    }
+
+    /**
+     * @param v the id of a node
+     * @return true if and only if the current search has settled v
+     */
+    boolean isSettled(int v) {
+        return this.settledIn[v] == this.epoch;
+    }
+
+    /**
+     * Marks a node as settled in the current search
+     * @param v the id of the node
+     * @spec.modifies this
+     */
+    void settle(int v) {
+        this.settledIn[v] = this.epoch;
+    }
+}
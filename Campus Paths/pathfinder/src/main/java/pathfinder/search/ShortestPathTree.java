@@ -0,0 +1,233 @@
+package pathfinder.search;
+
+import graph.FrozenGraph;
+import pathfinder.datastructures.Path;
+
+/**
+ * <b>ShortestPathTree</b> represents the immutable result of a single-source search: the least
+ * cost from one source node to every node the search settled, and the last edge of a least cost
+ * path to each of them, so a Path to any settled node can be rebuilt on demand instead of being
+ * stored. A tree grown over the whole graph holds one double and one int per node; a tree from a
+ * search that stopped early holds them only for the nodes it settled, found through a small hash
+ * table, so its size follows the search rather than the graph.
+ * @param <N> The value assigned to the node
+ */
+public final class ShortestPathTree<N> {
+
+    //The graph the tree was grown over
+    private final FrozenGraph<N> graph;
+
+    //The id of the root of the tree
+    private final int source;
+
+    //The least cost from source to each node, or infinity if the node is not in the tree, at the
+    //node's position (see position)
+    private final double[] dist;
+
+    //The last edge on the least cost path to each node, or -1 for source and nodes not in the tree,
+    //at the node's position
+    private final int[] prevEdge;
+
+    //The id of the node at each position, or null if every node's position is its id
+    private final int[] ids;
+
+    //An open addressing table from ids to positions: each slot holds a position plus one, or 0 if
+    //empty. Null if ids is null
+    private final int[] slots;
+
+    //Whether the search settled every node reachable from source, rather than stopping early
+    private final boolean complete;
+
+    //Abstraction function:
+    //A ShortestPathTree t is the set of least cost paths from graph.nodeAt(source) to every node v with a
+    //finite dist[position(v)], where the path to v is the path to graph.sourceOf(prevEdge[position(v)])
+    //followed by prevEdge[position(v)]. A node with no position is not in the tree. If complete, a node is
+    //left out of the tree exactly when there is no path to it
+
+    //Representation Invariant
+    //graph, dist, prevEdge != null && dist.length == prevEdge.length &&
+    //(ids == null && slots == null && dist.length == graph.sizeNodes() ||
+    // ids != null && slots != null && ids.length == dist.length && slots.length is a power of two greater
+    // than ids.length && ids holds distinct valid ids, each in the slot probed for it) &&
+    //dist[position(source)] == 0 && prevEdge[position(source)] == -1 &&
+    //prevEdge[i] >= 0 for every other position i with a finite dist[i]
+
+    /**
+     * Constructs a new ShortestPathTree that takes ownership of the given arrays
+     * @param graph the graph the tree was grown over
+     * @param source the id of the root of the tree
+     * @param dist the least cost to each node, or infinity for nodes not in the tree
+     * @param prevEdge the last edge of the least cost path to each node, or -1 if there is none
+     * @param complete whether the tree holds every node reachable from source
+     */
+    ShortestPathTree(FrozenGraph<N> graph, int source, double[] dist, int[] prevEdge, boolean complete) {
+        this.graph = graph;
+        this.source = source;
+        this.dist = dist;
+        this.prevEdge = prevEdge;
+        this.ids = null;
+        this.slots = null;
+        this.complete = complete;
+        checkRep();
+    }
+
+    /**
+     * Constructs a new ShortestPathTree holding only the given nodes, which takes ownership of
+     * the given arrays
+     * @param graph the graph the tree was grown over
+     * @param source the id of the root of the tree, which must be one of ids
+     * @param ids the distinct ids of the nodes in the tree
+     * @param dist the least cost to each node of ids, in the same order
+     * @param prevEdge the last edge of the least cost path to each node of ids, or -1 for source
+     * @param complete whether the tree holds every node reachable from source
+     */
+    ShortestPathTree(FrozenGraph<N> graph, int source, int[] ids, double[] dist, int[] prevEdge, boolean complete) {
+        this.graph = graph;
+        this.source = source;
+        this.dist = dist;
+        this.prevEdge = prevEdge;
+        this.ids = ids;
+        this.slots = new int[Integer.highestOneBit(Math.max(ids.length, 1)) * 4];
+        for(int i = 0; i < ids.length; i++) {
+            int slot = slotOf(ids[i]);
+            while(this.slots[slot] != 0) {
+                slot = (slot + 1) & (this.slots.length - 1);
+            }
+            this.slots[slot] = i + 1;
+        }
+        this.complete = complete;
+        checkRep();
+    }
+
+    /**
+     * Throws an exception if the representation invariant is violated.
+     */
+    private void checkRep() {
+        assert(this.graph != null && this.dist != null && this.prevEdge != null);
+        assert(this.prevEdge.length == this.dist.length);
+        assert(this.ids == null ? this.dist.length == this.graph.sizeNodes() : this.ids.length == this.dist.length);
+        int s = position(this.source);
+        assert(s >= 0 && this.dist[s] == 0 && this.prevEdge[s] == -1);
+    }
+
+    /**
+     * @return the root of this tree
+     */
+    public N getSource() {
+        return this.graph.nodeAt(this.source);
+    }
+
+    /**
+     * @return true if the tree holds a least cost path to every node reachable from its source,
+     * or false if the search that grew it stopped early
+     */
+    public boolean isComplete() {
+        return this.complete;
+    }
+
+    /**
+     * @param node the node to look for
+     * @return true if and only if the tree holds a least cost path to node
+     * @throws IllegalArgumentException if node is null or not in the graph
+     */
+    public boolean reaches(N node) {
+        return reaches(DijkstraEngine.idOf(this.graph, node));
+    }
+
+    /**
+     * @param node the node to look up
+     * @return the least cost from the source to node, or infinity if the tree does not reach node
+     * @throws IllegalArgumentException if node is null or not in the graph
+     */
+    public double distanceTo(N node) {
+        return distanceTo(DijkstraEngine.idOf(this.graph, node));
+    }
+
+    /**
+     * Builds the least cost path from the source to a node
+     * @param node the node the path should end at
+     * @return the least cost path from the source to node, or null if the tree does not reach node
+     * @throws IllegalArgumentException if node is null or not in the graph
+     */
+    public Path<N> pathTo(N node) {
+        return pathTo(DijkstraEngine.idOf(this.graph, node));
+    }
+
+    /**
+     * @param id the id of the node to look for
+     * @return true if and only if the tree holds a least cost path to the node
+     */
+    boolean reaches(int id) {
+        return distanceTo(id) != Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * @param id the id of the node to look up
+     * @return the least cost from the source to the node, or infinity if the tree does not reach it
+     */
+    double distanceTo(int id) {
+        int i = position(id);
+        return i < 0 ? Double.POSITIVE_INFINITY : this.dist[i];
+    }
+
+    /**
+     * @param id the id of the node the path should end at
+     * @return the least cost path from the source to the node, or null if the tree does not reach it
+     */
+    Path<N> pathTo(int id) {
+        if(!reaches(id)) {
+            return null;
+        }
+        return PathBuilder.fromTree(this, id);
+    }
+
+    /**
+     * @return the graph the tree was grown over
+     */
+    FrozenGraph<N> graph() {
+        return this.graph;
+    }
+
+    /**
+     * @return the id of the root of the tree
+     */
+    int sourceId() {
+        return this.source;
+    }
+
+    /**
+     * @param id the id of a node
+     * @return the last edge on the least cost path to the node, or -1 if it is the source or not in the tree
+     */
+    int prevEdge(int id) {
+        int i = position(id);
+        return i < 0 ? -1 : this.prevEdge[i];
+    }
+
+    /**
+     * Finds where a node is held in this tree's arrays
+     * @param id the id of the node
+     * @return the position of the node, or -1 if the tree holds only some nodes and not this one
+     */
+    private int position(int id) {
+        if(this.ids == null) {
+            return id;
+        }
+        for(int slot = slotOf(id); this.slots[slot] != 0; slot = (slot + 1) & (this.slots.length - 1)) {
+            int i = this.slots[slot] - 1;
+            if(this.ids[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param id the id of a node
+     * @return the slot of the table a lookup of id starts probing at
+     */
+    private int slotOf(int id) {
+        //Fibonacci hashing spreads runs of nearby ids across the table
+        return (id * 0x9E3779B9) >>> (Integer.numberOfLeadingZeros(this.slots.length) + 1);
+    }
+}
@@ -0,0 +1,323 @@
+package pathfinder.search;
+
+import graph.FrozenGraph;
+
+import java.util.Arrays;
+
+/**
+ * TreeRepair brings shortest path trees grown over one version of a graph up to date with a
+ * later version, repairing only the part of each tree a change can affect rather than searching
+ * again from scratch. The two versions are compared once, when the TreeRepair is constructed,
+ * and the comparison is then shared by every tree it repairs.
+ * <p>
+ * A tree is repaired in two steps. First, every node whose last edge in the tree was removed
+ * or changed cost loses its path, along with every node below it in the tree, and each of those
+ * nodes is given the best path through a neighbor that kept its path. Second, the nodes given a
+ * new path, and the ends of every edge that became cheaper or was added, are relaxed outward in
+ * order of cost as in Dijkstra's algorithm, until no path can be improved. Only the nodes whose
+ * least cost changed are ever searched from, so a small change such as closing one path costs
+ * about as much as the part of the tree below it.
+ * <p>
+ * The later version must keep the id of every node of the earlier one, as the versions of a
+ * LiveGraph do; it may add nodes after them.
+ * @param <N> The value assigned to the node
+ */
+public final class TreeRepair<N> {
+
+    //The version of the graph the trees were grown over
+    private final FrozenGraph<N> before;
+
+    //The version of the graph the trees are repaired to
+    private final FrozenGraph<N> after;
+
+    //The edge of after with the same start, end, and cost as each edge of before, or -1 if there is none
+    private final int[] edgeMap;
+
+    //The edge of after that became cheaper than every edge between its ends in before, for each such pair of ends
+    private final int[] cheaperEdges;
+
+    //Gives the edges of after ending at each node: the edges ending at v are
+    //inEdges[inOffsets[v]] ... inEdges[inOffsets[v + 1] - 1], or null until a repair first needs it
+    private int[] inOffsets;
+
+    //The edges of after, ordered by the node they end at. Both are only read after a call to
+    //buildInEdges, whose lock makes them visible to the calling thread
+    private int[] inEdges;
+
+    //Abstraction function:
+    //A TreeRepair r repairs the trees grown over before into trees over after, where the edge e of before is
+    //unchanged in after if edgeMap[e] >= 0 and has been removed or changed cost otherwise, and the edges of
+    //cheaperEdges are the only ones through which a path of after can be cheaper than any path of before
+
+    //Representation Invariant
+    //before, after, edgeMap, cheaperEdges != null && edgeMap.length == before.sizeEdges() &&
+    //after.sizeNodes() >= before.sizeNodes() && every element of edgeMap and cheaperEdges is -1 or an edge of after
+    //&& inOffsets and inEdges are both null or both built
+
+    /**
+     * Compares two versions of a graph, taking time proportional to the number of edges in both
+     * @param before the version of the graph the trees to repair were grown over
+     * @param after the version of the graph to repair the trees to, which keeps every node of
+     *              before at the same id
+     * @throws IllegalArgumentException if before or after is null, or after has fewer nodes than before
+     */
+    public TreeRepair(FrozenGraph<N> before, FrozenGraph<N> after) {
+        if(before == null || after == null) {
+            throw new IllegalArgumentException("Both versions of the graph cannot be null");
+        }
+        if(after.sizeNodes() < before.sizeNodes()) {
+            throw new IllegalArgumentException("The later version must keep every node of the earlier one");
+        }
+        this.before = before;
+        this.after = after;
+        this.edgeMap = new int[before.sizeEdges()];
+        Arrays.fill(this.edgeMap, -1);
+
+        int size = after.sizeNodes();
+        //For the node being compared, the first edge of after to each target (chained through
+        //nextSameTarget), and the least cost to each target in each version, reset after each node
+        int[] firstToTarget = new int[size];
+        Arrays.fill(firstToTarget, -1);
+        int[] nextSameTarget = new int[after.sizeEdges()];
+        double[] leastBefore = new double[size];
+        double[] leastAfter = new double[size];
+        Arrays.fill(leastBefore, Double.POSITIVE_INFINITY);
+        Arrays.fill(leastAfter, Double.POSITIVE_INFINITY);
+        int[] leastEdge = new int[size];
+        int[] cheaper = new int[16];
+        int cheaperCount = 0;
+        for(int u = 0; u < size; u++) {
+            for(int e = after.endEdge(u) - 1; e >= after.firstEdge(u); e--) {
+                int v = after.target(e);
+                nextSameTarget[e] = firstToTarget[v];
+                firstToTarget[v] = e;
+                if(after.weight(e) < leastAfter[v]) {
+                    leastAfter[v] = after.weight(e);
+                    leastEdge[v] = e;
+                }
+            }
+            if(u < before.sizeNodes()) {
+                for(int e = before.firstEdge(u); e < before.endEdge(u); e++) {
+                    int v = before.target(e);
+                    double w = before.weight(e);
+                    leastBefore[v] = Math.min(leastBefore[v], w);
+                    for(int f = firstToTarget[v]; f >= 0; f = nextSameTarget[f]) {
+                        if(Double.compare(after.weight(f), w) == 0) {
+                            this.edgeMap[e] = f;
+                            break;
+                        }
+                    }
+                }
+            }
+            for(int e = after.firstEdge(u); e < after.endEdge(u); e++) {
+                int v = after.target(e);
+                if(firstToTarget[v] < 0) {
+                    //Already reset while handling an earlier edge to v
+                    continue;
+                }
+                if(leastAfter[v] < leastBefore[v]) {
+                    if(cheaperCount == cheaper.length) {
+                        cheaper = Arrays.copyOf(cheaper, cheaperCount * 2);
+                    }
+                    cheaper[cheaperCount++] = leastEdge[v];
+                }
+                firstToTarget[v] = -1;
+                leastAfter[v] = Double.POSITIVE_INFINITY;
+                leastBefore[v] = Double.POSITIVE_INFINITY;
+            }
+            if(u < before.sizeNodes()) {
+                for(int e = before.firstEdge(u); e < before.endEdge(u); e++) {
+                    leastBefore[before.target(e)] = Double.POSITIVE_INFINITY;
+                }
+            }
+        }
+        this.cheaperEdges = Arrays.copyOf(cheaper, cheaperCount);
+        checkRep();
+    }
+
+    /**
+     * Throws an exception if the representation invariant is violated.
+     */
+    private void checkRep() {
+        assert(this.before != null && this.after != null && this.edgeMap != null && this.cheaperEdges != null);
+        assert(this.edgeMap.length == this.before.sizeEdges());
+        assert(this.after.sizeNodes() >= this.before.sizeNodes());
+        assert((this.inOffsets == null) == (this.inEdges == null));
+    }
+
+    /**
+     * @return the version of the graph trees are repaired to
+     */
+    public FrozenGraph<N> getGraph() {
+        return this.after;
+    }
+
+    /**
+     * Repairs a shortest path tree grown over the earlier version of the graph. A tree that does
+     * not hold every node reachable from its source cannot be repaired, since the paths it left
+     * out are unknown, so it is grown again over the whole of the later version instead
+     * @param tree a tree grown over the earlier version
+     * @return a complete tree from the same source over the later version
+     * @throws IllegalArgumentException if tree is null or was not grown over the earlier version
+     */
+    public ShortestPathTree<N> repair(ShortestPathTree<N> tree) {
+        if(tree == null || tree.graph() != this.before) {
+            throw new IllegalArgumentException("Tree must be grown over the earlier version of the graph");
+        }
+        int s = tree.sourceId();
+        if(!tree.isComplete()) {
+            return new DijkstraEngine<>(this.after).shortestPathTree(s, null, 0);
+        }
+        int oldSize = this.before.sizeNodes();
+        int size = this.after.sizeNodes();
+        double[] dist = new double[size];
+        int[] prevEdge = new int[size];
+        Arrays.fill(dist, oldSize, size, Double.POSITIVE_INFINITY);
+        Arrays.fill(prevEdge, -1);
+        boolean broken = false;
+        for(int v = 0; v < oldSize; v++) {
+            dist[v] = tree.distanceTo(v);
+            int e = tree.prevEdge(v);
+            if(e >= 0) {
+                prevEdge[v] = this.edgeMap[e];
+                broken |= prevEdge[v] < 0;
+            }
+        }
+
+        IndexedMinHeap heap = new IndexedMinHeap(size);
+        if(broken) {
+            reattach(tree, dist, prevEdge, heap);
+        }
+        for(int e: this.cheaperEdges) {
+            relax(e, dist, prevEdge, heap);
+        }
+        while(!heap.isEmpty()) {
+            int u = heap.pollMin();
+            for(int e = this.after.firstEdge(u); e < this.after.endEdge(u); e++) {
+                relax(e, dist, prevEdge, heap);
+            }
+        }
+        return new ShortestPathTree<>(this.after, s, dist, prevEdge, true);
+    }
+
+    /**
+     * Takes the path from every node whose last edge in tree is gone from the later version, and
+     * from every node below one in tree, then gives each of them the best path through a node
+     * that kept its path and queues it to be searched from
+     * @param tree the tree being repaired
+     * @param dist the cost of the path to each node, copied from tree
+     * @param prevEdge the last edge of the path to each node, mapped to the later version
+     * @param heap the nodes to search from, ordered by the cost of their path
+     * @spec.modifies dist, prevEdge, heap
+     */
+    private void reattach(ShortestPathTree<N> tree, double[] dist, int[] prevEdge, IndexedMinHeap heap) {
+        int oldSize = this.before.sizeNodes();
+        //Lists the children of each node in tree: the children of u are
+        //children[firstChild[u]] ... children[firstChild[u + 1] - 1]
+        int[] firstChild = new int[oldSize + 1];
+        for(int v = 0; v < oldSize; v++) {
+            int e = tree.prevEdge(v);
+            if(e >= 0) {
+                firstChild[this.before.sourceOf(e) + 1]++;
+            }
+        }
+        for(int u = 0; u < oldSize; u++) {
+            firstChild[u + 1] += firstChild[u];
+        }
+        int[] children = new int[firstChild[oldSize]];
+        int[] next = Arrays.copyOf(firstChild, oldSize);
+        for(int v = 0; v < oldSize; v++) {
+            int e = tree.prevEdge(v);
+            if(e >= 0) {
+                children[next[this.before.sourceOf(e)]++] = v;
+            }
+        }
+
+        //Gathers every node below a broken edge, which are exactly the nodes whose path is lost
+        int[] lost = new int[oldSize];
+        int lostCount = 0;
+        for(int v = 0; v < oldSize; v++) {
+            if(tree.prevEdge(v) >= 0 && prevEdge[v] < 0) {
+                lost[lostCount++] = v;
+                dist[v] = Double.POSITIVE_INFINITY;
+            }
+        }
+        for(int i = 0; i < lostCount; i++) {
+            int u = lost[i];
+            for(int c = firstChild[u]; c < firstChild[u + 1]; c++) {
+                int v = children[c];
+                if(dist[v] != Double.POSITIVE_INFINITY) {
+                    lost[lostCount++] = v;
+                    dist[v] = Double.POSITIVE_INFINITY;
+                    prevEdge[v] = -1;
+                }
+            }
+        }
+
+        //Every candidate is found before any is stored, so that each comes from a node that kept
+        //its path; paths through the other lost nodes are found by the search that follows
+        buildInEdges();
+        double[] bestDist = new double[lostCount];
+        int[] bestEdge = new int[lostCount];
+        for(int i = 0; i < lostCount; i++) {
+            int v = lost[i];
+            bestDist[i] = Double.POSITIVE_INFINITY;
+            for(int j = this.inOffsets[v]; j < this.inOffsets[v + 1]; j++) {
+                int e = this.inEdges[j];
+                double dv = dist[this.after.sourceOf(e)] + this.after.weight(e);
+                if(dv < bestDist[i]) {
+                    bestDist[i] = dv;
+                    bestEdge[i] = e;
+                }
+            }
+        }
+        for(int i = 0; i < lostCount; i++) {
+            if(bestDist[i] != Double.POSITIVE_INFINITY) {
+                dist[lost[i]] = bestDist[i];
+                prevEdge[lost[i]] = bestEdge[i];
+                heap.insertOrDecrease(lost[i], bestDist[i]);
+            }
+        }
+    }
+
+    /**
+     * Lowers the cost of the path to the end of an edge of the later version if going through
+     * the edge is cheaper, queueing the end to be searched from again
+     * @spec.modifies dist, prevEdge, heap
+     */
+    private void relax(int e, double[] dist, int[] prevEdge, IndexedMinHeap heap) {
+        int v = this.after.target(e);
+        double dv = dist[this.after.sourceOf(e)] + this.after.weight(e);
+        if(dv < dist[v]) {
+            dist[v] = dv;
+            prevEdge[v] = e;
+            heap.insertOrDecrease(v, dv);
+        }
+    }
+
+    /**
+     * Lists the edges of the later version by the node they end at, if not already listed. Trees
+     * may be repaired on several threads at once, so the lists are built under this's lock
+     * @spec.modifies this
+     */
+    private synchronized void buildInEdges() {
+        if(this.inEdges != null) {
+            return;
+        }
+        int size = this.after.sizeNodes();
+        int[] offsets = new int[size + 1];
+        for(int e = 0; e < this.after.sizeEdges(); e++) {
+            offsets[this.after.target(e) + 1]++;
+        }
+        for(int v = 0; v < size; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+        int[] edges = new int[this.after.sizeEdges()];
+        int[] next = Arrays.copyOf(offsets, size);
+        for(int e = 0; e < this.after.sizeEdges(); e++) {
+            edges[next[this.after.target(e)]++] = e;
+        }
+        this.inOffsets = offsets;
+        this.inEdges = edges;
+    }
+}
@@ -0,0 +1,2 @@
+/** Shortest path search engines used by Pathfinder */
+package pathfinder.search;
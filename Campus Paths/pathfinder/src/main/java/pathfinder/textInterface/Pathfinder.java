@@ -11,12 +11,22 @@
 
 package pathfinder.textInterface;
 
+import graph.DoubleWeightedGraph;
 import graph.Edge;
+import graph.FrozenGraph;
 import graph.Graph;
 import pathfinder.CampusMap;
 import pathfinder.datastructures.Path;
+import pathfinder.datastructures.Point;
+import pathfinder.search.AStarEngine;
+import pathfinder.search.DijkstraEngine;
+import pathfinder.search.KShortestPaths;
+import pathfinder.search.ParetoRoute;
+import pathfinder.search.ParetoRouter;
+import pathfinder.search.ReachableSet;
 
 import java.util.*;
+import java.util.function.Function;
 
 /**
  * Pathfinder represents a complete application capable of responding to user prompts to provide
@@ -26,6 +36,18 @@ public class Pathfinder {
 
     // This class does not represent an ADT.
 
+    //The engine built for the frozen map most recently searched for least cost paths
+    private static final EngineCache<DijkstraEngine<?>> DIJKSTRA_ENGINES = new EngineCache<>();
+
+    //The engine built for the frozen map most recently searched with A*
+    private static final EngineCache<AStarEngine> A_STAR_ENGINES = new EngineCache<>();
+
+    //The engine built for the frozen map most recently searched for alternative paths
+    private static final EngineCache<KShortestPaths<?>> ALTERNATIVE_ENGINES = new EngineCache<>();
+
+    //The router built for the frozen map most recently searched for Pareto sets of paths
+    private static final EngineCache<ParetoRouter<?>> PARETO_ROUTERS = new EngineCache<>();
+
     /**
      * The main entry point for this application. Initializes and launches the application.
      *
@@ -86,7 +108,7 @@ public class Pathfinder {
             if (finished.contains(minDest)) {
                 continue;
             }
-            for (Edge<Double, N, N> e : map.getEdgeList(minDest)) {
+            for (Edge<Double, N, N> e : map.getEdgeView(minDest)) {
                 if (!finished.contains(e.getEnd())) {
                     Path<N> newPath = minPath.extend(e.getEnd(), e.getValue());
                     active.add(newPath);
@@ -97,4 +119,167 @@ public class Pathfinder {
         //There is no path
         return null;
     }
-}
\ No newline at end of file
+
+    /**
+     * Finds the path of the least cost from a given start node to a given end node, searching a
+     * frozen snapshot of the graph with the same engine as {@link #leastCostPath(FrozenGraph, Object, Object)}.
+     * The snapshot is only copied when map has changed since it was last frozen, so repeated
+     * queries against an unchanged map share one snapshot and one engine
+     * @param map the map used to find the shortest paths
+     * @param start the starting node of the path
+     * @param end the ending node of the path
+     * @return a List that contains the edges of the least costly path or null if there is no path found
+     * @param <N> The value assigned to the node
+     * @throws IllegalArgumentException is map, start, or end is null
+     */
+    public static <N> Path<N> leastCostPath(DoubleWeightedGraph<N> map, N start, N end) {
+        if (map == null) {
+            throw new IllegalArgumentException("Graph cannot be null");
+        }
+        return leastCostPath(map.freeze(), start, end);
+    }
+
+    /**
+     * Finds the path of the least cost from a given start node to a given end node, walking the
+     * edges of a frozen snapshot of the graph. The engine built for map, with the search state
+     * each thread reuses, is kept for later queries against the same map
+     * @param map the frozen map used to find the shortest paths
+     * @param start the starting node of the path
+     * @param end the ending node of the path
+     * @return a List that contains the edges of the least costly path or null if there is no path found
+     * @param <N> The value assigned to the node
+     * @throws IllegalArgumentException is map, start, or end is null
+     */
+    public static <N> Path<N> leastCostPath(FrozenGraph<N> map, N start, N end) {
+        return dijkstra(map).shortestPath(start, end);
+    }
+
+    /**
+     * Finds the path of the least cost from a given start point to a given end point with A*
+     * search, using the straight-line distance to end to skip nodes that cannot be on the route.
+     * Building the engine copies every coordinate of map and scans every edge, so it is done once
+     * and the engine kept for later queries against the same map
+     * @param map the frozen map used to find the shortest paths
+     * @param start the starting point of the path
+     * @param end the ending point of the path
+     * @return a List that contains the edges of the least costly path or null if there is no path found
+     * @throws IllegalArgumentException is map, start, or end is null
+     */
+    public static Path<Point> leastCostPathAStar(FrozenGraph<Point> map, Point start, Point end) {
+        return A_STAR_ENGINES.engineFor(map, AStarEngine::new).shortestPath(start, end);
+    }
+
+    /**
+     * Finds the paths of the least cost from a given start node to each of several end nodes,
+     * searching the map once instead of once per end node, with the engine kept for map
+     * @param map the frozen map used to find the shortest paths
+     * @param start the starting node of every path
+     * @param ends the ending nodes of the paths
+     * @return a Map from each end node to its least costly path, or to null if there is no path found
+     * @param <N> The value assigned to the node
+     * @throws IllegalArgumentException is map, start, or ends is null
+     */
+    public static <N> Map<N, Path<N>> leastCostPaths(FrozenGraph<N> map, N start, Collection<N> ends) {
+        return dijkstra(map).shortestPaths(start, ends);
+    }
+
+    /**
+     * Finds every node whose least cost from a given start node is at most a budget, such as
+     * every point within a ten minute walk, with a single search that stops expanding once the
+     * next node to settle would cost more than the budget, with the engine kept for map
+     * @param map the frozen map to search
+     * @param start the node to search from
+     * @param maxCost the most a path to a reached node may cost
+     * @return every node reachable from start within maxCost, with its least cost, nearest first
+     * @param <N> The value assigned to the node
+     * @throws IllegalArgumentException is map or start is null, or maxCost is negative or NaN
+     */
+    public static <N> ReachableSet<N> reachableWithin(FrozenGraph<N> map, N start, double maxCost) {
+        return dijkstra(map).reachableWithin(start, maxCost);
+    }
+
+    /**
+     * Finds the k least cost loopless paths from a given start node to a given end node with
+     * Yen's algorithm, such as to offer a few alternative routes. The engine built for map is kept
+     * for later queries against the same map
+     * @param map the frozen map used to find the paths
+     * @param start the starting node of every path
+     * @param end the ending node of every path
+     * @param k the most paths to find
+     * @return up to k paths from start to end in increasing order of cost, fewer if there are not k
+     * @param <N> The value assigned to the node
+     * @throws IllegalArgumentException is map, start, or end is null, or k is negative
+     */
+    public static <N> List<Path<N>> leastCostPaths(FrozenGraph<N> map, N start, N end, int k) {
+        @SuppressWarnings("unchecked")
+        KShortestPaths<N> engine = (KShortestPaths<N>) ALTERNATIVE_ENGINES.engineFor(map, KShortestPaths::new);
+        return engine.shortestPaths(start, end, k);
+    }
+
+    /**
+     * Finds the Pareto set of paths from a given start node to a given end node, weighing the
+     * cost of every edge against its penalty: one path for each pair of cost and penalty that no
+     * other path beats in one without being worse in the other. The router built for map is kept
+     * for later queries against the same map
+     * @param map the frozen map used to find the paths, whose costs and penalties are not negative
+     * @param start the starting node of every path
+     * @param end the ending node of every path
+     * @return the paths with their penalties in increasing order of cost and decreasing order of
+     * penalty, or an empty list if there is no path
+     * @param <N> The value assigned to the node
+     * @throws IllegalArgumentException is map, start, or end is null
+     */
+    public static <N> List<ParetoRoute<N>> leastCostAndPenaltyPaths(FrozenGraph<N> map, N start, N end) {
+        @SuppressWarnings("unchecked")
+        ParetoRouter<N> router = (ParetoRouter<N>) PARETO_ROUTERS.engineFor(map, ParetoRouter::new);
+        return router.paretoRoutes(start, end);
+    }
+
+    /**
+     * Gets the Dijkstra engine kept for a frozen map, building it if map was not the last map
+     * searched
+     * @param map the frozen map to search
+     * @return an engine searching map
+     * @param <N> The value assigned to the node
+     * @throws IllegalArgumentException if map is null
+     */
+    @SuppressWarnings("unchecked")
+    private static <N> DijkstraEngine<N> dijkstra(FrozenGraph<N> map) {
+        return (DijkstraEngine<N>) DIJKSTRA_ENGINES.engineFor(map, DijkstraEngine::new);
+    }
+
+    /**
+     * Keeps the engine built for the last map searched by one kind of query. An engine holds the
+     * search state each thread reuses across queries, sized for its map, so building it is as
+     * costly as a search; repeated queries against the same map share one engine instead. Only
+     * the last map is kept, so alternating between maps rebuilds the engine each time. Engines
+     * are safe to share between threads, and two threads racing to replace the engine only build
+     * one each.
+     * @param <E> the type of engine kept
+     */
+    private static final class EngineCache<E> {
+
+        //The last map searched paired with its engine, or null if no map has been searched
+        private volatile Map.Entry<FrozenGraph<?>, E> last;
+
+        /**
+         * Gets the engine kept for a map, building it if map was not the last map searched
+         * @param map the map to search
+         * @param factory builds an engine searching a map
+         * @return an engine searching map
+         * @param <N> The value assigned to the node
+         * @throws IllegalArgumentException if map is null
+         */
+        <N> E engineFor(FrozenGraph<N> map, Function<FrozenGraph<N>, ? extends E> factory) {
+            if (map == null) {
+                throw new IllegalArgumentException("Graph cannot be null");
+            }
+            Map.Entry<FrozenGraph<?>, E> entry = this.last;
+            if (entry == null || entry.getKey() != map) {
+                entry = new AbstractMap.SimpleImmutableEntry<>(map, factory.apply(map));
+                this.last = entry;
+            }
+            return entry.getValue();
+        }
+    }
+}
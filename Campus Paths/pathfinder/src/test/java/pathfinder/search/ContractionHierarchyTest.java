@@ -0,0 +1,103 @@
+package pathfinder.search;
+
+import graph.FrozenGraph;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import pathfinder.datastructures.Path;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * This class contains a set of test cases that can be used to test the implementation of the
+ * ContractionHierarchy class, by comparing the paths it finds on random directed graphs, with
+ * edges of cost 0 and nodes joined by several edges, with those found by DijkstraEngine.
+ */
+public final class ContractionHierarchyTest {
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(10); // 10 seconds max per method tested
+
+    /**
+     * Checks that the hierarchy finds a path between two nodes exactly when Dijkstra's algorithm
+     * does, and that it is a path of the graph of the same cost.
+     */
+    private static void checkQuery(FrozenGraph<Integer> graph, ContractionHierarchy<Integer> hierarchy,
+                                   DijkstraEngine<Integer> dijkstra, int start, int end) {
+        String query = "From " + start + " to " + end;
+        Path<Integer> expected = dijkstra.shortestPath(start, end);
+        Path<Integer> found = hierarchy.shortestPath(start, end);
+        assertEquals(query, expected == null, found == null);
+        if (found != null) {
+            assertEquals(query, expected.getCost(), found.getCost(), 0);
+            assertNull(query, RandomGraphs.checkPath(graph, found, start, end));
+        }
+    }
+
+    @Test
+    public void testSmallGraphsMatchDijkstraForEveryPair() {
+        Random random = new Random(6);
+        for (int trial = 0; trial < 300; trial++) {
+            int size = 1 + random.nextInt(12);
+            FrozenGraph<Integer> graph = RandomGraphs.directed(random, size, random.nextInt(4 * size), 3, false);
+            ContractionHierarchy<Integer> hierarchy = new ContractionHierarchy<>(graph);
+            DijkstraEngine<Integer> dijkstra = new DijkstraEngine<>(graph);
+            for (int s = 0; s < size; s++) {
+                for (int t = 0; t < size; t++) {
+                    checkQuery(graph, hierarchy, dijkstra, s, t);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testLargerGraphsMatchDijkstra() {
+        //Large enough that witness searches can reach their settle limit and add shortcuts anyway
+        Random random = new Random(60);
+        for (int trial = 0; trial < 5; trial++) {
+            int size = 500 + random.nextInt(500);
+            FrozenGraph<Integer> graph = RandomGraphs.directed(random, size, 3 * size, 20, false);
+            ContractionHierarchy<Integer> hierarchy = new ContractionHierarchy<>(graph);
+            DijkstraEngine<Integer> dijkstra = new DijkstraEngine<>(graph);
+            for (int query = 0; query < 300; query++) {
+                checkQuery(graph, hierarchy, dijkstra, random.nextInt(size), random.nextInt(size));
+            }
+        }
+    }
+
+    @Test
+    public void testZeroCostGraphs() {
+        //Every path costs 0, so every tie between paths must still give a real path
+        Random random = new Random(600);
+        for (int trial = 0; trial < 50; trial++) {
+            int size = 2 + random.nextInt(10);
+            FrozenGraph<Integer> graph = RandomGraphs.directed(random, size, 3 * size, 0, false);
+            ContractionHierarchy<Integer> hierarchy = new ContractionHierarchy<>(graph);
+            DijkstraEngine<Integer> dijkstra = new DijkstraEngine<>(graph);
+            for (int s = 0; s < size; s++) {
+                for (int t = 0; t < size; t++) {
+                    checkQuery(graph, hierarchy, dijkstra, s, t);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testStartIsEnd() {
+        FrozenGraph<Integer> graph = RandomGraphs.directed(new Random(2), 5, 12, 3, false);
+        assertEquals(new Path<>(3), new ContractionHierarchy<>(graph).shortestPath(3, 3));
+    }
+
+    @Test
+    public void testUnreachableEnd() {
+        FrozenGraph<Integer> graph = RandomGraphs.directed(new Random(2), 5, 0, 3, false);
+        assertNull(new ContractionHierarchy<>(graph).shortestPath(0, 4));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingNodeRejected() {
+        new ContractionHierarchy<>(RandomGraphs.directed(new Random(2), 5, 12, 3, false)).shortestPath(0, 5);
+    }
+}
@@ -0,0 +1,168 @@
+package pathfinder.search;
+
+import graph.FrozenGraph;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import pathfinder.datastructures.Path;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * This class contains a set of test cases that can be used to test the implementation of the
+ * KShortestPaths class, mostly by comparing the paths it finds on small random graphs with every
+ * loopless path through them, found by brute force.
+ */
+public final class KShortestPathsTest {
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(10); // 10 seconds max per method tested
+
+    /**
+     * Builds a graph over the nodes 0 ... size - 1 from edges given as {source, target, cost}, in
+     * order of source.
+     */
+    private static FrozenGraph<Integer> graph(int size, int[]... edges) {
+        int[] offsets = new int[size + 1];
+        int[] targets = new int[edges.length];
+        double[] weights = new double[edges.length];
+        for (int e = 0; e < edges.length; e++) {
+            offsets[edges[e][0] + 1]++;
+            targets[e] = edges[e][1];
+            weights[e] = edges[e][2];
+        }
+        for (int u = 0; u < size; u++) {
+            offsets[u + 1] += offsets[u];
+        }
+        List<Integer> nodes = new ArrayList<>();
+        for (int u = 0; u < size; u++) {
+            nodes.add(u);
+        }
+        return FrozenGraph.fromLayout(nodes, offsets, targets, weights);
+    }
+
+    /**
+     * @return The cost of each path, in order.
+     */
+    private static List<Double> costs(List<Path<Integer>> paths) {
+        List<Double> costs = new ArrayList<>();
+        for (Path<Integer> path : paths) {
+            costs.add(path.getCost());
+        }
+        return costs;
+    }
+
+    /**
+     * Checks that paths are loopless paths of graph from start to end in order of cost, and that
+     * their costs are the least k of all the loopless paths from start to end.
+     */
+    private static void checkAgainstBruteForce(FrozenGraph<Integer> graph, List<Path<Integer>> paths,
+                                               int start, int end, int k) {
+        List<Double> all = new ArrayList<>();
+        for (int[] edges : RandomGraphs.simplePaths(graph, start, end)) {
+            all.add(RandomGraphs.cost(graph, edges));
+        }
+        all.sort(null);
+        String query = "k=" + k + " from " + start + " to " + end;
+        assertEquals(query, all.subList(0, Math.min(k, all.size())), costs(paths));
+        for (Path<Integer> path : paths) {
+            assertNull(query, RandomGraphs.checkPath(graph, path, start, end));
+            Set<Integer> visited = new HashSet<>();
+            visited.add(path.getStart());
+            for (Path<Integer>.Segment segment : path) {
+                assertTrue(query + ": " + path + " has a loop", visited.add(segment.getEnd()));
+            }
+        }
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////
+    ////  Brute force comparison
+    ///////////////////////////////////////////////////////////////////////////////////////
+
+    @Test
+    public void testRandomGraphsMatchBruteForce() {
+        Random random = new Random(24);
+        for (int trial = 0; trial < 200; trial++) {
+            int size = 2 + random.nextInt(6);
+            FrozenGraph<Integer> graph = RandomGraphs.directed(random, size, size + random.nextInt(3 * size), 4, false);
+            KShortestPaths<Integer> engine = new KShortestPaths<>(graph);
+            for (int s = 0; s < size; s++) {
+                for (int t = 0; t < size; t++) {
+                    for (int k : new int[] {1, 3, 10}) {
+                        checkAgainstBruteForce(graph, engine.shortestPaths(s, t, k), s, t, k);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testEveryPathOfDenseGraphFound() {
+        Random random = new Random(7);
+        FrozenGraph<Integer> graph = RandomGraphs.directed(random, 6, 30, 3, false);
+        KShortestPaths<Integer> engine = new KShortestPaths<>(graph);
+        int count = RandomGraphs.simplePaths(graph, 0, 5).size();
+        List<Path<Integer>> paths = engine.shortestPaths(0, 5, count + 5);
+        assertEquals(count, paths.size());
+        checkAgainstBruteForce(graph, paths, 0, 5, count + 5);
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////
+    ////  Edge cases
+    ///////////////////////////////////////////////////////////////////////////////////////
+
+    @Test
+    public void testZeroPathsRequested() {
+        FrozenGraph<Integer> graph = graph(2, new int[] {0, 1, 1});
+        assertTrue(new KShortestPaths<>(graph).shortestPaths(0, 1, 0).isEmpty());
+    }
+
+    @Test
+    public void testStartIsEnd() {
+        FrozenGraph<Integer> graph = graph(2, new int[] {0, 1, 1}, new int[] {1, 0, 1});
+        List<Path<Integer>> paths = new KShortestPaths<>(graph).shortestPaths(0, 0, 5);
+        assertEquals(1, paths.size());
+        assertEquals(new Path<>(0), paths.get(0));
+    }
+
+    @Test
+    public void testUnreachableEnd() {
+        FrozenGraph<Integer> graph = graph(3, new int[] {0, 1, 1}, new int[] {2, 0, 1});
+        assertTrue(new KShortestPaths<>(graph).shortestPaths(0, 2, 3).isEmpty());
+    }
+
+    @Test
+    public void testParallelEdgesGiveSeparatePaths() {
+        FrozenGraph<Integer> graph = graph(3, new int[] {0, 1, 3}, new int[] {0, 1, 1}, new int[] {0, 1, 2},
+                new int[] {1, 2, 1}, new int[] {1, 2, 1});
+        List<Path<Integer>> paths = new KShortestPaths<>(graph).shortestPaths(0, 2, 10);
+        assertEquals(Arrays.asList(2.0, 2.0, 3.0, 3.0, 4.0, 4.0), costs(paths));
+        checkAgainstBruteForce(graph, paths, 0, 2, 10);
+    }
+
+    @Test
+    public void testZeroWeightEdges() {
+        FrozenGraph<Integer> graph = graph(3, new int[] {0, 1, 0}, new int[] {0, 2, 0}, new int[] {1, 0, 0},
+                new int[] {1, 2, 0});
+        List<Path<Integer>> paths = new KShortestPaths<>(graph).shortestPaths(0, 2, 10);
+        assertEquals(Arrays.asList(0.0, 0.0), costs(paths));
+        checkAgainstBruteForce(graph, paths, 0, 2, 10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeKRejected() {
+        new KShortestPaths<>(graph(2, new int[] {0, 1, 1})).shortestPaths(0, 1, -1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingNodeRejected() {
+        new KShortestPaths<>(graph(2, new int[] {0, 1, 1})).shortestPaths(0, 2, 1);
+    }
+}
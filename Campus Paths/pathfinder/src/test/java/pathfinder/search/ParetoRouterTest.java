@@ -0,0 +1,218 @@
+package pathfinder.search;
+
+import graph.FrozenGraph;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import pathfinder.datastructures.Path;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * This class contains a set of test cases that can be used to test the implementation of the
+ * ParetoRouter class, by comparing the routes it finds on small random graphs with every loopless
+ * path through them, found by brute force.
+ */
+public final class ParetoRouterTest {
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(10); // 10 seconds max per method tested
+
+    // More than the cost of any loopless path of the random graphs, so a route weighted by it
+    // is one of least penalty
+    private static final double HEAVY_PENALTY = 1e6;
+
+    /**
+     * @return The cost and penalty of a route as the string "cost/penalty".
+     */
+    private static String pair(double cost, double penalty) {
+        return cost + "/" + penalty;
+    }
+
+    /**
+     * Finds the Pareto set of the loopless paths between two nodes by brute force.
+     *
+     * @return The pair of cost and penalty of each path that no other path beats in one measure
+     * without being worse in the other, once each, in increasing order of cost.
+     */
+    private static List<String> bruteForceFront(FrozenGraph<Integer> graph, int start, int end) {
+        List<int[]> paths = RandomGraphs.simplePaths(graph, start, end);
+        List<double[]> pairs = new ArrayList<>();
+        for (int[] edges : paths) {
+            pairs.add(new double[] {RandomGraphs.cost(graph, edges), RandomGraphs.penalty(graph, edges)});
+        }
+        //Sort by cost then penalty, so each pair on the front has less penalty than every pair before it
+        pairs.sort((a, b) -> a[0] != b[0] ? Double.compare(a[0], b[0]) : Double.compare(a[1], b[1]));
+        List<String> front = new ArrayList<>();
+        double leastPenalty = Double.POSITIVE_INFINITY;
+        for (double[] p : pairs) {
+            if (p[1] < leastPenalty) {
+                leastPenalty = p[1];
+                front.add(pair(p[0], p[1]));
+            }
+        }
+        return front;
+    }
+
+    /**
+     * Checks that a route runs along a loopless path of graph from start to end whose edges add
+     * up to the route's cost and penalty.
+     */
+    private static void checkRoute(FrozenGraph<Integer> graph, ParetoRoute<Integer> route, int start, int end) {
+        assertNull(RandomGraphs.checkPath(graph, route.getPath(), start, end));
+        for (int[] edges : RandomGraphs.simplePaths(graph, start, end)) {
+            if (runsAlong(graph, route.getPath(), edges) && RandomGraphs.penalty(graph, edges) == route.getPenalty()) {
+                return;
+            }
+        }
+        fail(route + " does not run along a path of the graph with its penalty");
+    }
+
+    /**
+     * @return Whether path runs along exactly the given edges.
+     */
+    private static boolean runsAlong(FrozenGraph<Integer> graph, Path<Integer> path, int[] edges) {
+        int i = 0;
+        for (Path<Integer>.Segment segment : path) {
+            if (i == edges.length || graph.target(edges[i]) != segment.getEnd()
+                    || graph.weight(edges[i]) != segment.getCost()) {
+                return false;
+            }
+            i++;
+        }
+        return i == edges.length;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////
+    ////  Pareto set
+    ///////////////////////////////////////////////////////////////////////////////////////
+
+    @Test
+    public void testParetoSetMatchesBruteForce() {
+        Random random = new Random(25);
+        for (int trial = 0; trial < 200; trial++) {
+            int size = 2 + random.nextInt(6);
+            FrozenGraph<Integer> graph = RandomGraphs.directed(random, size, size + random.nextInt(3 * size), 4, true);
+            ParetoRouter<Integer> router = new ParetoRouter<>(graph);
+            for (int s = 0; s < size; s++) {
+                for (int t = 0; t < size; t++) {
+                    List<String> found = new ArrayList<>();
+                    for (ParetoRoute<Integer> route : router.paretoRoutes(s, t)) {
+                        checkRoute(graph, route, s, t);
+                        found.add(pair(route.getCost(), route.getPenalty()));
+                    }
+                    assertEquals("From " + s + " to " + t, bruteForceFront(graph, s, t), found);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testParetoSetWithoutPenaltiesIsLeastCostRoute() {
+        Random random = new Random(3);
+        FrozenGraph<Integer> graph = RandomGraphs.directed(random, 6, 20, 4, false);
+        List<ParetoRoute<Integer>> routes = new ParetoRouter<>(graph).paretoRoutes(0, 5);
+        assertEquals(bruteForceFront(graph, 0, 5).size(), routes.size());
+        assertTrue(routes.size() <= 1);
+    }
+
+    @Test
+    public void testStartIsEnd() {
+        FrozenGraph<Integer> graph = RandomGraphs.directed(new Random(1), 4, 10, 4, true);
+        List<ParetoRoute<Integer>> routes = new ParetoRouter<>(graph).paretoRoutes(2, 2);
+        assertEquals(1, routes.size());
+        assertEquals(new Path<>(2), routes.get(0).getPath());
+        assertEquals(0, routes.get(0).getPenalty(), 0);
+    }
+
+    @Test
+    public void testUnreachableEnd() {
+        FrozenGraph<Integer> graph = RandomGraphs.directed(new Random(1), 4, 0, 4, true);
+        assertEquals(Collections.emptyList(), new ParetoRouter<>(graph).paretoRoutes(0, 3));
+        assertNull(new ParetoRouter<>(graph).weightedRoute(0, 3, 1));
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////
+    ////  Weighted routes
+    ///////////////////////////////////////////////////////////////////////////////////////
+
+    @Test
+    public void testWeightedRoutesMatchBruteForce() {
+        Random random = new Random(52);
+        for (int trial = 0; trial < 200; trial++) {
+            int size = 2 + random.nextInt(6);
+            FrozenGraph<Integer> graph = RandomGraphs.directed(random, size, size + random.nextInt(3 * size), 4, true);
+            ParetoRouter<Integer> router = new ParetoRouter<>(graph);
+            for (int s = 0; s < size; s++) {
+                for (int t = 0; t < size; t++) {
+                    List<int[]> paths = RandomGraphs.simplePaths(graph, s, t);
+                    for (double weight : new double[] {0, 0.5, 2, HEAVY_PENALTY}) {
+                        ParetoRoute<Integer> route = router.weightedRoute(s, t, weight);
+                        String query = "From " + s + " to " + t + " weighing penalties by " + weight;
+                        if (paths.isEmpty()) {
+                            assertNull(query, route);
+                            continue;
+                        }
+                        assertNotNull(query, route);
+                        checkRoute(graph, route, s, t);
+                        double best = Double.POSITIVE_INFINITY;
+                        for (int[] edges : paths) {
+                            best = Math.min(best, RandomGraphs.cost(graph, edges)
+                                    + weight * RandomGraphs.penalty(graph, edges));
+                        }
+                        assertEquals(query, best, route.getCost() + weight * route.getPenalty(), 0);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testZeroPenaltyWeightFindsLeastCostRoute() {
+        Random random = new Random(11);
+        FrozenGraph<Integer> graph = RandomGraphs.directed(random, 7, 25, 4, true);
+        DijkstraEngine<Integer> dijkstra = new DijkstraEngine<>(graph);
+        ParetoRouter<Integer> router = new ParetoRouter<>(graph);
+        for (int t = 1; t < 7; t++) {
+            Path<Integer> least = dijkstra.shortestPath(0, t);
+            ParetoRoute<Integer> route = router.weightedRoute(0, t, 0);
+            assertEquals(least == null, route == null);
+            if (route != null) {
+                assertEquals(least.getCost(), route.getCost(), 0);
+            }
+        }
+    }
+
+    @Test
+    public void testHeavyPenaltyWeightFindsLeastPenaltyRoute() {
+        Random random = new Random(12);
+        FrozenGraph<Integer> graph = RandomGraphs.directed(random, 7, 25, 4, true);
+        ParetoRouter<Integer> router = new ParetoRouter<>(graph);
+        for (int t = 1; t < 7; t++) {
+            List<String> front = bruteForceFront(graph, 0, t);
+            ParetoRoute<Integer> route = router.weightedRoute(0, t, HEAVY_PENALTY);
+            if (front.isEmpty()) {
+                assertNull(route);
+            } else {
+                //The last route of the Pareto set has the least penalty, and the least cost among those
+                assertEquals(front.get(front.size() - 1), pair(route.getCost(), route.getPenalty()));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativePenaltyWeightRejected() {
+        new ParetoRouter<>(RandomGraphs.directed(new Random(1), 2, 1, 1, true)).weightedRoute(0, 1, -1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInfinitePenaltyWeightRejected() {
+        new ParetoRouter<>(RandomGraphs.directed(new Random(1), 2, 1, 1, true))
+                .weightedRoute(0, 1, Double.POSITIVE_INFINITY);
+    }
+}
@@ -0,0 +1,169 @@
+package pathfinder.search;
+
+import graph.FrozenGraph;
+import pathfinder.datastructures.Path;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Builds the small random graphs the search tests run on, finds every loopless path through them
+ * by brute force, and checks the paths the engines return against them.
+ */
+final class RandomGraphs {
+
+    /**
+     * This class only has static methods.
+     */
+    private RandomGraphs() {
+    }
+
+    /**
+     * Builds a random directed graph whose nodes are the Integers 0 ... size - 1, each also its id.
+     * Costs and penalties are whole numbers from 0 to maxCost, so the costs of paths add up
+     * exactly and many paths tie. About a fifth of the edges repeat the ends of the edge before
+     * them, so some pairs of nodes are joined by several edges, and an edge may start and end at
+     * the same node.
+     *
+     * @param random    The source of the graph's randomness.
+     * @param size      The number of nodes.
+     * @param edges     The number of edges.
+     * @param maxCost   The highest cost and penalty of an edge.
+     * @param penalized Whether the edges have penalties, or all have a penalty of 0.
+     * @return A new graph with the given number of nodes and edges.
+     */
+    static FrozenGraph<Integer> directed(Random random, int size, int edges, int maxCost, boolean penalized) {
+        int[] sources = new int[edges];
+        int[] ends = new int[edges];
+        for (int e = 0; e < edges; e++) {
+            if (e > 0 && random.nextInt(5) == 0) {
+                sources[e] = sources[e - 1];
+                ends[e] = ends[e - 1];
+            } else {
+                sources[e] = random.nextInt(size);
+                ends[e] = random.nextInt(size);
+            }
+        }
+        int[] offsets = new int[size + 1];
+        for (int e = 0; e < edges; e++) {
+            offsets[sources[e] + 1]++;
+        }
+        for (int u = 0; u < size; u++) {
+            offsets[u + 1] += offsets[u];
+        }
+        int[] next = offsets.clone();
+        int[] targets = new int[edges];
+        double[] weights = new double[edges];
+        double[] penalties = penalized ? new double[edges] : null;
+        for (int e = 0; e < edges; e++) {
+            int slot = next[sources[e]]++;
+            targets[slot] = ends[e];
+            weights[slot] = random.nextInt(maxCost + 1);
+            if (penalized) {
+                penalties[slot] = random.nextInt(maxCost + 1);
+            }
+        }
+        List<Integer> nodes = new ArrayList<>();
+        for (int u = 0; u < size; u++) {
+            nodes.add(u);
+        }
+        return FrozenGraph.fromLayout(nodes, offsets, targets, weights, penalties);
+    }
+
+    /**
+     * Finds every loopless path between two nodes by trying every way on from every node.
+     *
+     * @param graph The graph to search, which must be small.
+     * @param start The id of the node every path starts at.
+     * @param end   The id of the node every path ends at.
+     * @return The edges of each path that visits no node twice, once for each different sequence
+     * of edges. If start is end, that is just the path with no edges.
+     */
+    static List<int[]> simplePaths(FrozenGraph<?> graph, int start, int end) {
+        List<int[]> paths = new ArrayList<>();
+        extend(graph, start, end, new boolean[graph.sizeNodes()], new int[graph.sizeNodes()], 0, paths);
+        return paths;
+    }
+
+    /**
+     * Adds every loopless way from the last node of a path to the end to paths.
+     *
+     * @param u       The last node of the path so far.
+     * @param visited Marks the nodes of the path so far, other than u.
+     * @param edges   The edges of the path so far, in edges[0] ... edges[length - 1].
+     */
+    private static void extend(FrozenGraph<?> graph, int u, int end, boolean[] visited, int[] edges, int length,
+                               List<int[]> paths) {
+        if (u == end) {
+            int[] path = new int[length];
+            System.arraycopy(edges, 0, path, 0, length);
+            paths.add(path);
+            return;
+        }
+        visited[u] = true;
+        for (int e = graph.firstEdge(u); e < graph.endEdge(u); e++) {
+            int v = graph.target(e);
+            if (!visited[v] && v != u) {
+                edges[length] = e;
+                extend(graph, v, end, visited, edges, length + 1, paths);
+            }
+        }
+        visited[u] = false;
+    }
+
+    /**
+     * @return The total cost of the given edges.
+     */
+    static double cost(FrozenGraph<?> graph, int[] edges) {
+        double cost = 0;
+        for (int e : edges) {
+            cost += graph.weight(e);
+        }
+        return cost;
+    }
+
+    /**
+     * @return The total penalty of the given edges.
+     */
+    static double penalty(FrozenGraph<?> graph, int[] edges) {
+        double penalty = 0;
+        for (int e : edges) {
+            penalty += graph.penalty(e);
+        }
+        return penalty;
+    }
+
+    /**
+     * Checks that a path runs between two nodes along edges of a graph, each segment costing what
+     * its edge costs, and that its cost is the sum of the costs of its segments.
+     *
+     * @param graph The graph the path should be in.
+     * @param path  The path to check.
+     * @param start The node the path should start at.
+     * @param end   The node the path should end at.
+     * @return A description of the first way path is not a path of graph from start to end, or
+     * null if it is one.
+     */
+    static String checkPath(FrozenGraph<Integer> graph, Path<Integer> path, int start, int end) {
+        if (path.getStart() != start || path.getEnd() != end) {
+            return path + " does not run from " + start + " to " + end;
+        }
+        double cost = 0;
+        for (Path<Integer>.Segment segment : path) {
+            boolean found = false;
+            int u = segment.getStart();
+            for (int e = graph.firstEdge(u); e < graph.endEdge(u) && !found; e++) {
+                found = graph.target(e) == segment.getEnd() && graph.weight(e) == segment.getCost();
+            }
+            if (!found) {
+                return path + " has a segment " + segment + " that is not an edge of the graph";
+            }
+            cost += segment.getCost();
+        }
+        if (cost != path.getCost()) {
+            return path + " costs " + path.getCost() + " but its segments cost " + cost;
+        }
+        return null;
+    }
+}
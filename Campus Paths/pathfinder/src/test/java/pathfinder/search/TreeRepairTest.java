@@ -0,0 +1,186 @@
+package pathfinder.search;
+
+import graph.FrozenGraph;
+import graph.LiveGraph;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import pathfinder.datastructures.Path;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * This class contains a set of test cases that can be used to test the implementation of the
+ * TreeRepair class and of RouteTable#repair, by making random changes to a LiveGraph and comparing
+ * the repaired trees with trees grown from scratch over each new version.
+ */
+public final class TreeRepairTest {
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(10); // 10 seconds max per method tested
+
+    /**
+     * Makes one random change through editor: raising or lowering the cost of an edge of the
+     * current version, removing one, disabling or enabling a node, or adding a node with edges
+     * into and out of it.
+     *
+     * @param current The version being changed.
+     * @param removed The ends of every edge removed since current, to which this adds any edge
+     *                it removes. Those edges are left alone.
+     * @param nodes   The number of nodes in live, to which a new node is added.
+     * @return The number of nodes in live after the change.
+     */
+    private static int change(Random random, LiveGraph<Integer> live, LiveGraph<Integer>.Editor editor,
+                              FrozenGraph<Integer> current, Set<List<Integer>> removed, int nodes) {
+        int kind = random.nextInt(6);
+        int e = current.sizeEdges() > 0 ? random.nextInt(current.sizeEdges()) : -1;
+        List<Integer> ends = e < 0 ? null : Arrays.asList(current.nodeAt(current.sourceOf(e)),
+                current.nodeAt(current.target(e)));
+        if (kind <= 2 && e >= 0 && !removed.contains(ends)) {
+            Integer from = ends.get(0);
+            Integer to = ends.get(1);
+            if (kind == 0) {
+                editor.setEdgeWeight(from, to, current.weight(e) + 1 + random.nextInt(5));
+            } else if (kind == 1) {
+                editor.setEdgeWeight(from, to, Math.max(0, current.weight(e) - 1 - random.nextInt(5)));
+            } else {
+                editor.removeEdge(from, to);
+                removed.add(ends);
+            }
+        } else if (kind <= 4) {
+            Integer node = random.nextInt(nodes);
+            if (live.isDisabled(node)) {
+                editor.enableNode(node);
+            } else {
+                editor.disableNode(node);
+            }
+        } else {
+            editor.insertNode(nodes);
+            for (int i = 0; i < 3; i++) {
+                editor.insertEdge(random.nextInt(5), nodes, random.nextInt(nodes));
+                editor.insertEdge(random.nextInt(5), random.nextInt(nodes), nodes);
+            }
+            nodes++;
+        }
+        return nodes;
+    }
+
+    /**
+     * Checks that two trees from the same source over the same graph reach the same nodes at the
+     * same costs, and that every path of repaired is a path of the graph of that cost.
+     */
+    private static void checkSameTree(FrozenGraph<Integer> graph, ShortestPathTree<Integer> expected,
+                                      ShortestPathTree<Integer> repaired) {
+        assertTrue(repaired.isComplete());
+        int source = repaired.getSource();
+        for (int v = 0; v < graph.sizeNodes(); v++) {
+            String query = "From " + source + " to " + v;
+            assertEquals(query, expected.reaches(v), repaired.reaches(v));
+            assertEquals(query, expected.distanceTo(v), repaired.distanceTo(v), 0);
+            if (repaired.reaches(v)) {
+                Path<Integer> path = repaired.pathTo(v);
+                assertNull(query, RandomGraphs.checkPath(graph, path, source, v));
+                assertEquals(query, expected.distanceTo(v), path.getCost(), 0);
+            } else {
+                assertNull(query, repaired.pathTo(v));
+            }
+        }
+    }
+
+    @Test
+    public void testRepairedTreesMatchFreshTrees() {
+        Random random = new Random(22);
+        for (int trial = 0; trial < 100; trial++) {
+            int nodes = 3 + random.nextInt(12);
+            LiveGraph<Integer> live = new LiveGraph<>(RandomGraphs.directed(random, nodes, 3 * nodes, 6, false));
+            for (int step = 0; step < 10; step++) {
+                FrozenGraph<Integer> before = live.current().getGraph();
+                int[] size = {nodes};
+                //Some versions gather several changes, so one repair sees them all at once
+                int changes = 1 + random.nextInt(3);
+                Set<List<Integer>> removed = new HashSet<>();
+                FrozenGraph<Integer> after = live.update(editor -> {
+                    for (int i = 0; i < changes; i++) {
+                        size[0] = change(random, live, editor, before, removed, size[0]);
+                    }
+                }).getGraph();
+                nodes = size[0];
+                TreeRepair<Integer> repair = new TreeRepair<>(before, after);
+                DijkstraEngine<Integer> oldEngine = new DijkstraEngine<>(before);
+                DijkstraEngine<Integer> newEngine = new DijkstraEngine<>(after);
+                for (int s = 0; s < before.sizeNodes(); s++) {
+                    checkSameTree(after, newEngine.shortestPathTree(s), repair.repair(oldEngine.shortestPathTree(s)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testEarlyStoppedTreeGrownAgain() {
+        Random random = new Random(5);
+        LiveGraph<Integer> live = new LiveGraph<>(RandomGraphs.directed(random, 10, 30, 6, false));
+        FrozenGraph<Integer> before = live.current().getGraph();
+        ShortestPathTree<Integer> partial = new DijkstraEngine<>(before)
+                .shortestPathTree(0, Collections.singletonList(1), 1);
+        FrozenGraph<Integer> after = live.update(editor -> change(random, live, editor, before, new HashSet<>(), 10))
+                .getGraph();
+        checkSameTree(after, new DijkstraEngine<>(after).shortestPathTree(0),
+                new TreeRepair<>(before, after).repair(partial));
+    }
+
+    @Test
+    public void testRepairedRouteTablesMatchFreshSearches() {
+        Random random = new Random(220);
+        for (int trial = 0; trial < 30; trial++) {
+            int nodes = 5 + random.nextInt(15);
+            LiveGraph<Integer> live = new LiveGraph<>(RandomGraphs.directed(random, nodes, 3 * nodes, 6, false));
+            List<Integer> endpoints = new ArrayList<>();
+            for (int u = 0; u < nodes; u += 2) {
+                endpoints.add(u);
+            }
+            FrozenGraph<Integer> graph = live.current().getGraph();
+            RouteTable<Integer> table = new RouteTable<>(graph, endpoints, new DijkstraEngine<>(graph));
+            for (int step = 0; step < 15; step++) {
+                FrozenGraph<Integer> before = graph;
+                int[] size = {nodes};
+                graph = live.update(editor -> size[0] = change(random, live, editor, before, new HashSet<>(), size[0]))
+                        .getGraph();
+                if (size[0] > nodes && random.nextBoolean()) {
+                    endpoints.add(nodes);
+                }
+                nodes = size[0];
+                //Repair the repaired table, so errors would build up over the steps
+                DijkstraEngine<Integer> fresh = new DijkstraEngine<>(graph);
+                table = table.repair(graph, endpoints, fresh);
+                for (Integer s : endpoints) {
+                    for (Integer t : endpoints) {
+                        String query = "Step " + step + " from " + s + " to " + t;
+                        Path<Integer> expected = fresh.shortestPath(s, t);
+                        Path<Integer> found = table.shortestPath(s, t);
+                        assertEquals(query, expected == null, found == null);
+                        if (found != null) {
+                            assertEquals(query, expected.getCost(), found.getCost(), 0);
+                            assertNull(query, RandomGraphs.checkPath(graph, found, s, t));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTreeOverOtherGraphRejected() {
+        Random random = new Random(1);
+        FrozenGraph<Integer> before = RandomGraphs.directed(random, 4, 8, 3, false);
+        FrozenGraph<Integer> other = RandomGraphs.directed(random, 4, 8, 3, false);
+        new TreeRepair<>(before, other).repair(new DijkstraEngine<>(other).shortestPathTree(0));
+    }
+}